@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.loader.AsyncLoader;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.api.printer.Printer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decompiler of a list of types as a pipeline: a loading thread reads the class files ahead, a pool
+ * of workers decompiles them, and the calling thread sends the results to the output in the order of
+ * the list. The stages are connected by bounded queues, and the count of types in flight is bounded
+ * by a reordering ring: a slow stage blocks the previous ones.<br>
+ * The loader must be thread-safe; inner classes are loaded by the workers.
+ */
+public class BatchDecompiler {
+    protected static final int FAILURE_INDEX = -2;
+    protected static final Task END = new Task(-1, null);
+
+    private final int workerCount;
+    private final int queueCapacity;
+
+    public BatchDecompiler() {
+        this(Runtime.getRuntime().availableProcessors(), 16);
+    }
+
+    /**
+     * @param workerCount   count of decompilation threads
+     * @param queueCapacity capacity of the queues between the stages
+     */
+    public BatchDecompiler(int workerCount, int queueCapacity) {
+        if ((workerCount < 1) || (queueCapacity < 1)) {
+            throw new IllegalArgumentException("workerCount and queueCapacity must be positive");
+        }
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Metrics decompile(Loader loader, List<String> internalTypeNames, Map<String, Object> configuration, Output output) throws IOException, InterruptedException {
+        int size = internalTypeNames.size();
+        // Loaded, decompiling and decompiled types, waiting to be written
+        int window = 2 * queueCapacity + workerCount;
+        Semaphore inFlight = new Semaphore(window);
+        Stage load = new Stage("load", 1, 0);
+        Stage decompile = new Stage("decompile", workerCount, queueCapacity);
+        Stage write = new Stage("write", 1, queueCapacity);
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount + 1);
+        long time0 = System.nanoTime();
+
+        try {
+            executor.execute(() -> loadAll(loader, internalTypeNames, window, inFlight, load, decompile, write));
+
+            for (int i=0; i<workerCount; i++) {
+                executor.execute(() -> decompileAll(loader, configuration, output, decompile, write));
+            }
+
+            Task[] ring = new Task[window];
+            int next = 0;
+
+            while (next < size) {
+                Task task = write.take();
+
+                if (task.index == FAILURE_INDEX) {
+                    // A stage died: the remaining types would never arrive
+                    throw rethrow(task.failure);
+                }
+
+                ring[task.index % window] = task;
+
+                while (((task = ring[next % window]) != null) && (task.index == next)) {
+                    long t0 = System.nanoTime();
+
+                    ring[next % window] = null;
+
+                    if (task.exception == null) {
+                        output.decompiled(task.internalTypeName, task.printer);
+                    } else {
+                        output.failed(task.internalTypeName, task.exception);
+                    }
+
+                    write.done(t0);
+                    inFlight.release();
+                    next++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new Metrics(System.nanoTime() - time0, load, decompile, write);
+    }
+
+    protected static void loadAll(Loader loader, List<String> internalTypeNames, int window, Semaphore inFlight, Stage load, Stage decompile, Stage write) {
+        try {
+            int size = internalTypeNames.size();
+
+            for (int i=0; i<size; i++) {
+                if ((loader instanceof AsyncLoader asyncLoader) && (i % window == 0)) {
+                    // Request the class files of the next window at once
+                    asyncLoader.prefetch(internalTypeNames.subList(i, Math.min(size, i + window)));
+                }
+
+                long t0 = System.nanoTime();
+
+                inFlight.acquire();
+                load.blocked(t0);
+                t0 = System.nanoTime();
+
+                Task task = new Task(i, internalTypeNames.get(i));
+
+                try {
+                    task.data = loader.load(task.internalTypeName);
+                } catch (Exception e) {
+                    task.exception = e;
+                }
+
+                load.done(t0);
+                decompile.put(task, load);
+            }
+
+            for (int i=decompile.threadCount; i>0; i--) {
+                decompile.put(END, load);
+            }
+        } catch (InterruptedException ignore) {
+            // Batch aborted
+        } catch (Throwable t) {
+            fail(write, t);
+        }
+    }
+
+    protected static void decompileAll(Loader loader, Map<String, Object> configuration, Output output, Stage decompile, Stage write) {
+        ClassFileToJavaSourceDecompiler decompiler = new ClassFileToJavaSourceDecompiler();
+
+        try {
+            Task task;
+
+            while ((task = decompile.take()) != END) {
+                long t0 = System.nanoTime();
+
+                if (task.exception == null) {
+                    try {
+                        task.printer = output.newPrinter(task.internalTypeName);
+                        decompiler.decompile(new PrefetchedLoader(loader, task.internalTypeName, task.data), task.printer, task.internalTypeName, configuration);
+                    } catch (Exception e) {
+                        task.exception = e;
+                    } catch (Throwable t) {
+                        // A worker must not die: the output waits for each type
+                        task.exception = new ExecutionException(t);
+                    }
+                }
+
+                // Release the class file
+                task.data = null;
+                decompile.done(t0);
+                write.put(task, decompile);
+            }
+        } catch (InterruptedException ignore) {
+            // Batch aborted
+        } catch (Throwable t) {
+            fail(write, t);
+        }
+    }
+
+    /**
+     * Sends the failure of a stage to the calling thread, waiting for the remaining types.
+     */
+    protected static void fail(Stage write, Throwable t) {
+        Task task = new Task(FAILURE_INDEX, null);
+
+        task.failure = t;
+
+        try {
+            write.queue.put(task);
+        } catch (InterruptedException ignore) {
+            // Batch aborted
+        }
+    }
+
+    protected static IOException rethrow(Throwable t) {
+        if (t instanceof IOException ioException) {
+            return ioException;
+        }
+        if (t instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        return new IOException(t);
+    }
+
+    protected static class Task {
+        protected final int index;
+        protected final String internalTypeName;
+        protected byte[] data;
+        protected Printer printer;
+        protected Exception exception;
+        protected Throwable failure;
+
+        public Task(int index, String internalTypeName) {
+            this.index = index;
+            this.internalTypeName = internalTypeName;
+        }
+    }
+
+    /**
+     * Loader returning the class file read by the loading stage for the main type.
+     */
+    protected static class PrefetchedLoader implements AsyncLoader {
+        protected final Loader loader;
+        protected final String internalTypeName;
+        protected final byte[] data;
+
+        public PrefetchedLoader(Loader loader, String internalTypeName, byte[] data) {
+            this.loader = loader;
+            this.internalTypeName = internalTypeName;
+            this.data = data;
+        }
+
+        @Override
+        public boolean canLoad(String internalName) {
+            return ((data != null) && internalTypeName.equals(internalName)) || loader.canLoad(internalName);
+        }
+
+        @Override
+        public byte[] load(String internalName) throws IOException {
+            return ((data != null) && internalTypeName.equals(internalName)) ? data : loader.load(internalName);
+        }
+
+        @Override
+        public void prefetch(Collection<String> internalNames) {
+            if (loader instanceof AsyncLoader asyncLoader) {
+                asyncLoader.prefetch(internalNames);
+            }
+        }
+    }
+
+    /**
+     * Counters of a stage and of its input queue. The times are summed over the threads of the stage:
+     * 'idle' is the time waiting for an input, 'blocked' the time waiting for room in the next stage.
+     */
+    public static class Stage {
+        protected final String name;
+        protected final int threadCount;
+        protected final ArrayBlockingQueue<Task> queue;
+        protected final int queueCapacity;
+        protected final LongAdder count = new LongAdder();
+        protected final LongAdder busyNanos = new LongAdder();
+        protected final LongAdder idleNanos = new LongAdder();
+        protected final LongAdder blockedNanos = new LongAdder();
+        protected final LongAdder queueDepthSum = new LongAdder();
+        protected final LongAdder queuePutCount = new LongAdder();
+        protected final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        protected Stage(String name, int threadCount, int queueCapacity) {
+            this.name = name;
+            this.threadCount = threadCount;
+            this.queue = (queueCapacity == 0) ? null : new ArrayBlockingQueue<>(queueCapacity);
+            this.queueCapacity = queueCapacity;
+        }
+
+        public String getName() { return name; }
+        public int getThreadCount() { return threadCount; }
+        public long getCount() { return count.sum(); }
+        public long getBusyNanos() { return busyNanos.sum(); }
+        public long getIdleNanos() { return idleNanos.sum(); }
+        public long getBlockedNanos() { return blockedNanos.sum(); }
+        public int getQueueCapacity() { return queueCapacity; }
+        public int getMaxQueueDepth() { return maxQueueDepth.get(); }
+
+        /**
+         * @return the mean depth of the input queue, sampled after each insertion
+         */
+        public double getMeanQueueDepth() {
+            long putCount = queuePutCount.sum();
+            return (putCount == 0) ? 0 : (double)queueDepthSum.sum() / putCount;
+        }
+
+        protected void put(Task task, Stage producer) throws InterruptedException {
+            long t0 = System.nanoTime();
+
+            queue.put(task);
+            producer.blocked(t0);
+
+            int depth = queue.size();
+
+            queueDepthSum.add(depth);
+            queuePutCount.increment();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        protected Task take() throws InterruptedException {
+            long t0 = System.nanoTime();
+            Task task = queue.take();
+
+            idleNanos.add(System.nanoTime() - t0);
+            return task;
+        }
+
+        protected void blocked(long t0) {
+            blockedNanos.add(System.nanoTime() - t0);
+        }
+
+        protected void done(long t0) {
+            busyNanos.add(System.nanoTime() - t0);
+            count.increment();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: threads=%d, count=%d, busy=%dms, idle=%dms, blocked=%dms, queue=%.1f/%d/%d",
+                name, threadCount, getCount(), getBusyNanos() / 1_000_000, getIdleNanos() / 1_000_000,
+                getBlockedNanos() / 1_000_000, getMeanQueueDepth(), getMaxQueueDepth(), queueCapacity);
+        }
+    }
+
+    public static class Metrics {
+        protected final long elapsedNanos;
+        protected final Stage load;
+        protected final Stage decompile;
+        protected final Stage write;
+
+        protected Metrics(long elapsedNanos, Stage load, Stage decompile, Stage write) {
+            this.elapsedNanos = elapsedNanos;
+            this.load = load;
+            this.decompile = decompile;
+            this.write = write;
+        }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+        public Stage getLoadStage() { return load; }
+        public Stage getDecompileStage() { return decompile; }
+        public Stage getWriteStage() { return write; }
+
+        @Override
+        public String toString() {
+            return "elapsed=" + (elapsedNanos / 1_000_000) + "ms\n" + load + '\n' + decompile + '\n' + write;
+        }
+    }
+
+    /**
+     * Destination of the outputs. 'newPrinter' is called by the workers, the other methods by the
+     * calling thread, in the order of the list.
+     */
+    public interface Output {
+        Printer newPrinter(String internalTypeName);
+
+        void decompiled(String internalTypeName, Printer printer) throws IOException;
+
+        void failed(String internalTypeName, Exception e);
+    }
+}
@@ -7,32 +7,75 @@
 
 package org.jd.core.v1;
 
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.LineNumber;
+import org.apache.bcel.classfile.Method;
 import org.jd.core.v1.api.Decompiler;
+import org.jd.core.v1.api.loader.AsyncLoader;
 import org.jd.core.v1.api.loader.Loader;
 import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.api.printer.SourceMapPrinter;
 import org.jd.core.v1.model.classfile.ClassFile;
-import org.jd.core.v1.model.javasyntax.CompilationUnit;
 import org.jd.core.v1.model.message.DecompileContext;
-import org.jd.core.v1.model.token.Token;
+import org.jd.core.v1.model.message.LineNumberTable;
+import org.jd.core.v1.model.message.StringPool;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.ClassFileToJavaSyntaxProcessor;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ReferencedTypeNames;
 import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
 import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.JavaSyntaxToJavaFragmentProcessor;
 import org.jd.core.v1.service.layouter.LayoutFragmentProcessor;
 import org.jd.core.v1.service.tokenizer.javafragmenttotoken.JavaFragmentToTokenProcessor;
+import org.jd.core.v1.service.writer.IndexTokenProcessor;
 import org.jd.core.v1.service.writer.WriteTokenProcessor;
-import org.jd.core.v1.util.DefaultList;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 public class ClassFileToJavaSourceDecompiler implements Decompiler {
+    /**
+     * Configuration key of the index-only mode: only the declarations, references and string
+     * constants are sent to the printer, the layout and the text are skipped.
+     */
+    public static final String INDEX_ONLY = "indexOnly";
+    /**
+     * Configuration key of the lean context mode: each stage releases the inputs it has consumed, the
+     * returned context keeps only the results (versions, max line number). A type maker created by the
+     * decompilation is released too; a type maker set by the caller is kept.
+     */
+    public static final String LEAN_CONTEXT = "leanContext";
+    /**
+     * Configuration key of a {@link StringPool} shared by the decompilations of a batch, to intern
+     * the names and descriptors.
+     */
+    public static final String STRING_POOL = "stringPool";
+    /**
+     * Configuration key of the packed tokens mode: the tokenizer encodes the tokens into an int array,
+     * read directly by the writer, instead of a list of references to token objects. The fragmenter
+     * still creates the token objects: the packed stream replaces only the list and the new line
+     * tokens. Ignored in index-only mode.
+     */
+    public static final String PACKED_TOKENS = "packedTokens";
+    /**
+     * Configuration key of the parallel fragments mode: the fragments of the members of the top level
+     * types are built in parallel, on the common fork-join pool for "true", or on the given
+     * {@link java.util.concurrent.ExecutorService}. The output is unchanged; the loader must be thread-safe.
+     */
+    public static final String PARALLEL_FRAGMENTS = "parallelFragments";
+
     private final ClassFileDeserializer deserializer = new ClassFileDeserializer();
     private final ClassFileToJavaSyntaxProcessor converter = new ClassFileToJavaSyntaxProcessor();
     private final JavaSyntaxToJavaFragmentProcessor fragmenter = new JavaSyntaxToJavaFragmentProcessor();
     private final LayoutFragmentProcessor layouter = new LayoutFragmentProcessor();
     private final JavaFragmentToTokenProcessor tokenizer = new JavaFragmentToTokenProcessor();
     private final WriteTokenProcessor writer = new WriteTokenProcessor();
+    private final IndexTokenProcessor indexer = new IndexTokenProcessor();
 
     @Override
     public DecompileContext decompile(Loader loader, Printer printer, String internalName) throws IOException {
@@ -48,20 +91,133 @@ public class ClassFileToJavaSourceDecompiler implements Decompiler {
         decompileContext.setLoader(loader);
         decompileContext.setPrinter(printer);
 
+        if (configuration != null && configuration.get(STRING_POOL) instanceof StringPool stringPool) {
+            decompileContext.setStringPool(stringPool);
+        }
+
         decompile(decompileContext);
         return decompileContext;
     }
 
     protected void decompile(DecompileContext decompileContext) throws IOException {
+        boolean leanContext = isEnabled(decompileContext, LEAN_CONTEXT);
+        boolean suppliedTypeMaker = (decompileContext.getTypeMaker() != null);
+
+        loadClassFile(decompileContext);
+        fragmenter.process(converter.process(decompileContext), decompileContext, getParallelFragmentsExecutor(decompileContext));
+
+        if (leanContext) {
+            // Release the class file, the syntax tree and the type maker created by the converter
+            decompileContext.setClassFile(null);
+            decompileContext.setCompilationUnit(null);
+
+            if (!suppliedTypeMaker) {
+                decompileContext.setTypeMaker(null);
+            }
+        }
+
+        boolean indexOnly = isEnabled(decompileContext, INDEX_ONLY);
+
+        if (!indexOnly) {
+            layouter.process(decompileContext);
+        }
+
+        if (!indexOnly && isEnabled(decompileContext, PACKED_TOKENS)) {
+            decompileContext.setPackedTokens(tokenizer.processPacked(decompileContext.getBody()));
+        } else {
+            decompileContext.setTokens(tokenizer.process(decompileContext.getBody()));
+        }
+
+        if (leanContext) {
+            // Release the fragments
+            decompileContext.setBody(null);
+        }
+
+        if (indexOnly) {
+            indexer.process(decompileContext);
+        } else {
+            writer.process(decompileContext);
+        }
+
+        if (leanContext) {
+            decompileContext.setTokens(null);
+            decompileContext.setPackedTokens(null);
+            decompileContext.setLineNumberTables(null);
+        }
+    }
+
+    /**
+     * Loads the class file into 'decompileContext', which holds the only reference to it.
+     */
+    protected void loadClassFile(DecompileContext decompileContext) throws IOException {
         ClassFile classFile = this.deserializer.loadClassFile(decompileContext.getLoader(),
                 decompileContext.getMainInternalTypeName());
         decompileContext.setClassFile(classFile);
-        decompileContext.setMainInternalTypeName(classFile.getInternalTypeName());
-        CompilationUnit compilationUnit = converter.process(decompileContext);
-        fragmenter.process(compilationUnit, decompileContext);
-        layouter.process(decompileContext);
-        DefaultList<Token> tokens = tokenizer.process(decompileContext.getBody());
-        decompileContext.setTokens(tokens);
-        writer.process(decompileContext);
+        decompileContext.setMainInternalTypeName(decompileContext.intern(classFile.getInternalTypeName()));
+
+        if (decompileContext.getPrinter() instanceof SourceMapPrinter) {
+            // Captured now: the class file may be released before the writer runs
+            List<LineNumberTable> lineNumberTables = new ArrayList<>();
+            addLineNumberTables(classFile, lineNumberTables);
+            decompileContext.setLineNumberTables(lineNumberTables);
+        }
+
+        if (decompileContext.getLoader() instanceof AsyncLoader asyncLoader) {
+            // Load the referenced types in one batch, before the conversion resolves them one by one
+            asyncLoader.prefetch(ReferencedTypeNames.scan(classFile));
+        }
+    }
+
+    protected static void addLineNumberTables(ClassFile classFile, List<LineNumberTable> lineNumberTables) {
+        Method[] methods = classFile.getMethods();
+
+        if (methods != null) {
+            for (Method method : methods) {
+                Code code = method.getCode();
+
+                if ((code != null) && (code.getLineNumberTable() != null)) {
+                    LineNumber[] lineNumbers = code.getLineNumberTable().getLineNumberTable().clone();
+                    int[] startOffsets = new int[lineNumbers.length];
+                    int[] originalLineNumbers = new int[lineNumbers.length];
+
+                    Arrays.sort(lineNumbers, Comparator.comparingInt(LineNumber::getStartPC));
+
+                    for (int i=0; i<lineNumbers.length; i++) {
+                        startOffsets[i] = lineNumbers[i].getStartPC();
+                        originalLineNumbers[i] = lineNumbers[i].getLineNumber();
+                    }
+
+                    lineNumberTables.add(new LineNumberTable(
+                        classFile.getInternalTypeName(), method.getName(), method.getSignature(), code.getCode().length,
+                        startOffsets, originalLineNumbers));
+                }
+            }
+        }
+
+        List<ClassFile> innerClassFiles = classFile.getInnerClassFiles();
+
+        if (innerClassFiles != null) {
+            for (ClassFile innerClassFile : innerClassFiles) {
+                addLineNumberTables(innerClassFile, lineNumberTables);
+            }
+        }
+    }
+
+    /**
+     * @return the executor of the {@link #PARALLEL_FRAGMENTS} option, null if the option is disabled
+     */
+    protected static ExecutorService getParallelFragmentsExecutor(DecompileContext decompileContext) {
+        Map<String, Object> configuration = decompileContext.getConfiguration();
+
+        if (configuration != null && configuration.get(PARALLEL_FRAGMENTS) instanceof ExecutorService executor) {
+            return executor;
+        }
+        return isEnabled(decompileContext, PARALLEL_FRAGMENTS) ? ForkJoinPool.commonPool() : null;
+    }
+
+    protected static boolean isEnabled(DecompileContext decompileContext, String key) {
+        Map<String, Object> configuration = decompileContext.getConfiguration();
+        Object value = configuration == null ? null : configuration.get(key);
+        return value != null && "true".equals(value.toString());
     }
 }
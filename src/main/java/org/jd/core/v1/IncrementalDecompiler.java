@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ConstantValue;
+import org.apache.bcel.classfile.ExceptionTable;
+import org.apache.bcel.classfile.Field;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.jd.core.v1.api.Decompiler;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.model.message.DecompilationManifest;
+import org.jd.core.v1.model.message.DecompilationManifest.Entry;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ReferencedTypeNames;
+import org.jd.core.v1.service.deserializer.classfile.LazyClassParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Decompiler of a new version of an archive, re-decompiling only the top level types whose class
+ * files changed, which reference a type of the archive whose signature, or the signature of a super
+ * type, changed, or whose package gained or lost a type. The outputs of the other types are kept.<br>
+ * The hashes of the previous run are read from a {@link DecompilationManifest}; types outside the
+ * archive are assumed unchanged.
+ */
+public class IncrementalDecompiler {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int HASH_LENGTH = 16;
+
+    private final Decompiler decompiler;
+
+    public IncrementalDecompiler() {
+        this(new ClassFileToJavaSourceDecompiler());
+    }
+
+    public IncrementalDecompiler(Decompiler decompiler) {
+        this.decompiler = decompiler;
+    }
+
+    /**
+     * @param internalTypeNames all the class files of the archive, inner classes included
+     * @param previousManifest  manifest of the previous run, null to decompile all the types
+     * @return the manifest of this run
+     */
+    public DecompilationManifest decompile(
+            Loader loader, Collection<String> internalTypeNames, DecompilationManifest previousManifest,
+            Map<String, Object> configuration, Output output) throws IOException {
+        Map<String, Set<String>> classFilesByTopLevelType = groupByTopLevelType(internalTypeNames);
+        DecompilationManifest manifest = new DecompilationManifest();
+
+        manifest.setConfigurationHash(hashConfiguration(configuration));
+
+        for (Map.Entry<String, Set<String>> entry : classFilesByTopLevelType.entrySet()) {
+            manifest.put(createEntry(loader, entry.getKey(), entry.getValue(), classFilesByTopLevelType));
+        }
+
+        for (Map.Entry<String, String> entry : hashPackages(classFilesByTopLevelType.keySet()).entrySet()) {
+            manifest.putPackageHash(entry.getKey(), entry.getValue());
+        }
+
+        boolean full = (previousManifest == null) || !manifest.getConfigurationHash().equals(previousManifest.getConfigurationHash());
+
+        for (String internalTypeName : classFilesByTopLevelType.keySet()) {
+            if (full || isChanged(internalTypeName, manifest, previousManifest)) {
+                Printer printer = output.newPrinter(internalTypeName);
+
+                try {
+                    decompiler.decompile(loader, printer, internalTypeName, configuration);
+                    output.decompiled(internalTypeName, printer);
+                } catch (Exception e) {
+                    // Retried by the next run
+                    manifest.remove(internalTypeName);
+                    output.failed(internalTypeName, e);
+                }
+            } else {
+                output.unchanged(internalTypeName);
+            }
+        }
+
+        if (previousManifest != null) {
+            for (String internalTypeName : previousManifest.getInternalTypeNames()) {
+                if (!classFilesByTopLevelType.containsKey(internalTypeName)) {
+                    output.removed(internalTypeName);
+                }
+            }
+        }
+
+        return manifest;
+    }
+
+    protected static boolean isChanged(String internalTypeName, DecompilationManifest manifest, DecompilationManifest previousManifest) {
+        Entry entry = manifest.getEntry(internalTypeName);
+        Entry previousEntry = previousManifest.getEntry(internalTypeName);
+
+        if ((previousEntry == null) || !entry.getContentHash().equals(previousEntry.getContentHash())) {
+            return true;
+        }
+
+        // Imports depend on the types of the package, which shadow the imported types of the same name
+        String internalPackageName = getInternalPackageName(internalTypeName);
+        String packageHash = manifest.getPackageHash(internalPackageName);
+
+        if ((packageHash == null) || !packageHash.equals(previousManifest.getPackageHash(internalPackageName))) {
+            return true;
+        }
+
+        // Type resolution and imports depend on the signatures of the referenced types, inherited
+        // members included
+        Set<String> visited = new HashSet<>();
+        Deque<String> referencedTypes = new ArrayDeque<>(entry.getReferencedTypes());
+
+        while (!referencedTypes.isEmpty()) {
+            String referencedType = referencedTypes.poll();
+
+            if (visited.add(referencedType)) {
+                Entry referencedEntry = manifest.getEntry(referencedType);
+                Entry previousReferencedEntry = previousManifest.getEntry(referencedType);
+
+                if ((referencedEntry == null) || (previousReferencedEntry == null) ||
+                    !referencedEntry.getSignatureHash().equals(previousReferencedEntry.getSignatureHash())) {
+                    return true;
+                }
+
+                referencedTypes.addAll(referencedEntry.getSuperTypes());
+            }
+        }
+
+        return false;
+    }
+
+    protected static Map<String, Set<String>> groupByTopLevelType(Collection<String> internalTypeNames) {
+        Map<String, Set<String>> classFilesByTopLevelType = new TreeMap<>();
+
+        for (String internalTypeName : internalTypeNames) {
+            if (internalTypeName.indexOf('$') == -1) {
+                classFilesByTopLevelType.put(internalTypeName, new TreeSet<>());
+            }
+        }
+
+        for (String internalTypeName : internalTypeNames) {
+            Set<String> classFiles = classFilesByTopLevelType.get(getTopLevelTypeName(internalTypeName));
+
+            if (classFiles != null) {
+                classFiles.add(internalTypeName);
+            }
+        }
+
+        return classFilesByTopLevelType;
+    }
+
+    protected static String getInternalPackageName(String internalTypeName) {
+        int index = internalTypeName.lastIndexOf('/');
+        return (index == -1) ? "" : internalTypeName.substring(0, index);
+    }
+
+    /**
+     * @return the hashes of the names of the top level types, by package
+     */
+    protected static Map<String, String> hashPackages(Set<String> topLevelTypeNames) {
+        Map<String, MessageDigest> digests = new TreeMap<>();
+
+        // 'topLevelTypeNames' is sorted
+        for (String internalTypeName : topLevelTypeNames) {
+            digests.computeIfAbsent(getInternalPackageName(internalTypeName), k -> newMessageDigest())
+                   .update((internalTypeName + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+
+        Map<String, String> hashes = new TreeMap<>();
+
+        for (Map.Entry<String, MessageDigest> entry : digests.entrySet()) {
+            hashes.put(entry.getKey(), toHex(entry.getValue().digest()));
+        }
+
+        return hashes;
+    }
+
+    protected static String getTopLevelTypeName(String internalTypeName) {
+        int index = internalTypeName.indexOf('$');
+        return (index == -1) ? internalTypeName : internalTypeName.substring(0, index);
+    }
+
+    protected static Entry createEntry(Loader loader, String internalTypeName, Set<String> classFiles, Map<String, Set<String>> classFilesByTopLevelType) throws IOException {
+        MessageDigest contentDigest = newMessageDigest();
+        MessageDigest signatureDigest = newMessageDigest();
+        Set<String> referencedTypes = new TreeSet<>();
+        Set<String> superTypes = new TreeSet<>();
+
+        for (String classFile : classFiles) {
+            byte[] data = loader.load(classFile);
+
+            if (data != null) {
+                // The bodies of the methods are not decoded
+                JavaClass javaClass = LazyClassParser.parse(data, classFile);
+
+                contentDigest.update(classFile.getBytes(StandardCharsets.UTF_8));
+                contentDigest.update(data);
+                signatureDigest.update(getSignature(javaClass).getBytes(StandardCharsets.UTF_8));
+                ReferencedTypeNames.addReferencedTypeNames(javaClass.getConstantPool(), referencedTypes);
+                superTypes.add(javaClass.getSuperclassName().replace('.', '/'));
+
+                for (String interfaceName : javaClass.getInterfaceNames()) {
+                    superTypes.add(interfaceName.replace('.', '/'));
+                }
+            }
+        }
+
+        return new Entry(
+            internalTypeName, toHex(contentDigest.digest()), toHex(signatureDigest.digest()),
+            getTopLevelTypeNames(internalTypeName, referencedTypes, classFilesByTopLevelType),
+            getTopLevelTypeNames(internalTypeName, superTypes, classFilesByTopLevelType));
+    }
+
+    /**
+     * @return the top level types of the archive, other than 'internalTypeName', declaring 'internalTypeNames'
+     */
+    protected static Set<String> getTopLevelTypeNames(String internalTypeName, Set<String> internalTypeNames, Map<String, Set<String>> classFilesByTopLevelType) {
+        Set<String> topLevelTypeNames = new TreeSet<>();
+
+        for (String name : internalTypeNames) {
+            String topLevelTypeName = getTopLevelTypeName(name);
+
+            if (!topLevelTypeName.equals(internalTypeName) && classFilesByTopLevelType.containsKey(topLevelTypeName)) {
+                topLevelTypeNames.add(topLevelTypeName);
+            }
+        }
+
+        return topLevelTypeNames;
+    }
+
+    /**
+     * @return the declarations of 'javaClass' visible from other types
+     */
+    protected static String getSignature(JavaClass javaClass) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(javaClass.getAccessFlags()).append(' ').append(javaClass.getClassName())
+          .append(' ').append(javaClass.getSuperclassName())
+          .append(' ').append(String.join(",", javaClass.getInterfaceNames()))
+          .append(' ').append(javaClass.getGenericSignature()).append('\n');
+
+        for (Field field : javaClass.getFields()) {
+            if ((field.getAccessFlags() & Const.ACC_PRIVATE) == 0) {
+                ConstantValue constantValue = field.getConstantValue();
+
+                sb.append(field.getAccessFlags()).append(' ').append(field.getName())
+                  .append(' ').append(field.getSignature())
+                  .append(' ').append(field.getGenericSignature())
+                  .append(' ').append(constantValue == null ? "" : constantValue.toString()).append('\n');
+            }
+        }
+
+        for (Method method : javaClass.getMethods()) {
+            if ((method.getAccessFlags() & Const.ACC_PRIVATE) == 0) {
+                ExceptionTable exceptionTable = method.getExceptionTable();
+
+                sb.append(method.getAccessFlags()).append(' ').append(method.getName())
+                  .append(' ').append(method.getSignature())
+                  .append(' ').append(method.getGenericSignature())
+                  .append(' ').append(exceptionTable == null ? "" : String.join(",", exceptionTable.getExceptionNames())).append('\n');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    protected static String hashConfiguration(Map<String, Object> configuration) {
+        MessageDigest digest = newMessageDigest();
+
+        if (configuration != null) {
+            for (Map.Entry<String, Object> entry : new TreeMap<>(configuration).entrySet()) {
+                Object value = entry.getValue();
+
+                // Shared objects, like the string pool, do not change the output
+                if ((value instanceof String) || (value instanceof Boolean) || (value instanceof Number)) {
+                    digest.update((entry.getKey() + '=' + value + '\n').getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    protected static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static String toHex(byte[] digest) {
+        char[] chars = new char[2 * HASH_LENGTH];
+
+        for (int i=0; i<HASH_LENGTH; i++) {
+            chars[2*i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+            chars[2*i+1] = HEX_DIGITS[digest[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Destination of the outputs of the top level types.
+     */
+    public interface Output {
+        Printer newPrinter(String internalTypeName);
+
+        /** 'internalTypeName' was decompiled into 'printer'. */
+        void decompiled(String internalTypeName, Printer printer) throws IOException;
+
+        /** 'internalTypeName' did not change: the previous output is kept. */
+        void unchanged(String internalTypeName) throws IOException;
+
+        /** 'internalTypeName' was removed from the archive. */
+        void removed(String internalTypeName) throws IOException;
+
+        void failed(String internalTypeName, Exception e);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.api.loader;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loader accepting several names at once, for stores where each lookup has a latency. The default
+ * methods call the synchronous methods of {@link Loader} one name at a time.<br>
+ * The decompiler sends hints with {@link #prefetch(Collection)}: the types are likely to be loaded
+ * soon.
+ */
+public interface AsyncLoader extends Loader {
+    /**
+     * @return the class files found, by internal name
+     */
+    default Map<String, byte[]> loadAll(Collection<String> internalNames) throws IOException {
+        Map<String, byte[]> map = new LinkedHashMap<>();
+
+        for (String internalName : internalNames) {
+            byte[] data = load(internalName);
+
+            if (data != null) {
+                map.put(internalName, data);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * @return a future of the class file, or of null if it is not found
+     */
+    default CompletableFuture<byte[]> loadAsync(String internalName) {
+        try {
+            return CompletableFuture.completedFuture(load(internalName));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<Map<String, byte[]>> loadAllAsync(Collection<String> internalNames) {
+        try {
+            return CompletableFuture.completedFuture(loadAll(internalNames));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Hint: start loading 'internalNames' without waiting. The default implementation ignores it.
+     */
+    default void prefetch(Collection<String> internalNames) {}
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.api.printer;
+
+import org.jd.core.v1.model.message.LineNumberTable;
+
+import java.util.List;
+
+/**
+ * Printer building a map of the byte code offsets to positions in the printed text.
+ */
+public interface SourceMapPrinter extends Printer {
+    /**
+     * Called after {@link #start(int, int, int)} with the line number tables of the methods of the
+     * decompiled type and of its inner types.
+     */
+    void lineNumberTables(List<LineNumberTable> lineNumberTables);
+
+    /**
+     * Called when the output reaches the code of the original line 'lineNumber': the next text
+     * printed is at its position.
+     */
+    void printLineNumber(int lineNumber);
+}
@@ -0,0 +1,52 @@
+package org.jd.core.v1.cfg;
+
+import org.apache.bcel.classfile.Method;
+import org.jd.core.v1.api.loader.Loader;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Methods of the types of a loader, by name and descriptor, indexed on first use.<br>
+ * The cached methods keep their class files alive: an index is kept by its caller for the time of a
+ * decompilation, then dropped or cleared. Not thread-safe.
+ */
+public class MethodIndex {
+    protected final Loader loader;
+    protected final Map<String, Map<String, Method>> indexes = new HashMap<>();
+
+    public MethodIndex(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param methodDescriptor null to return the first method named 'methodName'
+     */
+    public Method searchMethod(String internalTypeName, String methodName, String methodDescriptor) throws IOException {
+        Map<String, Method> index = indexes.get(internalTypeName);
+
+        if (index == null) {
+            index = MethodUtil.createIndex(loader, internalTypeName);
+
+            if (index == null) {
+                return null;
+            }
+
+            indexes.put(internalTypeName, index);
+        }
+
+        return MethodUtil.searchMethod(index, methodName, methodDescriptor);
+    }
+
+    /**
+     * @return the count of indexed types
+     */
+    public int size() {
+        return indexes.size();
+    }
+
+    public void clear() {
+        indexes.clear();
+    }
+}
@@ -2,78 +2,62 @@ package org.jd.core.v1.cfg;
 
 import org.apache.bcel.classfile.Method;
 import org.jd.core.v1.api.loader.Loader;
-import org.jd.core.v1.model.classfile.ClassFile;
-import org.jd.core.v1.model.javasyntax.CompilationUnit;
-import org.jd.core.v1.model.javasyntax.declaration.AnnotationDeclaration;
-import org.jd.core.v1.model.javasyntax.declaration.BaseTypeDeclaration;
-import org.jd.core.v1.model.javasyntax.declaration.BodyDeclaration;
-import org.jd.core.v1.model.javasyntax.declaration.EnumDeclaration;
-import org.jd.core.v1.model.javasyntax.declaration.InterfaceDeclaration;
-import org.jd.core.v1.model.message.DecompileContext;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileBodyDeclaration;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileConstructorDeclaration;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileConstructorOrMethodDeclaration;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileMethodDeclaration;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileStaticInitializerDeclaration;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.processor.ConvertClassFileProcessor;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
-import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
+import org.jd.core.v1.service.deserializer.classfile.LazyClassParser;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public final class MethodUtil {
 
     private MethodUtil() {
     }
 
+    /**
+     * @deprecated the type maker is not used, use {@link #searchMethod(Loader, String, String, String)}
+     */
+    @Deprecated
     public static Method searchMethod(Loader loader, TypeMaker typeMaker, String internalTypeName, String methodName, String methodDescriptor) throws IOException {
-        ClassFileDeserializer deserializer = new ClassFileDeserializer();
-        ConvertClassFileProcessor converter = new ConvertClassFileProcessor();
-        DecompileContext decompileContext = new DecompileContext();
-        decompileContext.setMainInternalTypeName(internalTypeName);
-        decompileContext.setLoader(loader);
-        decompileContext.setTypeMaker(typeMaker);
+        return searchMethod(loader, internalTypeName, methodName, methodDescriptor);
+    }
 
-        ClassFile classFile = deserializer.loadClassFile(loader, internalTypeName);
-        decompileContext.setClassFile(classFile);
+    /**
+     * Search a method without caching the class file: repeated lookups should use a {@link MethodIndex}.
+     *
+     * @param methodDescriptor null to return the first method named 'methodName'
+     */
+    public static Method searchMethod(Loader loader, String internalTypeName, String methodName, String methodDescriptor) throws IOException {
+        return searchMethod(createIndex(loader, internalTypeName), methodName, methodDescriptor);
+    }
 
-        CompilationUnit compilationUnit = converter.process(classFile, typeMaker, decompileContext);
+    static Method searchMethod(Map<String, Method> index, String methodName, String methodDescriptor) {
+        if (index == null) {
+            return null;
+        }
+
+        return index.get((methodDescriptor == null) ? methodName : methodName + methodDescriptor);
+    }
 
-        BaseTypeDeclaration typeDeclarations = compilationUnit.typeDeclarations();
-        BodyDeclaration bodyDeclaration = null;
+    /**
+     * @return the methods by name and descriptor, and the first method of each name by name, null if
+     *         the type is not found
+     */
+    static Map<String, Method> createIndex(Loader loader, String internalTypeName) throws IOException {
+        byte[] data = loader.load(internalTypeName);
 
-        if (typeDeclarations instanceof EnumDeclaration) { // to convert to jdk16 pattern matching only when spotbugs #1617 and eclipse #577987 are solved
-            EnumDeclaration ed = (EnumDeclaration) typeDeclarations;
-            bodyDeclaration = ed.getBodyDeclaration();
-        } else if (typeDeclarations instanceof AnnotationDeclaration) { // to convert to jdk16 pattern matching only when spotbugs #1617 and eclipse #577987 are solved
-            AnnotationDeclaration ad = (AnnotationDeclaration) typeDeclarations;
-            bodyDeclaration = ad.getBodyDeclaration();
-        } else if (typeDeclarations instanceof InterfaceDeclaration) { // to convert to jdk16 pattern matching only when spotbugs #1617 and eclipse #577987 are solved
-            InterfaceDeclaration id = (InterfaceDeclaration) typeDeclarations;
-            bodyDeclaration = id.getBodyDeclaration();
+        if (data == null) {
+            return null;
         }
 
-        if (bodyDeclaration != null) {
-            ClassFileBodyDeclaration cfbd = (ClassFileBodyDeclaration) bodyDeclaration;
+        Method[] methods = LazyClassParser.parse(data, internalTypeName).getMethods();
+        Map<String, Method> index = new HashMap<>(methods.length * 4);
 
-            for (ClassFileConstructorOrMethodDeclaration md : cfbd.getMethodDeclarations()) {
-                if (md instanceof ClassFileMethodDeclaration) { // to convert to jdk16 pattern matching only when spotbugs #1617 and eclipse #577987 are solved
-                    ClassFileMethodDeclaration cfmd = (ClassFileMethodDeclaration) md;
-                    if (cfmd.getName().equals(methodName) && ((methodDescriptor == null) || cfmd.getDescriptor().equals(methodDescriptor))) {
-                        return cfmd.getMethod();
-                    }
-                } else if (md instanceof ClassFileConstructorDeclaration) { // to convert to jdk16 pattern matching only when spotbugs #1617 and eclipse #577987 are solved
-                    ClassFileConstructorDeclaration cfcd = (ClassFileConstructorDeclaration) md;
-                    if (cfcd.getMethod().getName().equals(methodName) && ((methodDescriptor == null) || cfcd.getDescriptor().equals(methodDescriptor))) {
-                        return cfcd.getMethod();
-                    }
-                } else if (md instanceof ClassFileStaticInitializerDeclaration && ((ClassFileStaticInitializerDeclaration) md).getMethod().getName().equals(methodName)) {
-                    // to convert to jdk16 pattern matching only when spotbugs #1617 and eclipse #577987 are solved
-                    return ((ClassFileStaticInitializerDeclaration) md).getMethod();
-                }
-            }
+        for (Method method : methods) {
+            index.putIfAbsent(method.getName(), method);
+            index.put(method.getName() + method.getSignature(), method);
         }
 
-        return null;
+        return index;
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.daemon;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.util.StringConstants;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Thread-safe loader of the class files of a jar, a zip or a directory, kept open by the daemon.
+ */
+public class ArchiveLoader implements Loader, Closeable {
+    protected final File file;
+    protected final Path root;
+    protected final ZipFile zipFile;
+
+    public ArchiveLoader(File file) throws IOException {
+        this.file = file;
+        this.root = file.toPath().toAbsolutePath().normalize();
+        this.zipFile = file.isDirectory() ? null : new ZipFile(file);
+    }
+
+    @Override
+    public boolean canLoad(String internalName) {
+        if (zipFile == null) {
+            File classFile = newFile(internalName);
+            return (classFile != null) && classFile.isFile();
+        }
+        return zipFile.getEntry(internalName + StringConstants.CLASS_FILE_SUFFIX) != null;
+    }
+
+    @Override
+    public byte[] load(String internalName) throws IOException {
+        if (zipFile == null) {
+            File classFile = newFile(internalName);
+            return ((classFile != null) && classFile.isFile()) ? Files.readAllBytes(classFile.toPath()) : null;
+        }
+
+        ZipEntry entry = zipFile.getEntry(internalName + StringConstants.CLASS_FILE_SUFFIX);
+
+        if (entry == null) {
+            return null;
+        }
+
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            return is.readAllBytes();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (zipFile != null) {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * @return the class file of 'internalName' in the directory, null if 'internalName' contains '..' or
+     *         resolves outside the directory
+     */
+    protected File newFile(String internalName) {
+        if (internalName.contains("..")) {
+            return null;
+        }
+
+        try {
+            Path path = root.resolve(internalName.replace('/', File.separatorChar) + StringConstants.CLASS_FILE_SUFFIX).normalize();
+            return path.startsWith(root) ? path.toFile() : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.daemon;
+
+import org.jd.core.v1.ClassFileToJavaSourceDecompiler;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.model.message.StringPool;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Long-running decompiler answering JSON-RPC 2.0 requests, one per line, on the standard input or on
+ * a local socket. The archives stay open between the requests, with their type maker, their string
+ * pool and a cache of the decompiled sources; an archive is reopened when its file changes.<br>
+ * The requests of an archive are run one after the other by a thread of the archive, the type maker
+ * not being thread-safe, and identical pending requests share the same decompilation. The requests of
+ * different archives run in parallel.<br><br>
+ *
+ * Methods:
+ * <pre>
+ * decompile {"archive": path, "type": internal name, "configuration": {...}} -> {"source": text}
+ * health    -> {"status": "ok", "uptime": ms}
+ * metrics   -> counters of the requests and of the caches
+ * shutdown  -> stops the daemon after the pending requests
+ * </pre>
+ */
+public class DecompilerDaemon {
+    public static final int PARSE_ERROR = -32700;
+    public static final int INVALID_REQUEST = -32600;
+    public static final int METHOD_NOT_FOUND = -32601;
+    public static final int INVALID_PARAMS = -32602;
+    public static final int DECOMPILATION_ERROR = -32000;
+
+    protected static final String JSONRPC = "jsonrpc";
+    protected static final String VERSION = "2.0";
+
+    private final int maxArchiveCount;
+    private final int maxCachedSourceCount;
+    private final long startTime = System.currentTimeMillis();
+    private final Map<File, Archive> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService dispatcher = Executors.newCachedThreadPool(DecompilerDaemon::newDaemonThread);
+    private volatile boolean shutdown;
+    private volatile ServerSocket serverSocket;
+    private final Set<CountDownLatch> sessions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong decompilationCount = new AtomicLong();
+    private final AtomicLong decompilationNanos = new AtomicLong();
+    private final AtomicLong sourceCacheHitCount = new AtomicLong();
+    private final AtomicLong sharedRequestCount = new AtomicLong();
+    private final AtomicLong archiveOpenCount = new AtomicLong();
+
+    public DecompilerDaemon() {
+        this(16, 1024);
+    }
+
+    /**
+     * @param maxArchiveCount      count of archives kept open
+     * @param maxCachedSourceCount count of sources kept by archive
+     */
+    public DecompilerDaemon(int maxArchiveCount, int maxCachedSourceCount) {
+        this.maxArchiveCount = maxArchiveCount;
+        this.maxCachedSourceCount = maxCachedSourceCount;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Serves the requests read from 'in' until its end or a 'shutdown' request. The responses are
+     * written as soon as they are ready, not in the order of the requests.<br>
+     * The lines are read by a thread of their own: a 'shutdown' request stops the serve even if
+     * 'in' stays open, like the standard input of a daemon.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Set<CompletableFuture<Void>> responses = ConcurrentHashMap.newKeySet();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        CountDownLatch end = new CountDownLatch(1);
+
+        Thread readerThread = newDaemonThread(() -> {
+            try {
+                String line;
+
+                while (((line = reader.readLine()) != null) && !shutdown) {
+                    if (!line.isBlank()) {
+                        CompletableFuture<String> request = new CompletableFuture<>();
+                        CompletableFuture<Void> response = request.thenAccept(r -> write(writer, r));
+
+                        // Registered before the dispatch: the response to 'shutdown' is written too
+                        responses.add(response);
+                        response.whenComplete((r, t) -> responses.remove(response));
+                        handleAsync(line).whenComplete((r, t) -> request.complete(r));
+                    }
+                }
+            } catch (IOException e) {
+                failure.set(e);
+            } finally {
+                end.countDown();
+            }
+        });
+
+        sessions.add(end);
+
+        if (shutdown) {
+            end.countDown();
+        }
+
+        readerThread.start();
+
+        try {
+            end.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sessions.remove(end);
+        }
+
+        // Write the pending responses before returning
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+
+        if ((failure.get() != null) && !shutdown) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Serves the connections of 'serverSocket' until a 'shutdown' request.
+     */
+    public void serve(ServerSocket serverSocket) throws IOException {
+        this.serverSocket = serverSocket;
+
+        try {
+            while (!shutdown) {
+                Socket socket = serverSocket.accept();
+
+                dispatcher.execute(() -> {
+                    try (socket) {
+                        serve(socket.getInputStream(), socket.getOutputStream());
+                    } catch (IOException ignore) {
+                        // Connection closed by the client
+                    }
+                });
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            // The socket is closed by 'shutdown'
+            if (!shutdown) {
+                throw e;
+            }
+        }
+    }
+
+    public CompletableFuture<String> handleAsync(String request) {
+        try {
+            return CompletableFuture.supplyAsync(() -> handle(request), dispatcher);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(error(null, DECOMPILATION_ERROR, "Daemon stopped"));
+        }
+    }
+
+    /**
+     * @return the JSON-RPC response to 'request', null for a notification
+     */
+    public String handle(String request) {
+        requestCount.incrementAndGet();
+
+        Object id = null;
+
+        try {
+            Object message;
+
+            try {
+                message = Json.parse(request);
+            } catch (IllegalArgumentException e) {
+                return error(null, PARSE_ERROR, e.getMessage());
+            }
+
+            if (!(message instanceof Map<?, ?> map) || !(map.get("method") instanceof String method)) {
+                return error(null, INVALID_REQUEST, "Invalid request");
+            }
+
+            id = map.get("id");
+
+            Object params = map.get("params");
+            Object result = switch (method) {
+                case "decompile" -> decompile(params);
+                case "health" -> health();
+                case "metrics" -> metrics();
+                case "shutdown" -> {
+                    shutdown();
+                    yield "ok";
+                }
+                default -> throw new RpcException(METHOD_NOT_FOUND, "Method not found: " + method);
+            };
+
+            if (!map.containsKey("id")) {
+                return null;
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put(JSONRPC, VERSION);
+            response.put("id", id);
+            response.put("result", result);
+            return Json.toString(response);
+        } catch (RpcException e) {
+            return error(id, e.code, e.getMessage());
+        } catch (Exception e) {
+            return error(id, DECOMPILATION_ERROR, String.valueOf(e));
+        }
+    }
+
+    protected Map<String, Object> decompile(Object params) throws IOException {
+        if (!(params instanceof Map<?, ?> map) || !(map.get("archive") instanceof String path) || !(map.get("type") instanceof String internalTypeName)) {
+            throw new RpcException(INVALID_PARAMS, "'archive' and 'type' expected");
+        }
+
+        Map<String, Object> configuration = new TreeMap<>();
+
+        if (map.get("configuration") instanceof Map<?, ?> parameters) {
+            for (Map.Entry<?, ?> entry : parameters.entrySet()) {
+                configuration.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+
+        File file = new File(path).getCanonicalFile();
+
+        if (!file.exists()) {
+            throw new RpcException(INVALID_PARAMS, "Archive not found: " + path);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("source", decompile(file, internalTypeName.replace('.', '/'), configuration));
+        return result;
+    }
+
+    protected String decompile(File file, String internalTypeName, Map<String, Object> configuration) throws IOException {
+        while (true) {
+            try {
+                return getArchive(file).decompile(internalTypeName, configuration);
+            } catch (RejectedExecutionException e) {
+                // Archive evicted and closed by another request after 'getArchive': reopen it
+            }
+        }
+    }
+
+    protected Map<String, Object> health() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", shutdown ? "shutdown" : "ok");
+        result.put("uptime", System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    protected Map<String, Object> metrics() {
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        result.put("requests", requestCount.get());
+        result.put("errors", errorCount.get());
+        result.put("decompilations", decompilationCount.get());
+        result.put("decompilationMillis", decompilationNanos.get() / 1_000_000);
+        result.put("sourceCacheHits", sourceCacheHitCount.get());
+        result.put("sharedRequests", sharedRequestCount.get());
+        result.put("archiveOpenings", archiveOpenCount.get());
+        synchronized (archives) {
+            result.put("openArchives", archives.size());
+        }
+        result.put("usedMemory", runtime.totalMemory() - runtime.freeMemory());
+        return result;
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        dispatcher.shutdown();
+
+        for (CountDownLatch session : sessions) {
+            session.countDown();
+        }
+
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException ignore) {
+                // Already closed
+            }
+        }
+
+        synchronized (archives) {
+            for (Archive archive : archives.values()) {
+                archive.close();
+            }
+            archives.clear();
+        }
+    }
+
+    protected Archive getArchive(File file) throws IOException {
+        synchronized (archives) {
+            if (shutdown) {
+                throw new RpcException(DECOMPILATION_ERROR, "Daemon stopped");
+            }
+
+            Archive archive = archives.get(file);
+
+            if ((archive != null) && archive.isStale()) {
+                // Reopen an updated archive
+                archives.remove(file);
+                archive.close();
+                archive = null;
+            }
+
+            if (archive == null) {
+                archive = new Archive(file);
+                archives.put(file, archive);
+                archiveOpenCount.incrementAndGet();
+
+                if (archives.size() > maxArchiveCount) {
+                    Iterator<Archive> iterator = archives.values().iterator();
+                    iterator.next().close();
+                    iterator.remove();
+                }
+            }
+
+            return archive;
+        }
+    }
+
+    protected void write(Writer writer, String response) {
+        if (response != null) {
+            synchronized (writer) {
+                try {
+                    writer.write(response);
+                    writer.write('\n');
+                    writer.flush();
+                } catch (IOException ignore) {
+                    // Client gone
+                }
+            }
+        }
+    }
+
+    protected String error(Object id, int code, String message) {
+        errorCount.incrementAndGet();
+
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", message);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put(JSONRPC, VERSION);
+        response.put("id", id);
+        response.put("error", error);
+        return Json.toString(response);
+    }
+
+    protected static Thread newDaemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "jd-core-daemon");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Open archive, with the caches of its decompilations.
+     */
+    protected class Archive {
+        protected final File file;
+        protected final long lastModified;
+        protected final long length;
+        protected final ArchiveLoader loader;
+        protected final TypeMaker typeMaker;
+        protected final StringPool stringPool = new StringPool();
+        protected final WarmDecompiler decompiler = new WarmDecompiler();
+        protected final ExecutorService executor = Executors.newSingleThreadExecutor(DecompilerDaemon::newDaemonThread);
+        protected final ConcurrentHashMap<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        protected final Map<String, String> sources = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxCachedSourceCount;
+            }
+        };
+
+        public Archive(File file) throws IOException {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.loader = new ArchiveLoader(file);
+            this.typeMaker = new TypeMaker(loader);
+        }
+
+        public boolean isStale() {
+            return (file.lastModified() != lastModified) || (file.length() != length);
+        }
+
+        public String decompile(String internalTypeName, Map<String, Object> configuration) throws IOException {
+            String key = internalTypeName + ' ' + Json.toString(configuration);
+
+            synchronized (sources) {
+                String source = sources.get(key);
+
+                if (source != null) {
+                    sourceCacheHitCount.incrementAndGet();
+                    return source;
+                }
+            }
+
+            CompletableFuture<String> future = new CompletableFuture<>();
+            CompletableFuture<String> sharedFuture = pending.putIfAbsent(key, future);
+
+            if (sharedFuture == null) {
+                CompletableFuture<String> newFuture = future;
+
+                try {
+                    executor.execute(() -> run(key, internalTypeName, configuration, newFuture));
+                } catch (RejectedExecutionException e) {
+                    // Archive closed meanwhile, the requests sharing 'newFuture' are retried too
+                    pending.remove(key, newFuture);
+                    newFuture.completeExceptionally(e);
+                    throw e;
+                }
+            } else {
+                sharedRequestCount.incrementAndGet();
+                future = sharedFuture;
+            }
+
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RejectedExecutionException rejectedExecutionException) {
+                    throw rejectedExecutionException;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        protected void run(String key, String internalTypeName, Map<String, Object> configuration, CompletableFuture<String> future) {
+            try {
+                Map<String, Object> decompilerConfiguration = new TreeMap<>(configuration);
+                PlainTextPrinter printer = new PlainTextPrinter();
+                long time0 = System.nanoTime();
+
+                decompilerConfiguration.put(ClassFileToJavaSourceDecompiler.STRING_POOL, stringPool);
+                decompiler.decompile(loader, typeMaker, printer, internalTypeName, decompilerConfiguration);
+                decompilationNanos.addAndGet(System.nanoTime() - time0);
+                decompilationCount.incrementAndGet();
+
+                String source = printer.toString();
+
+                synchronized (sources) {
+                    sources.put(key, source);
+                }
+
+                future.complete(source);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                pending.remove(key, future);
+            }
+        }
+
+        /**
+         * Closes the archive after its pending requests.
+         */
+        public void close() {
+            executor.execute(() -> {
+                try {
+                    loader.close();
+                } catch (IOException ignore) {
+                    // Closed anyway
+                }
+            });
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Decompiler reusing the type maker of an archive.
+     */
+    protected static class WarmDecompiler extends ClassFileToJavaSourceDecompiler {
+        public DecompileContext decompile(Loader loader, TypeMaker typeMaker, Printer printer, String internalName, Map<String, Object> configuration) throws IOException {
+            DecompileContext decompileContext = new DecompileContext();
+
+            decompileContext.setMainInternalTypeName(internalName);
+            decompileContext.setConfiguration(configuration);
+            decompileContext.setLoader(loader);
+            decompileContext.setPrinter(printer);
+            decompileContext.setTypeMaker(typeMaker);
+            decompileContext.setStringPool((StringPool)configuration.get(STRING_POOL));
+
+            decompile(decompileContext);
+            return decompileContext;
+        }
+    }
+
+    protected static class RpcException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        protected final int code;
+
+        public RpcException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    /**
+     * Usage: DecompilerDaemon [port]. Without port, the requests are read from the standard input.
+     */
+    public static void main(String[] args) throws IOException {
+        DecompilerDaemon daemon = new DecompilerDaemon();
+
+        if (args.length == 0) {
+            daemon.serve(System.in, System.out);
+        } else {
+            try (ServerSocket serverSocket = new ServerSocket(Integer.parseInt(args[0]), 50, InetAddress.getLoopbackAddress())) {
+                daemon.serve(serverSocket);
+            }
+        }
+
+        daemon.shutdown();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.daemon;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and writer of the daemon messages: objects are read as {@link Map}s, arrays as
+ * {@link List}s, numbers as {@link Long}s or {@link Double}s.
+ */
+public final class Json {
+    /** Maximum nesting depth of the objects and arrays, deeper messages are rejected as malformed. */
+    public static final int MAX_DEPTH = 256;
+
+    private final String text;
+    private int index;
+    private int depth;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.readValue();
+
+        json.skipWhitespaces();
+
+        if (json.index != text.length()) {
+            throw json.error("Unexpected character");
+        }
+
+        return value;
+    }
+
+    public static String toString(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, value);
+        return sb.toString();
+    }
+
+    public static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String s) {
+            writeString(sb, s);
+        } else if ((value instanceof Number) || (value instanceof Boolean)) {
+            sb.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            boolean first = true;
+
+            sb.append('{');
+
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (first) {
+                    first = false;
+                } else {
+                    sb.append(',');
+                }
+                writeString(sb, String.valueOf(entry.getKey()));
+                sb.append(':');
+                write(sb, entry.getValue());
+            }
+
+            sb.append('}');
+        } else if (value instanceof List<?> list) {
+            sb.append('[');
+
+            for (int i=0; i<list.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                write(sb, list.get(i));
+            }
+
+            sb.append(']');
+        } else {
+            writeString(sb, value.toString());
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String s) {
+        sb.append('"');
+
+        for (int i=0, length=s.length(); i<length; i++) {
+            char c = s.charAt(i);
+
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int)c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        sb.append('"');
+    }
+
+    private Object readValue() {
+        skipWhitespaces();
+
+        if (index >= text.length()) {
+            throw error("Unexpected end");
+        }
+
+        char c = text.charAt(index);
+
+        switch (c) {
+            case '{':
+                enter();
+                Map<String, Object> map = readObject();
+                depth--;
+                return map;
+            case '[':
+                enter();
+                List<Object> list = readArray();
+                depth--;
+                return list;
+            case '"': return readString();
+            case 't': return readKeyword("true", Boolean.TRUE);
+            case 'f': return readKeyword("false", Boolean.FALSE);
+            case 'n': return readKeyword("null", null);
+            default:
+                if ((c == '-') || ((c >= '0') && (c <= '9'))) {
+                    return readNumber();
+                }
+                throw error("Unexpected character");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> map = new LinkedHashMap<>();
+
+        index++;
+        skipWhitespaces();
+
+        if (peek() == '}') {
+            index++;
+            return map;
+        }
+
+        while (true) {
+            skipWhitespaces();
+
+            if (peek() != '"') {
+                throw error("Name expected");
+            }
+
+            String name = readString();
+
+            skipWhitespaces();
+            expect(':');
+            map.put(name, readValue());
+            skipWhitespaces();
+
+            if (peek() == ',') {
+                index++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> list = new ArrayList<>();
+
+        index++;
+        skipWhitespaces();
+
+        if (peek() == ']') {
+            index++;
+            return list;
+        }
+
+        while (true) {
+            list.add(readValue());
+            skipWhitespaces();
+
+            if (peek() == ',') {
+                index++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String readString() {
+        StringBuilder sb = new StringBuilder();
+
+        index++;
+
+        while (true) {
+            if (index >= text.length()) {
+                throw error("Unterminated string");
+            }
+
+            char c = text.charAt(index++);
+
+            if (c == '"') {
+                return sb.toString();
+            }
+
+            if (c == '\\') {
+                if (index >= text.length()) {
+                    throw error("Unterminated string");
+                }
+
+                c = text.charAt(index++);
+
+                switch (c) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (index + 4 > text.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        try {
+                            sb.append((char)Integer.parseInt(text.substring(index, index + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        index += 4;
+                        break;
+                    default: sb.append(c);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private Object readKeyword(String keyword, Object value) {
+        if (!text.startsWith(keyword, index)) {
+            throw error("Unexpected character");
+        }
+        index += keyword.length();
+        return value;
+    }
+
+    private Number readNumber() {
+        int start = index;
+        boolean decimal = false;
+
+        while (index < text.length()) {
+            char c = text.charAt(index);
+
+            if ((c == '.') || (c == 'e') || (c == 'E')) {
+                decimal = true;
+            } else if (((c < '0') || (c > '9')) && (c != '-') && (c != '+')) {
+                break;
+            }
+
+            index++;
+        }
+
+        try {
+            String number = text.substring(start, index);
+            return decimal ? (Number)Double.valueOf(number) : (Number)Long.valueOf(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Nesting too deep");
+        }
+    }
+
+    private void skipWhitespaces() {
+        while ((index < text.length()) && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+    }
+
+    private char peek() {
+        if (index >= text.length()) {
+            throw error("Unexpected end");
+        }
+        return text.charAt(index);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("'" + c + "' expected");
+        }
+        index++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + index);
+    }
+}
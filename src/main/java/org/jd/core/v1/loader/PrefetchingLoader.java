@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.loader;
+
+import org.jd.core.v1.api.loader.AsyncLoader;
+import org.jd.core.v1.api.loader.Loader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AsyncLoader} running the loads of a synchronous loader on an executor, and keeping the
+ * results, found or not. Concurrent requests of a type share the same load; failed loads are retried.<br>
+ * No lock is held during a load, and callers wait on futures: on Java 21, an executor of virtual
+ * threads, like <code>Executors.newVirtualThreadPerTaskExecutor()</code>, runs one load per type
+ * without pinning carrier threads.
+ */
+public class PrefetchingLoader implements AsyncLoader {
+    protected final Loader loader;
+    protected final Executor executor;
+    protected final ConcurrentHashMap<String, CompletableFuture<byte[]>> futures = new ConcurrentHashMap<>();
+
+    public PrefetchingLoader(Loader loader, Executor executor) {
+        this.loader = loader;
+        this.executor = executor;
+    }
+
+    /**
+     * Loads 'internalName' once: on a remote store, a lookup costs as much as a load.
+     */
+    @Override
+    public boolean canLoad(String internalName) {
+        try {
+            return load(internalName) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public byte[] load(String internalName) throws IOException {
+        return get(loadAsync(internalName));
+    }
+
+    @Override
+    public Map<String, byte[]> loadAll(Collection<String> internalNames) throws IOException {
+        prefetch(internalNames);
+
+        Map<String, byte[]> map = new LinkedHashMap<>();
+
+        for (String internalName : internalNames) {
+            byte[] data = load(internalName);
+
+            if (data != null) {
+                map.put(internalName, data);
+            }
+        }
+
+        return map;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> loadAsync(String internalName) {
+        CompletableFuture<byte[]> future = futures.get(internalName);
+
+        if (future == null) {
+            CompletableFuture<byte[]> newFuture = new CompletableFuture<>();
+
+            future = futures.putIfAbsent(internalName, newFuture);
+
+            if (future == null) {
+                // Load outside of the map locks
+                future = newFuture;
+
+                try {
+                    executor.execute(() -> complete(internalName, newFuture));
+                } catch (RejectedExecutionException e) {
+                    // Not cached: a later call retries
+                    futures.remove(internalName, newFuture);
+                    newFuture.completeExceptionally(e);
+                }
+            }
+        }
+
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, byte[]>> loadAllAsync(Collection<String> internalNames) {
+        Map<String, CompletableFuture<byte[]>> map = new LinkedHashMap<>();
+
+        for (String internalName : internalNames) {
+            map.put(internalName, loadAsync(internalName));
+        }
+
+        return CompletableFuture.allOf(map.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String, byte[]> result = new LinkedHashMap<>();
+
+            for (Map.Entry<String, CompletableFuture<byte[]>> entry : map.entrySet()) {
+                byte[] data = entry.getValue().join();
+
+                if (data != null) {
+                    result.put(entry.getKey(), data);
+                }
+            }
+
+            return result;
+        });
+    }
+
+    @Override
+    public void prefetch(Collection<String> internalNames) {
+        for (String internalName : internalNames) {
+            loadAsync(internalName);
+        }
+    }
+
+    /**
+     * Releases the loaded class files.
+     */
+    public void clear() {
+        futures.clear();
+    }
+
+    protected void complete(String internalName, CompletableFuture<byte[]> future) {
+        try {
+            future.complete(loader.load(internalName));
+        } catch (Throwable t) {
+            futures.remove(internalName, future);
+            future.completeExceptionally(t);
+        }
+    }
+
+    protected static byte[] get(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
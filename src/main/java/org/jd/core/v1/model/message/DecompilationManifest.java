@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.model.message;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Hashes of the classes of an archive from a previous decompilation, used to re-decompile only the
+ * classes that changed.<br><br>
+ *
+ * Text format:
+ * <pre>
+ * configuration &lt;configuration hash&gt;
+ * package &lt;internal package name, '-' for the default package&gt; &lt;type names hash&gt;
+ * &lt;internal type name&gt; &lt;content hash&gt; &lt;signature hash&gt; &lt;referenced type&gt;,... &lt;super type&gt;,...
+ * </pre>
+ */
+public class DecompilationManifest {
+    protected static final String CONFIGURATION = "configuration";
+    protected static final String PACKAGE = "package";
+    protected static final String NONE = "-";
+
+    private String configurationHash;
+    private final Map<String, String> packageHashes = new TreeMap<>();
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    public String getConfigurationHash() { return configurationHash; }
+    public void setConfigurationHash(String configurationHash) { this.configurationHash = configurationHash; }
+
+    /**
+     * @return the hash of the names of the top level types of 'internalPackageName'
+     */
+    public String getPackageHash(String internalPackageName) {
+        return packageHashes.get(internalPackageName);
+    }
+
+    public void putPackageHash(String internalPackageName, String hash) {
+        packageHashes.put(internalPackageName, hash);
+    }
+
+    public Entry getEntry(String internalTypeName) {
+        return entries.get(internalTypeName);
+    }
+
+    public Set<String> getInternalTypeNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public void put(Entry entry) {
+        entries.put(entry.internalTypeName, entry);
+    }
+
+    public void remove(String internalTypeName) {
+        entries.remove(internalTypeName);
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write(CONFIGURATION);
+        writer.write(' ');
+        writer.write(configurationHash == null ? NONE : configurationHash);
+        writer.write('\n');
+
+        for (Map.Entry<String, String> entry : packageHashes.entrySet()) {
+            writer.write(PACKAGE);
+            writer.write(' ');
+            writer.write(entry.getKey().isEmpty() ? NONE : entry.getKey());
+            writer.write(' ');
+            writer.write(entry.getValue());
+            writer.write('\n');
+        }
+
+        for (Entry entry : entries.values()) {
+            writer.write(entry.internalTypeName);
+            writer.write(' ');
+            writer.write(entry.contentHash);
+            writer.write(' ');
+            writer.write(entry.signatureHash);
+            writer.write(' ');
+            writer.write(toField(entry.referencedTypes));
+            writer.write(' ');
+            writer.write(toField(entry.superTypes));
+            writer.write('\n');
+        }
+
+        writer.flush();
+    }
+
+    public static DecompilationManifest read(Reader reader) throws IOException {
+        DecompilationManifest manifest = new DecompilationManifest();
+        BufferedReader br = (reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader);
+        String line;
+
+        while ((line = br.readLine()) != null) {
+            if (!line.isEmpty()) {
+                String[] fields = line.split(" ");
+
+                if (CONFIGURATION.equals(fields[0])) {
+                    manifest.configurationHash = NONE.equals(fields[1]) ? null : fields[1];
+                } else if (PACKAGE.equals(fields[0])) {
+                    manifest.packageHashes.put(NONE.equals(fields[1]) ? "" : fields[1], fields[2]);
+                } else {
+                    Set<String> superTypes = (fields.length > 4) ? toSet(fields[4]) : Collections.emptySet();
+                    manifest.put(new Entry(fields[0], fields[1], fields[2], toSet(fields[3]), superTypes));
+                }
+            }
+        }
+
+        return manifest;
+    }
+
+    protected static String toField(Set<String> internalTypeNames) {
+        return internalTypeNames.isEmpty() ? NONE : String.join(",", internalTypeNames);
+    }
+
+    protected static Set<String> toSet(String field) {
+        return NONE.equals(field) ? Collections.emptySet() : new TreeSet<>(Arrays.asList(field.split(",")));
+    }
+
+    /**
+     * Hashes of a top level type and of its inner types.
+     */
+    public static class Entry {
+        private final String internalTypeName;
+        private final String contentHash;
+        private final String signatureHash;
+        private final Set<String> referencedTypes;
+        private final Set<String> superTypes;
+
+        /**
+         * @param contentHash     hash of the class files
+         * @param signatureHash   hash of the declarations visible from other types: flags, super types,
+         *                        field and method signatures
+         * @param referencedTypes top level types of the archive referenced by the class files
+         * @param superTypes      top level types of the archive extended or implemented by the class files
+         */
+        public Entry(String internalTypeName, String contentHash, String signatureHash, Set<String> referencedTypes, Set<String> superTypes) {
+            this.internalTypeName = internalTypeName;
+            this.contentHash = contentHash;
+            this.signatureHash = signatureHash;
+            this.referencedTypes = referencedTypes;
+            this.superTypes = superTypes;
+        }
+
+        public String getInternalTypeName() { return internalTypeName; }
+        public String getContentHash() { return contentHash; }
+        public String getSignatureHash() { return signatureHash; }
+        public Set<String> getReferencedTypes() { return referencedTypes; }
+        public Set<String> getSuperTypes() { return superTypes; }
+    }
+}
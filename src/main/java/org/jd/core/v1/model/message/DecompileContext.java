@@ -12,11 +12,13 @@ import org.jd.core.v1.api.printer.Printer;
 import org.jd.core.v1.model.classfile.ClassFile;
 import org.jd.core.v1.model.fragment.Fragment;
 import org.jd.core.v1.model.javasyntax.CompilationUnit;
+import org.jd.core.v1.model.token.PackedTokens;
 import org.jd.core.v1.model.token.Token;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 import org.jd.core.v1.util.DefaultList;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DecompileContext {
@@ -26,6 +28,7 @@ public class DecompileContext {
     private Printer printer;
 
     private TypeMaker typeMaker;
+    private StringPool stringPool;
     private int majorVersion;
     private int minorVersion;
     private int maxLineNumber = Printer.UNKNOWN_LINE_NUMBER;
@@ -33,6 +36,8 @@ public class DecompileContext {
     private ClassFile classFile;
     private CompilationUnit compilationUnit;
     private DefaultList<Token> tokens;
+    private PackedTokens packedTokens;
+    private List<LineNumberTable> lineNumberTables;
 
     private Object body;
 
@@ -91,6 +96,21 @@ public class DecompileContext {
         this.typeMaker = typeMaker;
     }
 
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * @return the pooled instance of 's' if a {@link StringPool} is set, 's' otherwise
+     */
+    public String intern(String s) {
+        return stringPool == null ? s : stringPool.intern(s);
+    }
+
     public int getMajorVersion() {
         return majorVersion;
     }
@@ -138,4 +158,20 @@ public class DecompileContext {
     public void setTokens(DefaultList<Token> tokens) {
         this.tokens = tokens;
     }
+
+    public PackedTokens getPackedTokens() {
+        return packedTokens;
+    }
+
+    public void setPackedTokens(PackedTokens packedTokens) {
+        this.packedTokens = packedTokens;
+    }
+
+    public List<LineNumberTable> getLineNumberTables() {
+        return lineNumberTables;
+    }
+
+    public void setLineNumberTables(List<LineNumberTable> lineNumberTables) {
+        this.lineNumberTables = lineNumberTables;
+    }
 }
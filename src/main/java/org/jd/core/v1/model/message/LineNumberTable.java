@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.model.message;
+
+/**
+ * Line number table of a method, captured during the decompilation for the
+ * {@link org.jd.core.v1.api.printer.SourceMapPrinter}s: entry i maps the byte code starting at
+ * startOffsets[i] to the original line lineNumbers[i]. Entries are sorted by start offset.
+ */
+public record LineNumberTable(String internalTypeName, String name, String descriptor, int codeLength, int[] startOffsets, int[] lineNumbers) {
+}
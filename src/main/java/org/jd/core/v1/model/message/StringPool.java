@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.model.message;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Interning pool of names and descriptors, shared by the classes of a batch.<br>
+ * Entries are weak: a string is released as soon as no decompilation result uses it. The pool is
+ * split in stripes locked independently, so it can be shared by concurrent decompilations.
+ */
+public class StringPool {
+    private static final int STRIPE_COUNT = 16;
+
+    private final Map<String, WeakReference<String>>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public StringPool() {
+        stripes = new Map[STRIPE_COUNT];
+
+        for (int i=0; i<STRIPE_COUNT; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * @return the pooled instance equal to 's'
+     */
+    public String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+
+        int hash = s.hashCode();
+        Map<String, WeakReference<String>> stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(s);
+            String pooled = (reference == null) ? null : reference.get();
+
+            if (pooled == null) {
+                stripe.put(s, new WeakReference<>(s));
+                pooled = s;
+            }
+
+            return pooled;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.model.token;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Stream of tokens encoded as ints: each token is an opcode followed by {@link #WIDTH}-1 operands.
+ * Texts, names and descriptors are stored once in a string table and referenced by id. The table is an
+ * open addressing hash table of string ids: no object is allocated per token or per id.<br><br>
+ *
+ * Operands:
+ * <pre>
+ * BOOLEAN_CONSTANT   value (0 or 1)
+ * CHARACTER_CONSTANT character, owner internal name
+ * DECLARATION        type, internal type name, name, descriptor
+ * REFERENCE          type, internal type name, name, descriptor, owner internal name
+ * START_BLOCK        text, 1 for a resources block
+ * END_BLOCK          text, 1 for a resources block
+ * START_MARKER       type
+ * END_MARKER         type
+ * KEYWORD            keyword
+ * LINE_NUMBER        line number
+ * NEW_LINE           count
+ * NUMERIC_CONSTANT   text
+ * STRING_CONSTANT    text, owner internal name
+ * TEXT               text
+ * </pre>
+ */
+public class PackedTokens {
+    public static final int NULL_ID = -1;
+
+    public static final int BOOLEAN_CONSTANT = 1;
+    public static final int CHARACTER_CONSTANT = 2;
+    public static final int DECLARATION = 3;
+    public static final int REFERENCE = 4;
+    public static final int START_BLOCK = 5;
+    public static final int END_BLOCK = 6;
+    public static final int START_MARKER = 7;
+    public static final int END_MARKER = 8;
+    public static final int KEYWORD = 9;
+    public static final int LINE_NUMBER = 10;
+    public static final int NEW_LINE = 11;
+    public static final int NUMERIC_CONSTANT = 12;
+    public static final int STRING_CONSTANT = 13;
+    public static final int TEXT = 14;
+
+    public static final int WIDTH = 6;
+
+    private final Encoder encoder = new Encoder();
+    // Open addressing table: ids of the strings, NULL_ID for free slots
+    private int[] slots = newSlots(64);
+    private String[] strings = new String[32];
+    private int stringCount;
+    private int[] codes;
+    private int size;
+
+    public PackedTokens() {
+        this(64);
+    }
+
+    public PackedTokens(int initialCapacity) {
+        this.codes = new int[WIDTH * Math.max(initialCapacity, 16)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getOpcode(int index) {
+        return codes[WIDTH * index];
+    }
+
+    /**
+     * @param operand index of the operand, from 1 to {@link #WIDTH}-1
+     */
+    public int getOperand(int index, int operand) {
+        return codes[WIDTH * index + operand];
+    }
+
+    /**
+     * @param operand index of an operand containing a string id
+     */
+    public String getString(int index, int operand) {
+        int id = codes[WIDTH * index + operand];
+        return id == NULL_ID ? null : strings[id];
+    }
+
+    public int getStringCount() {
+        return stringCount;
+    }
+
+    public void add(Token token) {
+        token.accept(encoder);
+    }
+
+    public void addAll(Collection<? extends Token> tokens) {
+        for (Token token : tokens) {
+            token.accept(encoder);
+        }
+    }
+
+    public void addNewLine(int count) {
+        append(NEW_LINE, count, 0, 0, 0, 0);
+    }
+
+    public void addReference(int type, String internalTypeName, String name, String descriptor, String ownerInternalName) {
+        append(REFERENCE, type, id(internalTypeName), id(name), id(descriptor), id(ownerInternalName));
+    }
+
+    protected void append(int opcode, int operand1, int operand2, int operand3, int operand4, int operand5) {
+        int offset = WIDTH * size;
+
+        if (offset + WIDTH > codes.length) {
+            codes = Arrays.copyOf(codes, codes.length * 2);
+        }
+
+        codes[offset] = opcode;
+        codes[offset+1] = operand1;
+        codes[offset+2] = operand2;
+        codes[offset+3] = operand3;
+        codes[offset+4] = operand4;
+        codes[offset+5] = operand5;
+        size++;
+    }
+
+    protected int id(String s) {
+        if (s == null) {
+            return NULL_ID;
+        }
+
+        int mask = slots.length - 1;
+        int slot = hash(s) & mask;
+
+        for (int id = slots[slot]; id != NULL_ID; id = slots[slot]) {
+            if (s.equals(strings[id])) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = stringCount++;
+
+        if (id == strings.length) {
+            strings = Arrays.copyOf(strings, id * 2);
+        }
+
+        strings[id] = s;
+        slots[slot] = id;
+
+        if (stringCount * 2 > slots.length) {
+            rehash();
+        }
+
+        return id;
+    }
+
+    protected void rehash() {
+        int[] newSlots = newSlots(slots.length * 2);
+        int mask = newSlots.length - 1;
+
+        for (int id=0; id<stringCount; id++) {
+            int slot = hash(strings[id]) & mask;
+
+            while (newSlots[slot] != NULL_ID) {
+                slot = (slot + 1) & mask;
+            }
+
+            newSlots[slot] = id;
+        }
+
+        slots = newSlots;
+    }
+
+    protected static int hash(String s) {
+        int h = s.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    protected static int[] newSlots(int length) {
+        int[] slots = new int[length];
+        Arrays.fill(slots, NULL_ID);
+        return slots;
+    }
+
+    protected class Encoder implements TokenVisitor {
+        @Override
+        public void visit(BooleanConstantToken token) {
+            append(BOOLEAN_CONSTANT, token.value() ? 1 : 0, 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(CharacterConstantToken token) {
+            append(CHARACTER_CONSTANT, id(token.getCharacter()), id(token.getOwnerInternalName()), 0, 0, 0);
+        }
+
+        @Override
+        public void visit(DeclarationToken token) {
+            append(DECLARATION, token.getType(), id(token.getInternalTypeName()), id(token.getName()), id(token.getDescriptor()), 0);
+        }
+
+        @Override
+        public void visit(EndBlockToken token) {
+            append(END_BLOCK, id(token.text()), token == EndBlockToken.END_RESOURCES_BLOCK ? 1 : 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(EndMarkerToken token) {
+            append(END_MARKER, token.type(), 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(KeywordToken token) {
+            append(KEYWORD, id(token.keyword()), 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(LineNumberToken token) {
+            append(LINE_NUMBER, token.lineNumber(), 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(NewLineToken token) {
+            append(NEW_LINE, token.count(), 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(NumericConstantToken token) {
+            append(NUMERIC_CONSTANT, id(token.text()), 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(ReferenceToken token) {
+            addReference(token.getType(), token.getInternalTypeName(), token.getName(), token.getDescriptor(), token.getOwnerInternalName());
+        }
+
+        @Override
+        public void visit(StartBlockToken token) {
+            append(START_BLOCK, id(token.text()), token == StartBlockToken.START_RESOURCES_BLOCK ? 1 : 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(StartMarkerToken token) {
+            append(START_MARKER, token.type(), 0, 0, 0, 0);
+        }
+
+        @Override
+        public void visit(StringConstantToken token) {
+            append(STRING_CONSTANT, id(token.text()), id(token.getOwnerInternalName()), 0, 0, 0);
+        }
+
+        @Override
+        public void visit(TextToken token) {
+            append(TEXT, id(token.text()), 0, 0, 0, 0);
+        }
+    }
+}
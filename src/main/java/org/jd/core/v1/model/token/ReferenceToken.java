@@ -8,11 +8,10 @@
 package org.jd.core.v1.model.token;
 
 import org.jd.core.v1.model.javasyntax.type.ObjectType;
-import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 
 public class ReferenceToken extends DeclarationToken {
 
-    private final ObjectType ownerType;
+    private final String ownerInternalName;
 
     /**
      * @param type @see org.jd.core.v1.model.token.DeclarationToken
@@ -22,20 +21,20 @@ public class ReferenceToken extends DeclarationToken {
      * @param ownerType
      */
     public ReferenceToken(int type, String internalTypeName, String name, String descriptor, ObjectType ownerType) {
-        super(type, internalTypeName, name, descriptor);
-        this.ownerType = ownerType;
+        this(type, internalTypeName, name, descriptor, ownerType == null ? null : ownerType.getInternalName());
     }
 
     public ReferenceToken(int type, String internalName, String name, String descriptor, String ownerInternalName) {
-        this(type, internalName, name, descriptor, TypeMaker.create(ownerInternalName));
+        super(type, internalName, name, descriptor);
+        this.ownerInternalName = ownerInternalName;
     }
 
     public ReferenceToken(int type, String internalName, String name) {
-        this(type, internalName, name, null, (ObjectType)null);
+        this(type, internalName, name, null, (String)null);
     }
 
     public String getOwnerInternalName() {
-        return ownerType == null ? null : ownerType.getInternalName();
+        return ownerInternalName;
     }
 
     @Override
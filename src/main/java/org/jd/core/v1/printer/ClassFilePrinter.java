@@ -1,6 +1,10 @@
 package org.jd.core.v1.printer;
 
+import org.jd.core.v1.api.printer.SourceMapPrinter;
+import org.jd.core.v1.model.message.LineNumberTable;
+
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import jd.core.DecompilationResult;
@@ -10,10 +14,11 @@ import jd.core.links.HyperlinkReferenceData;
 import jd.core.links.ReferenceData;
 import jd.core.links.StringData;
 
-public class ClassFilePrinter extends LineNumberStringBuilderPrinter {
+public class ClassFilePrinter extends LineNumberStringBuilderPrinter implements SourceMapPrinter {
 
     private final Map<String, ReferenceData> referencesCache = new HashMap<>();
     private final DecompilationResult result = new DecompilationResult();
+    private final SourceMap.Builder sourceMapBuilder = new SourceMap.Builder();
     
     // Manage line number and misalignment
     private int textAreaLineNumber = 1;
@@ -21,6 +26,7 @@ public class ClassFilePrinter extends LineNumberStringBuilderPrinter {
     @Override
     public void start(int maxLineNumber, int majorVersion, int minorVersion) {
         super.start(maxLineNumber, majorVersion, minorVersion);
+        sourceMapBuilder.reset();
 
         if (maxLineNumber != 0) {
             result.setMaxLineNumber(maxLineNumber);
@@ -121,6 +127,20 @@ public class ClassFilePrinter extends LineNumberStringBuilderPrinter {
         }
     }
 
+    // --- Source map --- //
+    @Override
+    public void lineNumberTables(List<LineNumberTable> lineNumberTables) {
+        sourceMapBuilder.addLineNumberTables(lineNumberTables);
+    }
+
+    @Override
+    public void printLineNumber(int lineNumber) {
+        if (lineNumber != UNKNOWN_LINE_NUMBER) {
+            int column = stringBuffer.length() - (stringBuffer.lastIndexOf(NEWLINE) + 1);
+            sourceMapBuilder.addLine(lineNumber, textAreaLineNumber, column);
+        }
+    }
+
     // --- Add references --- //
     public ReferenceData newReferenceData(String internalName, String name, String descriptor, String scopeInternalName) {
         String key = internalName + '-' + name + '-'+ descriptor + '-' + scopeInternalName;
@@ -134,4 +154,12 @@ public class ClassFilePrinter extends LineNumberStringBuilderPrinter {
     public DecompilationResult getResult() {
         return result;
     }
+
+    /**
+     * @return the map of the byte code offsets of the methods of the decompiled class file to positions
+     * in the printed text
+     */
+    public SourceMap getSourceMap() {
+        return sourceMapBuilder.build();
+    }
 }
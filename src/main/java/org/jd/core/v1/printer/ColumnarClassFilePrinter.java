@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+package org.jd.core.v1.printer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jd.core.DecompilationResult;
+import jd.core.links.DeclarationData;
+import jd.core.links.HyperlinkReferenceData;
+import jd.core.links.ReferenceData;
+import jd.core.links.StringData;
+
+/**
+ * Variant of {@link ClassFilePrinter} storing declarations, references and string constants in
+ * columns of ints.<br>
+ * Names are interned once and referenced by id; references are deduplicated through a hash table
+ * keyed by the ids of (internal name, name, descriptor, scope), so no key string is built.
+ * {@link #getResult()} builds the equivalent {@link DecompilationResult} on demand.
+ */
+public class ColumnarClassFilePrinter extends LineNumberStringBuilderPrinter {
+    public static final int NULL_ID = -1;
+
+    private static final String NULL = "null";
+    private static final String INIT = "<init>";
+
+    // Interned names
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Declarations: position, length, type, internal type name, name and descriptor ids
+    private int[] declarations = new int[6 * 64];
+    private int declarationCount;
+
+    // Unique references: internal type name, name, descriptor and scope ids
+    private int[] references = new int[4 * 64];
+    private int referenceCount;
+    private int[] referenceTable = newReferenceTable(128);
+
+    // Hyperlinks: position, length, reference index
+    private int[] hyperlinks = new int[3 * 64];
+    private int hyperlinkCount;
+
+    // String constants: position, constant and owner ids
+    private int[] strings = new int[3 * 16];
+    private int stringCount;
+
+    // Line numbers: text area line number, line number
+    private int[] lineNumbers = new int[2 * 64];
+    private int lineNumberCount;
+
+    private int maxLineNumber;
+
+    // Manage line number and misalignment
+    private int textAreaLineNumber = 1;
+
+    @Override
+    public void start(int maxLineNumber, int majorVersion, int minorVersion) {
+        super.start(maxLineNumber, majorVersion, minorVersion);
+
+        if (maxLineNumber != 0) {
+            this.maxLineNumber = maxLineNumber;
+        }
+    }
+
+    // --- Add strings --- //
+    @Override
+    public void printStringConstant(String constant, String ownerInternalName) {
+        if (constant == null) {
+            constant = NULL;
+        }
+        if (ownerInternalName == null) {
+            ownerInternalName = NULL;
+        }
+
+        strings = ensureCapacity(strings, stringCount, 3);
+
+        int offset = 3 * stringCount++;
+
+        strings[offset] = stringBuffer.length();
+        strings[offset+1] = intern(constant);
+        strings[offset+2] = intern(ownerInternalName);
+
+        super.printStringConstant(constant, ownerInternalName);
+    }
+
+    @Override
+    public void printDeclaration(int type, String internalTypeName, String name, String descriptor) {
+        if (internalTypeName == null) {
+            internalTypeName = NULL;
+        }
+        if (name == null) {
+            name = NULL;
+        }
+        if (descriptor == null) {
+            descriptor = NULL;
+        }
+
+        declarations = ensureCapacity(declarations, declarationCount, 6);
+
+        int offset = 6 * declarationCount++;
+
+        declarations[offset] = stringBuffer.length();
+        declarations[offset+1] = name.length();
+        declarations[offset+2] = type;
+        declarations[offset+3] = intern(internalTypeName);
+
+        switch (type) {
+            case TYPE:
+                declarations[offset+4] = NULL_ID;
+                declarations[offset+5] = NULL_ID;
+                break;
+            case CONSTRUCTOR:
+                declarations[offset+4] = intern(INIT);
+                declarations[offset+5] = intern(descriptor);
+                break;
+            default:
+                declarations[offset+4] = intern(name);
+                declarations[offset+5] = intern(descriptor);
+                break;
+        }
+
+        super.printDeclaration(type, internalTypeName, name, descriptor);
+    }
+
+    @Override
+    public void printReference(int type, String internalTypeName, String name, String descriptor, String ownerInternalName) {
+        if (internalTypeName == null) {
+            internalTypeName = NULL;
+        }
+        if (name == null) {
+            name = NULL;
+        }
+        if (descriptor == null) {
+            descriptor = NULL;
+        }
+
+        int internalTypeNameId = intern(internalTypeName);
+        int scopeId = (ownerInternalName == null) ? NULL_ID : intern(ownerInternalName);
+        int reference;
+
+        switch (type) {
+            case TYPE:
+                reference = addReference(internalTypeNameId, NULL_ID, NULL_ID, scopeId);
+                break;
+            case CONSTRUCTOR:
+                reference = addReference(internalTypeNameId, intern(INIT), intern(descriptor), scopeId);
+                break;
+            default:
+                reference = addReference(internalTypeNameId, intern(name), intern(descriptor), scopeId);
+                break;
+        }
+
+        hyperlinks = ensureCapacity(hyperlinks, hyperlinkCount, 3);
+
+        int offset = 3 * hyperlinkCount++;
+
+        hyperlinks[offset] = stringBuffer.length();
+        hyperlinks[offset+1] = name.length();
+        hyperlinks[offset+2] = reference;
+
+        super.printReference(type, internalTypeName, name, descriptor, ownerInternalName);
+    }
+
+    @Override
+    public void startLine(int lineNumber) {
+        super.startLine(lineNumber);
+
+        lineNumbers = ensureCapacity(lineNumbers, lineNumberCount, 2);
+
+        int offset = 2 * lineNumberCount++;
+
+        lineNumbers[offset] = textAreaLineNumber;
+        lineNumbers[offset+1] = lineNumber;
+    }
+
+    @Override
+    public void endLine() {
+        super.endLine();
+        textAreaLineNumber++;
+    }
+
+    @Override
+    public void extraLine(int count) {
+        super.extraLine(count);
+        if (realignmentLineNumber) {
+            textAreaLineNumber += count;
+        }
+    }
+
+    // --- Columns --- //
+    public String getName(int id) { return id == NULL_ID ? null : names.get(id); }
+    public int getMaxLineNumber() { return maxLineNumber; }
+
+    public int getDeclarationCount() { return declarationCount; }
+    public int getDeclarationPosition(int index) { return declarations[6 * index]; }
+    public int getDeclarationLength(int index) { return declarations[6 * index + 1]; }
+    public int getDeclarationType(int index) { return declarations[6 * index + 2]; }
+    public int getDeclarationInternalTypeNameId(int index) { return declarations[6 * index + 3]; }
+    public int getDeclarationNameId(int index) { return declarations[6 * index + 4]; }
+    public int getDeclarationDescriptorId(int index) { return declarations[6 * index + 5]; }
+
+    public int getReferenceCount() { return referenceCount; }
+    public int getReferenceInternalTypeNameId(int index) { return references[4 * index]; }
+    public int getReferenceNameId(int index) { return references[4 * index + 1]; }
+    public int getReferenceDescriptorId(int index) { return references[4 * index + 2]; }
+    public int getReferenceScopeId(int index) { return references[4 * index + 3]; }
+
+    public int getHyperlinkCount() { return hyperlinkCount; }
+    public int getHyperlinkPosition(int index) { return hyperlinks[3 * index]; }
+    public int getHyperlinkLength(int index) { return hyperlinks[3 * index + 1]; }
+    public int getHyperlinkReference(int index) { return hyperlinks[3 * index + 2]; }
+
+    public int getStringCount() { return stringCount; }
+    public int getStringPosition(int index) { return strings[3 * index]; }
+    public int getStringConstantId(int index) { return strings[3 * index + 1]; }
+    public int getStringOwnerId(int index) { return strings[3 * index + 2]; }
+
+    /**
+     * @return the metadata, in the format of {@link ClassFilePrinter#getResult()}
+     */
+    public DecompilationResult getResult() {
+        DecompilationResult result = new DecompilationResult();
+
+        if (maxLineNumber != 0) {
+            result.setMaxLineNumber(maxLineNumber);
+        }
+
+        for (int i=0; i<lineNumberCount; i++) {
+            result.putLineNumber(lineNumbers[2*i], lineNumbers[2*i+1]);
+        }
+
+        for (int i=0; i<stringCount; i++) {
+            result.addString(new StringData(getStringPosition(i), getName(getStringConstantId(i)), getName(getStringOwnerId(i))));
+        }
+
+        for (int i=0; i<declarationCount; i++) {
+            int position = getDeclarationPosition(i);
+            String internalTypeName = getName(getDeclarationInternalTypeNameId(i));
+            String name = getName(getDeclarationNameId(i));
+            String descriptor = getName(getDeclarationDescriptorId(i));
+            DeclarationData data = new DeclarationData(position, getDeclarationLength(i), internalTypeName, name, descriptor);
+
+            if (getDeclarationType(i) == TYPE) {
+                result.addDeclaration(internalTypeName, data);
+                result.addTypeDeclaration(position, data);
+            } else {
+                result.addDeclaration(internalTypeName + '-' + name + '-' + descriptor, data);
+            }
+        }
+
+        ReferenceData[] referenceData = new ReferenceData[referenceCount];
+
+        for (int i=0; i<referenceCount; i++) {
+            referenceData[i] = new ReferenceData(
+                getName(getReferenceInternalTypeNameId(i)), getName(getReferenceNameId(i)),
+                getName(getReferenceDescriptorId(i)), getName(getReferenceScopeId(i)));
+            result.addReference(referenceData[i]);
+        }
+
+        for (int i=0; i<hyperlinkCount; i++) {
+            int position = getHyperlinkPosition(i);
+            result.addHyperLink(position, new HyperlinkReferenceData(position, getHyperlinkLength(i), referenceData[getHyperlinkReference(i)]));
+        }
+
+        return result;
+    }
+
+    // --- Interning --- //
+    protected int intern(String name) {
+        Integer id = nameIds.get(name);
+
+        if (id == null) {
+            id = names.size();
+            nameIds.put(name, id);
+            names.add(name);
+        }
+
+        return id;
+    }
+
+    protected int addReference(int internalTypeNameId, int nameId, int descriptorId, int scopeId) {
+        int mask = referenceTable.length - 1;
+        int slot = hash(internalTypeNameId, nameId, descriptorId, scopeId) & mask;
+
+        for (int index = referenceTable[slot]; index != NULL_ID; index = referenceTable[slot]) {
+            int offset = 4 * index;
+
+            if (references[offset] == internalTypeNameId && references[offset+1] == nameId &&
+                references[offset+2] == descriptorId && references[offset+3] == scopeId) {
+                return index;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        int index = referenceCount++;
+
+        references = ensureCapacity(references, index, 4);
+
+        int offset = 4 * index;
+
+        references[offset] = internalTypeNameId;
+        references[offset+1] = nameId;
+        references[offset+2] = descriptorId;
+        references[offset+3] = scopeId;
+        referenceTable[slot] = index;
+
+        if (2 * referenceCount > referenceTable.length) {
+            rehash();
+        }
+
+        return index;
+    }
+
+    protected void rehash() {
+        referenceTable = newReferenceTable(referenceTable.length * 2);
+
+        int mask = referenceTable.length - 1;
+
+        for (int index=0; index<referenceCount; index++) {
+            int offset = 4 * index;
+            int slot = hash(references[offset], references[offset+1], references[offset+2], references[offset+3]) & mask;
+
+            while (referenceTable[slot] != NULL_ID) {
+                slot = (slot + 1) & mask;
+            }
+
+            referenceTable[slot] = index;
+        }
+    }
+
+    protected static int hash(int internalTypeNameId, int nameId, int descriptorId, int scopeId) {
+        int h = internalTypeNameId;
+
+        h = 31 * h + nameId;
+        h = 31 * h + descriptorId;
+        h = 31 * h + scopeId;
+
+        return h ^ (h >>> 16);
+    }
+
+    protected static int[] newReferenceTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, NULL_ID);
+        return table;
+    }
+
+    protected static int[] ensureCapacity(int[] column, int count, int width) {
+        if (column.length < width * (count + 1)) {
+            return Arrays.copyOf(column, Math.max(column.length * 2, width * (count + 1)));
+        }
+        return column;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.printer;
+
+/**
+ * Escaping of the printed texts.<br>
+ * Runs of characters which do not need escaping are appended at once; escape sequences come from
+ * lookup tables.
+ */
+public final class EscapeUtil {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final String[] OCTAL_ESCAPES = new String[32];
+
+    static {
+        for (int c = 0; c < 32; c++) {
+            OCTAL_ESCAPES[c] = "\\0" + (char) ('0' + (c >> 3)) + (char) ('0' + (c & 0x7));
+        }
+    }
+
+    private EscapeUtil() {
+        super();
+    }
+
+    /**
+     * Escape control characters, except tabulations, in octal format and non ASCII characters in
+     * unicode format.
+     */
+    public static void escape(StringBuilder sb, String s) {
+        int length = s.length();
+        int start = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+
+            if ((c < 32 && c != '\t') || c > 127) {
+                sb.append(s, start, i);
+
+                if (c < 32) {
+                    sb.append(OCTAL_ESCAPES[c]);
+                } else {
+                    appendUnicodeEscape(sb, c);
+                }
+
+                start = i + 1;
+            }
+        }
+
+        if (start == 0) {
+            sb.append(s);
+        } else {
+            sb.append(s, start, length);
+        }
+    }
+
+    /**
+     * Escape 'DEL' and non ASCII characters in unicode format.
+     */
+    public static void escapeUnicode(StringBuilder sb, String s) {
+        int length = s.length();
+        int start = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+
+            if (c >= 127) {
+                sb.append(s, start, i);
+                appendUnicodeEscape(sb, c);
+                start = i + 1;
+            }
+        }
+
+        if (start == 0) {
+            sb.append(s);
+        } else {
+            sb.append(s, start, length);
+        }
+    }
+
+    public static void appendUnicodeEscape(StringBuilder sb, char c) {
+        sb.append('\\').append('u')
+          .append(HEX_DIGITS[c >> 12])
+          .append(HEX_DIGITS[(c >> 8) & 0xF])
+          .append(HEX_DIGITS[(c >> 4) & 0xF])
+          .append(HEX_DIGITS[c & 0xF]);
+    }
+}
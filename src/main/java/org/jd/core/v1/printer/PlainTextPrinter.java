@@ -62,24 +62,7 @@ public class PlainTextPrinter implements Printer {
     @Override
     public void printText(String text) {
         if (escapeUnicodeCharacters) {
-            for(int i=0, len=text.length(); i<len; i++) {
-                char c = text.charAt(i);
-
-                if (c < 127) {
-                    sb.append(c);
-                } else {
-                    int h = (c >> 12);
-
-                    sb.append("\\u");
-                    sb.append((char)((h <= 9) ? (h + '0') : (h + ('A' - 10))));
-                    h = (c >> 8) & 15;
-                    sb.append((char)((h <= 9) ? (h + '0') : (h + ('A' - 10))));
-                    h = (c >> 4) & 15;
-                    sb.append((char)((h <= 9) ? (h + '0') : (h + ('A' - 10))));
-                    h = (c) & 15;
-                    sb.append((char)((h <= 9) ? (h + '0') : (h + ('A' - 10))));
-                }
-            }
+            EscapeUtil.escapeUnicode(sb, text);
         } else {
             sb.append(text);
         }
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+package org.jd.core.v1.printer;
+
+import org.jd.core.v1.model.message.LineNumberTable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map of the byte code offsets of each method to positions in the decompiled text.<br>
+ * The positions come from the line number tables of the methods and the positions where the
+ * writer reached the code of each original line number. Lines are 1-based, columns 0-based; line 0 means
+ * 'unknown'.<br><br>
+ *
+ * Binary format: all ints are unsigned varints, signed deltas are zigzag encoded.
+ * <pre>
+ * method count
+ * for each method:
+ *   internal type name, name, descriptor (length + UTF-8 bytes)
+ *   code length, entry count
+ *   for each entry: delta of start offset, signed delta of line, column
+ * </pre>
+ */
+public class SourceMap {
+    public static final int UNKNOWN_LINE = 0;
+
+    private final Map<String, MethodSourceMap> methods = new LinkedHashMap<>();
+
+    public static String key(String internalTypeName, String name, String descriptor) {
+        return internalTypeName + '-' + name + '-' + descriptor;
+    }
+
+    public Collection<MethodSourceMap> getMethods() {
+        return methods.values();
+    }
+
+    public MethodSourceMap getMethod(String internalTypeName, String name, String descriptor) {
+        return methods.get(key(internalTypeName, name, descriptor));
+    }
+
+    /**
+     * @return the output line of the byte code at 'offset', {@link #UNKNOWN_LINE} if unknown
+     */
+    public int getLine(String internalTypeName, String name, String descriptor, int offset) {
+        MethodSourceMap method = getMethod(internalTypeName, name, descriptor);
+        return method == null ? UNKNOWN_LINE : method.getLine(offset);
+    }
+
+    /**
+     * @return the output column of the byte code at 'offset', -1 if unknown
+     */
+    public int getColumn(String internalTypeName, String name, String descriptor, int offset) {
+        MethodSourceMap method = getMethod(internalTypeName, name, descriptor);
+        return method == null ? -1 : method.getColumn(offset);
+    }
+
+    protected void add(MethodSourceMap method) {
+        methods.put(key(method.internalTypeName, method.name, method.descriptor), method);
+    }
+
+    // --- Serialization --- //
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writeVarInt(out, methods.size());
+
+        for (MethodSourceMap method : methods.values()) {
+            writeString(out, method.internalTypeName);
+            writeString(out, method.name);
+            writeString(out, method.descriptor);
+            writeVarInt(out, method.codeLength);
+            writeVarInt(out, method.startOffsets.length);
+
+            int previousOffset = 0;
+            int previousLine = 0;
+
+            for (int i=0; i<method.startOffsets.length; i++) {
+                writeVarInt(out, method.startOffsets[i] - previousOffset);
+                writeVarInt(out, zigzag(method.lines[i] - previousLine));
+                writeVarInt(out, method.columns[i]);
+                previousOffset = method.startOffsets[i];
+                previousLine = method.lines[i];
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    public static SourceMap fromByteArray(byte[] data) {
+        SourceMap sourceMap = new SourceMap();
+        int[] position = new int[1];
+        int methodCount = readVarInt(data, position);
+
+        for (int m=0; m<methodCount; m++) {
+            String internalTypeName = readString(data, position);
+            String name = readString(data, position);
+            String descriptor = readString(data, position);
+            int codeLength = readVarInt(data, position);
+            int count = readVarInt(data, position);
+            int[] startOffsets = new int[count];
+            int[] lines = new int[count];
+            int[] columns = new int[count];
+            int previousOffset = 0;
+            int previousLine = 0;
+
+            for (int i=0; i<count; i++) {
+                startOffsets[i] = previousOffset += readVarInt(data, position);
+                lines[i] = previousLine += unzigzag(readVarInt(data, position));
+                columns[i] = readVarInt(data, position);
+            }
+
+            sourceMap.add(new MethodSourceMap(internalTypeName, name, descriptor, codeLength, startOffsets, lines, columns));
+        }
+
+        return sourceMap;
+    }
+
+    protected static int zigzag(int i) {
+        return (i << 1) ^ (i >> 31);
+    }
+
+    protected static int unzigzag(int i) {
+        return (i >>> 1) ^ -(i & 1);
+    }
+
+    protected static void writeVarInt(ByteArrayOutputStream out, int i) {
+        while ((i & ~0x7F) != 0) {
+            out.write((i & 0x7F) | 0x80);
+            i >>>= 7;
+        }
+        out.write(i);
+    }
+
+    protected static int readVarInt(byte[] data, int[] position) {
+        int result = 0;
+        int shift = 0;
+        int b;
+
+        do {
+            b = data[position[0]++];
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return result;
+    }
+
+    protected static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    protected static String readString(byte[] data, int[] position) {
+        int length = readVarInt(data, position);
+        String s = new String(data, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return s;
+    }
+
+    /**
+     * Byte code offset ranges of a method, sorted by start offset: range i is
+     * [startOffsets[i], startOffsets[i+1]) and the last one ends at the code length.
+     */
+    public static class MethodSourceMap {
+        private final String internalTypeName;
+        private final String name;
+        private final String descriptor;
+        private final int codeLength;
+        private final int[] startOffsets;
+        private final int[] lines;
+        private final int[] columns;
+
+        public MethodSourceMap(String internalTypeName, String name, String descriptor, int codeLength, int[] startOffsets, int[] lines, int[] columns) {
+            this.internalTypeName = internalTypeName;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.codeLength = codeLength;
+            this.startOffsets = startOffsets;
+            this.lines = lines;
+            this.columns = columns;
+        }
+
+        public String getInternalTypeName() { return internalTypeName; }
+        public String getName() { return name; }
+        public String getDescriptor() { return descriptor; }
+        public int getCodeLength() { return codeLength; }
+        public int getEntryCount() { return startOffsets.length; }
+        public int getStartOffset(int index) { return startOffsets[index]; }
+
+        public int getLine(int offset) {
+            int index = indexOf(offset);
+            return index < 0 ? UNKNOWN_LINE : lines[index];
+        }
+
+        public int getColumn(int offset) {
+            int index = indexOf(offset);
+            return (index < 0 || lines[index] == UNKNOWN_LINE) ? -1 : columns[index];
+        }
+
+        /**
+         * @return the index of the range containing 'offset', -1 if none
+         */
+        protected int indexOf(int offset) {
+            if (offset < 0 || offset >= codeLength) {
+                return -1;
+            }
+
+            int index = Arrays.binarySearch(startOffsets, offset);
+
+            // Not found: index of the previous range
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+
+    /**
+     * Collect the output positions of the original line numbers and the line number tables captured
+     * during the decompilation, then build the map.
+     */
+    public static class Builder {
+        private final List<LineNumberTable> lineNumberTables = new ArrayList<>();
+        private int[] outputLines = new int[256];
+        private int[] outputColumns = new int[256];
+
+        public void reset() {
+            lineNumberTables.clear();
+            Arrays.fill(outputLines, UNKNOWN_LINE);
+        }
+
+        public void addLineNumberTables(List<LineNumberTable> lineNumberTables) {
+            this.lineNumberTables.addAll(lineNumberTables);
+        }
+
+        /**
+         * Store the position of the first output line printed for 'lineNumber'.
+         */
+        public void addLine(int lineNumber, int outputLine, int column) {
+            if (lineNumber >= outputLines.length) {
+                int length = Math.max(outputLines.length * 2, lineNumber + 1);
+                outputLines = Arrays.copyOf(outputLines, length);
+                outputColumns = Arrays.copyOf(outputColumns, length);
+            }
+            if (outputLines[lineNumber] == UNKNOWN_LINE) {
+                outputLines[lineNumber] = outputLine;
+                outputColumns[lineNumber] = column;
+            }
+        }
+
+        public SourceMap build() {
+            SourceMap sourceMap = new SourceMap();
+
+            for (LineNumberTable lineNumberTable : lineNumberTables) {
+                sourceMap.add(build(lineNumberTable));
+            }
+
+            return sourceMap;
+        }
+
+        protected MethodSourceMap build(LineNumberTable lineNumberTable) {
+            int[] lineNumbers = lineNumberTable.lineNumbers();
+            int length = lineNumbers.length;
+            int[] startOffsets = new int[length];
+            int[] lines = new int[length];
+            int[] columns = new int[length];
+            int count = 0;
+
+            for (int i=0; i<length; i++) {
+                int startOffset = lineNumberTable.startOffsets()[i];
+                int line = getOutputLine(lineNumbers[i]);
+                int column = (line == UNKNOWN_LINE) ? 0 : outputColumns[lineNumbers[i]];
+
+                if (count > 0 && startOffsets[count-1] == startOffset) {
+                    // Same offset: keep the last entry
+                    count--;
+                } else if (count > 0 && lines[count-1] == line && columns[count-1] == column) {
+                    // Same position: extend the previous range
+                    continue;
+                }
+
+                startOffsets[count] = startOffset;
+                lines[count] = line;
+                columns[count] = column;
+                count++;
+            }
+
+            return new MethodSourceMap(
+                lineNumberTable.internalTypeName(), lineNumberTable.name(), lineNumberTable.descriptor(), lineNumberTable.codeLength(),
+                Arrays.copyOf(startOffsets, count), Arrays.copyOf(lines, count), Arrays.copyOf(columns, count));
+        }
+
+        protected int getOutputLine(int lineNumber) {
+            return (lineNumber < 0 || lineNumber >= outputLines.length) ? UNKNOWN_LINE : outputLines[lineNumber];
+        }
+    }
+}
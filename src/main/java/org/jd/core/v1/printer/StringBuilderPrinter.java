@@ -47,34 +47,7 @@ public class StringBuilderPrinter implements Printer, VersionAware {
 
     protected void escape(String s) {
         if (unicodeEscape && s != null) {
-            int length = s.length();
-
-            for (int i = 0; i < length; i++) {
-                char c = s.charAt(i);
-
-                if (c == '\t') {
-                    stringBuffer.append(c);
-                } else if (c < 32) {
-                    // Write octal format
-                    stringBuffer.append("\\0");
-                    stringBuffer.append((char) ('0' + (c >> 3)));
-                    stringBuffer.append((char) ('0' + (c & 0x7)));
-                } else if (c > 127) {
-                    // Write octal format
-                    stringBuffer.append("\\u");
-
-                    int z = c >> 12;
-                    stringBuffer.append((char) (z <= 9 ? '0' + z : 'A' - 10 + z));
-                    z = c >> 8 & 0xF;
-                    stringBuffer.append((char) (z <= 9 ? '0' + z : 'A' - 10 + z));
-                    z = c >> 4 & 0xF;
-                    stringBuffer.append((char) (z <= 9 ? '0' + z : 'A' - 10 + z));
-                    z = c & 0xF;
-                    stringBuffer.append((char) (z <= 9 ? '0' + z : 'A' - 10 + z));
-                } else {
-                    stringBuffer.append(c);
-                }
-            }
+            EscapeUtil.escape(stringBuffer, s);
         } else {
             stringBuffer.append(s);
         }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+package org.jd.core.v1.printer;
+
+import org.jd.core.v1.api.printer.Printer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Printer collecting the symbols of the decompiled classes: declarations, references and string
+ * constants. The text is ignored.<br>
+ * Symbols are stored in columns of ints; names are interned and referenced by id. The same printer
+ * can be used for several classes.
+ */
+public class SymbolIndexPrinter implements Printer {
+    public static final int NULL_ID = -1;
+
+    // Interned names
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Declarations: type, internal type name, name and descriptor ids
+    private int[] declarations = new int[4 * 64];
+    private int declarationCount;
+
+    // References: type, internal type name, name, descriptor and owner ids
+    private int[] references = new int[5 * 64];
+    private int referenceCount;
+
+    // String constants: constant and owner ids
+    private int[] strings = new int[2 * 16];
+    private int stringCount;
+
+    // --- Printer --- //
+    @Override public void start(int maxLineNumber, int majorVersion, int minorVersion) {}
+    @Override public void end() {}
+
+    @Override public void printText(String text) {}
+    @Override public void printNumericConstant(String constant) {}
+    @Override public void printKeyword(String keyword) {}
+
+    @Override
+    public void printStringConstant(String constant, String ownerInternalName) {
+        strings = ensureCapacity(strings, stringCount, 2);
+
+        int offset = 2 * stringCount++;
+
+        strings[offset] = intern(constant);
+        strings[offset+1] = intern(ownerInternalName);
+    }
+
+    @Override
+    public void printDeclaration(int type, String internalTypeName, String name, String descriptor) {
+        declarations = ensureCapacity(declarations, declarationCount, 4);
+
+        int offset = 4 * declarationCount++;
+
+        declarations[offset] = type;
+        declarations[offset+1] = intern(internalTypeName);
+        declarations[offset+2] = intern(name);
+        declarations[offset+3] = intern(descriptor);
+    }
+
+    @Override
+    public void printReference(int type, String internalTypeName, String name, String descriptor, String ownerInternalName) {
+        references = ensureCapacity(references, referenceCount, 5);
+
+        int offset = 5 * referenceCount++;
+
+        references[offset] = type;
+        references[offset+1] = intern(internalTypeName);
+        references[offset+2] = intern(name);
+        references[offset+3] = intern(descriptor);
+        references[offset+4] = intern(ownerInternalName);
+    }
+
+    @Override public void indent() {}
+    @Override public void unindent() {}
+
+    @Override public void startLine(int lineNumber) {}
+    @Override public void endLine() {}
+    @Override public void extraLine(int count) {}
+
+    @Override public void startMarker(int type) {}
+    @Override public void endMarker(int type) {}
+
+    // --- Columns --- //
+    public String getName(int id) { return id == NULL_ID ? null : names.get(id); }
+
+    public int getDeclarationCount() { return declarationCount; }
+    public int getDeclarationType(int index) { return declarations[4 * index]; }
+    public int getDeclarationInternalTypeNameId(int index) { return declarations[4 * index + 1]; }
+    public int getDeclarationNameId(int index) { return declarations[4 * index + 2]; }
+    public int getDeclarationDescriptorId(int index) { return declarations[4 * index + 3]; }
+
+    public int getReferenceCount() { return referenceCount; }
+    public int getReferenceType(int index) { return references[5 * index]; }
+    public int getReferenceInternalTypeNameId(int index) { return references[5 * index + 1]; }
+    public int getReferenceNameId(int index) { return references[5 * index + 2]; }
+    public int getReferenceDescriptorId(int index) { return references[5 * index + 3]; }
+    public int getReferenceOwnerId(int index) { return references[5 * index + 4]; }
+
+    public int getStringCount() { return stringCount; }
+    public int getStringConstantId(int index) { return strings[2 * index]; }
+    public int getStringOwnerId(int index) { return strings[2 * index + 1]; }
+
+    public void clear() {
+        nameIds.clear();
+        names.clear();
+        declarationCount = 0;
+        referenceCount = 0;
+        stringCount = 0;
+    }
+
+    protected int intern(String name) {
+        if (name == null) {
+            return NULL_ID;
+        }
+
+        Integer id = nameIds.get(name);
+
+        if (id == null) {
+            id = names.size();
+            nameIds.put(name, id);
+            names.add(name);
+        }
+
+        return id;
+    }
+
+    protected static int[] ensureCapacity(int[] column, int count, int width) {
+        if (column.length < width * (count + 1)) {
+            return Arrays.copyOf(column, Math.max(column.length * 2, width * (count + 1)));
+        }
+        return column;
+    }
+}
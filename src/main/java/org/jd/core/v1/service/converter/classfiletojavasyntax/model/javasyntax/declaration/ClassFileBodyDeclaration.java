@@ -11,6 +11,7 @@ import org.jd.core.v1.model.javasyntax.declaration.BaseMemberDeclaration;
 import org.jd.core.v1.model.javasyntax.declaration.BodyDeclaration;
 import org.jd.core.v1.model.javasyntax.type.BaseType;
 import org.jd.core.v1.model.javasyntax.type.TypeArgument;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ClassFileFeatures;
 import org.jd.core.v1.util.DefaultList;
 
 import java.util.Collections;
@@ -30,6 +31,7 @@ public class ClassFileBodyDeclaration extends BodyDeclaration implements ClassFi
     private final ClassFileBodyDeclaration outerBodyDeclaration;
     private final Map<String, TypeArgument> bindings;
     private final Map<String, BaseType> typeBounds;
+    private int features = ClassFileFeatures.ALL;
     
     public ClassFileBodyDeclaration(ClassFile classFile, Map<String, TypeArgument> bindings, Map<String, BaseType> typeBounds, ClassFileBodyDeclaration outerBodyDeclaration) {
         super(classFile.getInternalTypeName(), null);
@@ -82,6 +84,21 @@ public class ClassFileBodyDeclaration extends BodyDeclaration implements ClassFi
         }
     }
 
+    /**
+     * @return the {@link ClassFileFeatures} of this class and its inner classes
+     */
+    public int getFeatures() {
+        return features;
+    }
+
+    public void setFeatures(int features) {
+        this.features = features;
+    }
+
+    public boolean hasFeature(int feature) {
+        return (features & feature) != 0;
+    }
+
     public ClassFileTypeDeclaration getInnerTypeDeclaration(String internalName) {
         ClassFileTypeDeclaration declaration = innerTypeMap.get(internalName);
 
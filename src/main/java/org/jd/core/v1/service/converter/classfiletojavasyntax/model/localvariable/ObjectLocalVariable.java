@@ -9,6 +9,7 @@ package org.jd.core.v1.service.converter.classfiletojavasyntax.model.localvariab
 import org.jd.core.v1.model.javasyntax.type.BaseType;
 import org.jd.core.v1.model.javasyntax.type.ObjectType;
 import org.jd.core.v1.model.javasyntax.type.Type;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeHierarchyIndex;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 
 import java.util.Map;
@@ -18,6 +19,7 @@ import static org.jd.core.v1.model.javasyntax.type.ObjectType.TYPE_UNDEFINED_OBJ
 
 public class ObjectLocalVariable extends AbstractLocalVariable {
     private final TypeMaker typeMaker;
+    private TypeHierarchyIndex typeHierarchyIndex;
     protected Type type;
 
     public ObjectLocalVariable(TypeMaker typeMaker, int index, int offset, Type type, String name) {
@@ -96,7 +98,7 @@ public class ObjectLocalVariable extends AbstractLocalVariable {
             }
 
             if (type.isObjectType()) {
-                return typeMaker.isAssignable(typeBounds, (ObjectType) this.type, (ObjectType) type);
+                return isAssignable(typeBounds, (ObjectType) this.type, (ObjectType) type);
             }
         }
 
@@ -127,7 +129,7 @@ public class ObjectLocalVariable extends AbstractLocalVariable {
                                 fireChangeEvent(typeBounds);
                             }
                         } else // Assignable types
-                        if (typeMaker.isAssignable(typeBounds, thisObjectType, otherObjectType) && thisObjectType.getTypeArguments() == null && otherObjectType.getTypeArguments() != null) {
+                        if (isAssignable(typeBounds, thisObjectType, otherObjectType) && thisObjectType.getTypeArguments() == null && otherObjectType.getTypeArguments() != null) {
                             // Keep type, update type arguments
                             this.type = thisObjectType.createType(otherObjectType.getTypeArguments());
                             fireChangeEvent(typeBounds);
@@ -158,7 +160,7 @@ public class ObjectLocalVariable extends AbstractLocalVariable {
                         fireChangeEvent(typeBounds);
                     }
                 } else // Assignable types
-                if (typeMaker.isAssignable(typeBounds, otherObjectType, thisObjectType) && thisObjectType.getTypeArguments() == null && otherObjectType.getTypeArguments() != null) {
+                if (isAssignable(typeBounds, otherObjectType, thisObjectType) && thisObjectType.getTypeArguments() == null && otherObjectType.getTypeArguments() != null) {
                     // Keep type, update type arguments
                     this.type = thisObjectType.createType(otherObjectType.getTypeArguments());
                     fireChangeEvent(typeBounds);
@@ -167,6 +169,13 @@ public class ObjectLocalVariable extends AbstractLocalVariable {
         }
     }
 
+    private boolean isAssignable(Map<String, BaseType> typeBounds, ObjectType parent, ObjectType child) {
+        if (typeHierarchyIndex == null) {
+            typeHierarchyIndex = TypeHierarchyIndex.getInstance(typeMaker);
+        }
+        return typeHierarchyIndex.isAssignable(typeMaker, typeBounds, parent, child);
+    }
+
     @Override
     public boolean isAssignableFrom(Map<String, BaseType> typeBounds, AbstractLocalVariable variable) {
         return isAssignableFrom(typeBounds, variable.getType());
@@ -65,6 +65,7 @@ import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.d
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileStaticInitializerDeclaration;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileTypeDeclaration;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.AnnotationConverter;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ClassFileFeatures;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.visitor.PopulateBindingsWithTypeParameterVisitor;
 import org.jd.core.v1.util.DefaultList;
@@ -112,11 +113,39 @@ public class ConvertClassFileProcessor {
             typeDeclaration = convertClassDeclaration(typeMaker, annotationConverter, classFile, null);
         }
 
+        if (!isForceAllPasses(decompileContext)
+                && typeDeclaration instanceof ClassFileTypeDeclaration classFileTypeDeclaration
+                && classFileTypeDeclaration.getBodyDeclaration() instanceof ClassFileBodyDeclaration bodyDeclaration) {
+            // Census of the constructs used, to skip useless passes
+            updateFeatures(bodyDeclaration);
+        }
+
         decompileContext.setMajorVersion(classFile.getMajorVersion());
         decompileContext.setMinorVersion(classFile.getMinorVersion());
         return new CompilationUnit(typeDeclaration);
     }
 
+    protected static boolean isForceAllPasses(DecompileContext decompileContext) {
+        Map<String, Object> configuration = decompileContext.getConfiguration();
+        Object forceAllPasses = configuration == null ? null : configuration.get(ClassFileFeatures.FORCE_ALL_PASSES);
+        return forceAllPasses != null && "true".equals(forceAllPasses.toString());
+    }
+
+    protected static int updateFeatures(ClassFileBodyDeclaration bodyDeclaration) {
+        int features = ClassFileFeatures.scan(bodyDeclaration.getClassFile());
+
+        if (bodyDeclaration.hasInnerTypeDeclarations()) {
+            for (ClassFileTypeDeclaration innerTypeDeclaration : bodyDeclaration.getInnerTypeDeclarations()) {
+                if (innerTypeDeclaration.getBodyDeclaration() instanceof ClassFileBodyDeclaration innerBodyDeclaration) {
+                    features |= updateFeatures(innerBodyDeclaration);
+                }
+            }
+        }
+
+        bodyDeclaration.setFeatures(features);
+        return features;
+    }
+
     protected ClassFileInterfaceDeclaration convertInterfaceDeclaration(TypeMaker parser, AnnotationConverter converter, ClassFile classFile, ClassFileBodyDeclaration outerClassFileBodyDeclaration) {
         BaseAnnotationReference annotationReferences = convertAnnotationReferences(converter, classFile);
         TypeMaker.TypeTypes typeTypes = parser.parseClassFileSignature(classFile);
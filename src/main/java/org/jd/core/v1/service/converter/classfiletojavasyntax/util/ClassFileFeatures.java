@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.converter.classfiletojavasyntax.util;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantCP;
+import org.apache.bcel.classfile.ConstantFieldref;
+import org.apache.bcel.classfile.ConstantInterfaceMethodref;
+import org.apache.bcel.classfile.ConstantMethodref;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.Method;
+import org.jd.core.v1.model.classfile.ClassFile;
+
+/**
+ * Cheap census of the constructs used by a class file, used to skip the syntax tree passes which
+ * have nothing to do.<br>
+ * The census only reads the constant pool and the method names: a feature may be reported for
+ * a class which finally does not need the pass, never the opposite.
+ */
+public final class ClassFileFeatures {
+    public static final int AUTOBOXING         = 1 << 0;
+    public static final int BRIDGE_METHOD      = 1 << 1;
+    public static final int SWITCH_MAP         = 1 << 2;
+    public static final int TRY_WITH_RESOURCES = 1 << 3;
+
+    public static final int NONE = 0;
+    public static final int ALL  = AUTOBOXING|BRIDGE_METHOD|SWITCH_MAP|TRY_WITH_RESOURCES;
+
+    /** Configuration key disabling the census: all passes run on all classes. */
+    public static final String FORCE_ALL_PASSES = "forceAllPasses";
+
+    private ClassFileFeatures() {
+        super();
+    }
+
+    public static int scan(ClassFile classFile) {
+        int features = NONE;
+
+        Method[] methods = classFile.getMethods();
+
+        if (methods != null) {
+            for (Method method : methods) {
+                if (method.getName().startsWith("access$")) {
+                    features |= BRIDGE_METHOD;
+                    break;
+                }
+            }
+        }
+
+        ConstantPool constants = classFile.getConstantPool();
+
+        for (Constant constant : constants.getConstantPool()) {
+            // Not ConstantInvokeDynamic nor ConstantDynamic: their class index is a bootstrap method index
+            if (constant instanceof ConstantFieldref || constant instanceof ConstantMethodref || constant instanceof ConstantInterfaceMethodref) {
+                ConstantCP constantMemberRef = (ConstantCP)constant;
+                ConstantNameAndType constantNameAndType = constants.getConstant(constantMemberRef.getNameAndTypeIndex());
+                String name = constants.getConstantString(constantNameAndType.getNameIndex(), Const.CONSTANT_Utf8);
+
+                features |= scan(constants, constantMemberRef, name);
+
+                if (features == ALL) {
+                    break;
+                }
+            }
+        }
+
+        return features;
+    }
+
+    private static int scan(ConstantPool constants, ConstantCP constantMemberRef, String name) {
+        if (name.startsWith("access$")) {
+            return BRIDGE_METHOD;
+        }
+        if (name.startsWith("$SwitchMap$") || name.startsWith("$SWITCH_TABLE$")) {
+            return SWITCH_MAP;
+        }
+        if ("close".equals(name) || "addSuppressed".equals(name) || "$closeResource".equals(name)) {
+            return TRY_WITH_RESOURCES;
+        }
+        if ("valueOf".equals(name) || name.endsWith("Value")) {
+            String typeName = constants.getConstantString(constantMemberRef.getClassIndex(), Const.CONSTANT_Class);
+
+            if (typeName.startsWith("java/lang/")) {
+                return AUTOBOXING;
+            }
+        }
+        return NONE;
+    }
+}
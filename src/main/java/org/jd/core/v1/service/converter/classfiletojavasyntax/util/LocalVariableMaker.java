@@ -60,6 +60,7 @@ public class LocalVariableMaker {
     private AbstractLocalVariable[] localVariableCache;
 
     private final TypeMaker typeMaker;
+    private final TypeHierarchyIndex typeHierarchyIndex;
     private final Map<String, BaseType> typeBounds;
     private final FormalParameters formalParameters;
 
@@ -74,6 +75,7 @@ public class LocalVariableMaker {
         BaseType parameterTypes = comd.getParameterTypes();
 
         this.typeMaker = typeMaker;
+        this.typeHierarchyIndex = TypeHierarchyIndex.getInstance(typeMaker);
         this.typeBounds = comd.getTypeBounds();
         this.createParameterVisitor = new CreateParameterVisitor(typeMaker);
         this.createLocalVariableVisitor = new CreateLocalVariableVisitor(typeMaker);
@@ -385,7 +387,7 @@ public class LocalVariableMaker {
                 BaseTypeArgument valueTypeArguments = valueObjectType.getTypeArguments();
 
                 if (lvTypeArguments == null || valueTypeArguments == null || valueTypeArguments == WildcardTypeArgument.WILDCARD_TYPE_ARGUMENT) {
-                    return typeMaker.isRawTypeAssignable(lvObjectType, valueObjectType);
+                    return typeHierarchyIndex.isRawTypeAssignable(typeMaker, lvObjectType, valueObjectType);
                 }
 
                 searchInTypeArgumentVisitor.init();
@@ -396,7 +398,7 @@ public class LocalVariableMaker {
                     valueTypeArguments.accept(searchInTypeArgumentVisitor);
 
                     if (searchInTypeArgumentVisitor.containsGeneric()) {
-                        return typeMaker.isRawTypeAssignable(lvObjectType, valueObjectType);
+                        return typeHierarchyIndex.isRawTypeAssignable(typeMaker, lvObjectType, valueObjectType);
                     }
                 }
             } else if (lv.getType().isGenericType() && valueObjectType.getInternalName().equals(ObjectType.TYPE_OBJECT.getInternalName())) {
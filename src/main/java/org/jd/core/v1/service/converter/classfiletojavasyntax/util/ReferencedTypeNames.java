@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.converter.classfiletojavasyntax.util;
+
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantClass;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.ConstantUtf8;
+import org.jd.core.v1.model.classfile.ClassFile;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Internal names of the types referenced by the constant pools of a class file: class constants,
+ * and object types of the field, method and generic signatures.<br>
+ * A UTF-8 constant is not typed: a string constant looking like a descriptor adds a name.
+ */
+public final class ReferencedTypeNames {
+    private static final Pattern OBJECT_DESCRIPTOR = Pattern.compile("L([^;<>()\\[\\]:.]+)[;<]");
+
+    private ReferencedTypeNames() {
+        super();
+    }
+
+    /**
+     * @return the types referenced by 'classFile' and by its inner classes, except themselves
+     */
+    public static Set<String> scan(ClassFile classFile) {
+        Set<String> internalTypeNames = new TreeSet<>();
+        Set<String> declaredTypeNames = new TreeSet<>();
+
+        scan(classFile, internalTypeNames, declaredTypeNames);
+        internalTypeNames.removeAll(declaredTypeNames);
+
+        return internalTypeNames;
+    }
+
+    private static void scan(ClassFile classFile, Set<String> internalTypeNames, Set<String> declaredTypeNames) {
+        declaredTypeNames.add(classFile.getInternalTypeName());
+        addReferencedTypeNames(classFile.getConstantPool(), internalTypeNames);
+
+        List<ClassFile> innerClassFiles = classFile.getInnerClassFiles();
+
+        if (innerClassFiles != null) {
+            for (ClassFile innerClassFile : innerClassFiles) {
+                scan(innerClassFile, internalTypeNames, declaredTypeNames);
+            }
+        }
+    }
+
+    public static void addReferencedTypeNames(ConstantPool constantPool, Set<String> internalTypeNames) {
+        for (Constant constant : constantPool.getConstantPool()) {
+            if (constant instanceof ConstantClass constantClass) {
+                String name = constantClass.getBytes(constantPool);
+
+                if (name.charAt(0) != '[') {
+                    internalTypeNames.add(name);
+                }
+            } else if (constant instanceof ConstantUtf8 constantUtf8) {
+                // Descriptors and generic signatures
+                Matcher matcher = OBJECT_DESCRIPTOR.matcher(constantUtf8.getBytes());
+
+                while (matcher.find()) {
+                    internalTypeNames.add(matcher.group(1));
+                }
+            }
+        }
+    }
+}
@@ -492,7 +492,7 @@ public class StatementMaker {
         if (size > 3 && condition.isLocalVariableReferenceExpression() && statements.get(size-2).isSwitchStatement()) {
             // Check pattern & make 'switch-string'
             SwitchStatementMaker.makeSwitchString(localVariableMaker, statements, switchStatement);
-        } else if (condition.isArrayExpression()) {
+        } else if (condition.isArrayExpression() && bodyDeclaration.hasFeature(ClassFileFeatures.SWITCH_MAP)) {
             // Check pattern & make 'switch-enum'
             SwitchStatementMaker.makeSwitchEnum(bodyDeclaration, switchStatement, typeMaker);
         }
@@ -603,9 +603,12 @@ public class StatementMaker {
         if (finallyStatements != null && !finallyStatements.isEmpty() && finallyStatements.getFirst().isMonitorExitStatement()) {
             statement = SynchronizedStatementMaker.make(localVariableMaker, statements, tryStatements);
         } else {
-            if (majorVersion > MAJOR_1_8) {
+            // No 'close' invocation in the constant pool: plain 'try'
+            boolean tryWithResources = bodyDeclaration.hasFeature(ClassFileFeatures.TRY_WITH_RESOURCES);
+
+            if (tryWithResources && majorVersion > MAJOR_1_8) {
                 statement = TryWithResourcesStatementMaker.make(localVariableMaker, statements, tryStatements, catchClauses, finallyStatements);
-            } else if (majorVersion >= MAJOR_1_7) {
+            } else if (tryWithResources && majorVersion >= MAJOR_1_7) {
                 statement = TryWithResourcesStatementMaker.makeLegacy(localVariableMaker, statements, tryStatements, catchClauses, finallyStatements);
                 if (statement == null) {
                     statement = TryWithResourcesStatementMaker.make(localVariableMaker, statements, tryStatements, catchClauses, finallyStatements);
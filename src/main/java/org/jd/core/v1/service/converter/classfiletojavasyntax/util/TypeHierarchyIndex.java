@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.converter.classfiletojavasyntax.util;
+
+import org.jd.core.v1.model.javasyntax.type.BaseType;
+import org.jd.core.v1.model.javasyntax.type.ObjectType;
+import org.jd.core.v1.model.javasyntax.type.Type;
+import org.jd.core.v1.util.StringConstants;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Subtype oracle shared by all the classes decompiled with the same {@link TypeMaker}.<br>
+ * Each type gets a dense id and a bitset of its ancestors (itself included). The hierarchy of a
+ * type is walked once through the {@link TypeMaker}, then raw subtype checks are O(1).<br>
+ * A type is 'complete' when all its ancestors were resolved: only then a negative answer is
+ * trusted, otherwise the check is delegated to the {@link TypeMaker}.<br>
+ * The index is thread-safe: the missing types are loaded through the {@link TypeMaker} without
+ * holding the lock of the index, then their ancestor rows are published under it.
+ */
+public class TypeHierarchyIndex {
+    private static final Map<TypeMaker, TypeHierarchyIndex> INDEXES = new WeakHashMap<>();
+
+    private static final int UNKNOWN = -1;
+    private static final int NOT_SUBTYPE = 0;
+    private static final int SUBTYPE = 1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<BitSet> ancestors = new ArrayList<>();
+    private final BitSet complete = new BitSet();
+    private final BitSet inProgress = new BitSet();
+
+    public static TypeHierarchyIndex getInstance(TypeMaker typeMaker) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(typeMaker, k -> new TypeHierarchyIndex());
+        }
+    }
+
+    /**
+     * Build the index for a batch of types, typically all the types of an archive.
+     */
+    public void index(TypeMaker typeMaker, Iterable<String> internalTypeNames) {
+        for (String internalTypeName : internalTypeNames) {
+            resolve(typeMaker, internalTypeName);
+        }
+    }
+
+    public synchronized int size() {
+        return ancestors.size();
+    }
+
+    public boolean isRawTypeAssignable(TypeMaker typeMaker, ObjectType parent, ObjectType child) {
+        int result = isRawSubtype(typeMaker, parent, child);
+
+        if (result == UNKNOWN) {
+            return typeMaker.isRawTypeAssignable(parent, child);
+        }
+
+        return result == SUBTYPE;
+    }
+
+    public boolean isAssignable(TypeMaker typeMaker, Map<String, BaseType> typeBounds, ObjectType parent, ObjectType child) {
+        int result = isRawSubtype(typeMaker, parent, child);
+
+        if (result == NOT_SUBTYPE) {
+            // Generic assignability implies raw assignability
+            return false;
+        }
+        if (result == SUBTYPE && parent.getTypeArguments() == null && child.getTypeArguments() == null) {
+            return true;
+        }
+
+        return typeMaker.isAssignable(typeBounds, parent, child);
+    }
+
+    protected int isRawSubtype(TypeMaker typeMaker, ObjectType parent, ObjectType child) {
+        if (parent.getDimension() != 0 || child.getDimension() != 0) {
+            return UNKNOWN;
+        }
+
+        String parentInternalName = parent.getInternalName();
+
+        if (StringConstants.JAVA_LANG_OBJECT.equals(parentInternalName)) {
+            // Interfaces may not declare 'java/lang/Object' as super type
+            return UNKNOWN;
+        }
+
+        int childId = resolve(typeMaker, child.getInternalName());
+
+        if (childId == -1) {
+            return UNKNOWN;
+        }
+
+        synchronized (this) {
+            Integer parentId = ids.get(parentInternalName);
+
+            if (parentId != null && ancestors.get(childId).get(parentId)) {
+                return SUBTYPE;
+            }
+
+            return complete.get(childId) ? NOT_SUBTYPE : UNKNOWN;
+        }
+    }
+
+    protected int resolve(TypeMaker typeMaker, String internalTypeName) {
+        if (internalTypeName == null) {
+            return -1;
+        }
+
+        synchronized (this) {
+            Integer id = ids.get(internalTypeName);
+
+            if (id != null) {
+                return id;
+            }
+        }
+
+        // Load the missing types of the hierarchy without holding the lock, then publish their rows
+        Map<String, TypeMaker.TypeTypes> loadedTypeTypes = new HashMap<>();
+
+        load(typeMaker, loadedTypeTypes, internalTypeName);
+
+        synchronized (this) {
+            return publish(loadedTypeTypes, internalTypeName);
+        }
+    }
+
+    private void load(TypeMaker typeMaker, Map<String, TypeMaker.TypeTypes> loadedTypeTypes, String internalTypeName) {
+        if (internalTypeName == null || StringConstants.JAVA_LANG_OBJECT.equals(internalTypeName) || loadedTypeTypes.containsKey(internalTypeName) || isIndexed(internalTypeName)) {
+            return;
+        }
+
+        TypeMaker.TypeTypes typeTypes = typeMaker.makeTypeTypes(internalTypeName);
+
+        loadedTypeTypes.put(internalTypeName, typeTypes);
+
+        if (typeTypes != null) {
+            ObjectType superType = typeTypes.getSuperType();
+
+            if (superType != null) {
+                load(typeMaker, loadedTypeTypes, superType.getInternalName());
+            }
+
+            BaseType interfaces = typeTypes.getInterfaces();
+
+            if (interfaces != null) {
+                for (Type interfaceType : interfaces) {
+                    load(typeMaker, loadedTypeTypes, interfaceType.getInternalName());
+                }
+            }
+        }
+    }
+
+    private synchronized boolean isIndexed(String internalTypeName) {
+        return ids.containsKey(internalTypeName);
+    }
+
+    /**
+     * Must be called with the lock held: the types missing from the index were loaded in 'loadedTypeTypes'.
+     */
+    private int publish(Map<String, TypeMaker.TypeTypes> loadedTypeTypes, String internalTypeName) {
+        if (internalTypeName == null) {
+            return -1;
+        }
+
+        Integer id = ids.get(internalTypeName);
+
+        if (id != null) {
+            return id;
+        }
+
+        int newId = ancestors.size();
+        BitSet set = new BitSet();
+
+        set.set(newId);
+        ids.put(internalTypeName, newId);
+        ancestors.add(set);
+        inProgress.set(newId);
+
+        boolean resolved = true;
+
+        if (!StringConstants.JAVA_LANG_OBJECT.equals(internalTypeName)) {
+            TypeMaker.TypeTypes typeTypes = loadedTypeTypes.get(internalTypeName);
+
+            if (typeTypes == null) {
+                resolved = false;
+            } else {
+                ObjectType superType = typeTypes.getSuperType();
+
+                if (superType != null) {
+                    resolved = merge(loadedTypeTypes, set, superType.getInternalName());
+                }
+
+                BaseType interfaces = typeTypes.getInterfaces();
+
+                if (interfaces != null) {
+                    for (Type interfaceType : interfaces) {
+                        resolved &= merge(loadedTypeTypes, set, interfaceType.getInternalName());
+                    }
+                }
+            }
+        }
+
+        inProgress.clear(newId);
+
+        if (resolved) {
+            complete.set(newId);
+        }
+
+        return newId;
+    }
+
+    private boolean merge(Map<String, TypeMaker.TypeTypes> loadedTypeTypes, BitSet set, String internalTypeName) {
+        int id = publish(loadedTypeTypes, internalTypeName);
+
+        if (id == -1 || inProgress.get(id)) {
+            return false;
+        }
+
+        set.or(ancestors.get(id));
+        return complete.get(id);
+    }
+}
@@ -76,6 +76,7 @@ import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.e
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.expression.ClassFileMethodInvocationExpression;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.expression.ClassFileNewExpression;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.expression.ClassFileSuperConstructorInvocationExpression;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeHierarchyIndex;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker.TypeTypes;
 import org.jd.core.v1.util.DefaultList;
@@ -99,6 +100,7 @@ public class AddCastExpressionVisitor extends AbstractJavaSyntaxVisitor {
     private final SearchFirstLineNumberVisitor searchFirstLineNumberVisitor = new SearchFirstLineNumberVisitor();
 
     private final TypeMaker typeMaker;
+    private final TypeHierarchyIndex typeHierarchyIndex;
     private Map<String, BaseType> typeBounds;
     private Type returnedType;
     private BaseType exceptionTypes;
@@ -114,6 +116,7 @@ public class AddCastExpressionVisitor extends AbstractJavaSyntaxVisitor {
 
     public AddCastExpressionVisitor(TypeMaker typeMaker) {
         this.typeMaker = typeMaker;
+        this.typeHierarchyIndex = TypeHierarchyIndex.getInstance(typeMaker);
     }
     
     @Override
@@ -463,8 +466,8 @@ public class AddCastExpressionVisitor extends AbstractJavaSyntaxVisitor {
             boolean forceCast = !unique && typeMaker.matchCount(Collections.emptyMap(), typeBounds, expression.getObjectType().getInternalName(), StringConstants.INSTANCE_CONSTRUCTOR, parameters, true) > 1;
             Type currentType = type == null ? returnedType : type;
             boolean rawCast = (currentType instanceof ObjectType && expression.getType() instanceof ObjectType
-                    && typeMaker.isRawTypeAssignable((ObjectType) currentType, expression.getObjectType())
-                    && !typeMaker.isAssignable(typeBounds, (ObjectType) currentType, expression.getObjectType()));
+                    && typeHierarchyIndex.isRawTypeAssignable(typeMaker, (ObjectType) currentType, expression.getObjectType())
+                    && !typeHierarchyIndex.isAssignable(typeMaker, typeBounds, (ObjectType) currentType, expression.getObjectType()));
             if (rawCast) {
                 expression.setObjectType(expression.getObjectType().createType(((ObjectType) currentType).getTypeArguments()));
             }
@@ -18,6 +18,7 @@ import org.jd.core.v1.model.javasyntax.declaration.InterfaceDeclaration;
 import org.jd.core.v1.model.javasyntax.declaration.TypeDeclaration;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileBodyDeclaration;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileEnumDeclaration;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ClassFileFeatures;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 
 public class UpdateJavaSyntaxTreeStep2Visitor extends AbstractJavaSyntaxVisitor {
@@ -56,7 +57,7 @@ public class UpdateJavaSyntaxTreeStep2Visitor extends AbstractJavaSyntaxVisitor
         // Init bindTypeArgumentVisitor
         initStaticFieldVisitor.setInternalTypeName(typeDeclaration.getInternalTypeName());
 
-        // Visit declaration
+        // Visit declaration: each pass reads the member lists updated by the previous ones
         initInnerClassStep2Visitor.visit(declaration);
         initStaticFieldVisitor.visit(declaration);
         initInstanceFieldVisitor.visit(declaration);
@@ -65,14 +66,16 @@ public class UpdateJavaSyntaxTreeStep2Visitor extends AbstractJavaSyntaxVisitor
         SORT_MEMBERS_VISITOR.visit(declaration);
 
         if (bodyDeclaration.isMainBodyDeclaration()) {
-            if (bodyDeclaration.hasInnerTypeDeclarations() && replaceBridgeMethodVisitor.init(bodyDeclaration)) {
+            if (bodyDeclaration.hasInnerTypeDeclarations() && bodyDeclaration.hasFeature(ClassFileFeatures.BRIDGE_METHOD) && replaceBridgeMethodVisitor.init(bodyDeclaration)) {
                 // Replace bridge method invocation
                 replaceBridgeMethodVisitor.visit(bodyDeclaration);
             }
             // Add cast expressions
             addCastExpressionVisitor.visit(declaration);
-            // Autoboxing
-            AUTOBOXING_VISITOR.visit(declaration);
+            if (bodyDeclaration.hasFeature(ClassFileFeatures.AUTOBOXING)) {
+                // Autoboxing
+                AUTOBOXING_VISITOR.visit(declaration);
+            }
         }
     }
 
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.deserializer.classfile;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.ConstantUtf8;
+import org.apache.bcel.classfile.Field;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class file parser equivalent to BCEL's ClassParser, except that the 'Code' attributes of the methods
+ * are skipped and decoded on demand by {@link LazyCodeMethod}. The bodies, exception tables, line
+ * number and local variable tables of the methods which are never read are not decoded.
+ */
+public final class LazyClassParser {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private LazyClassParser() {
+        super();
+    }
+
+    public static JavaClass parse(byte[] data, String fileName) throws IOException {
+        Input input = new Input(data);
+
+        try (DataInputStream in = new DataInputStream(input)) {
+            if (in.readInt() != MAGIC) {
+                throw new ClassFileFormatException(fileName + " is not a Java class file");
+            }
+
+            int minor = in.readUnsignedShort();
+            int major = in.readUnsignedShort();
+            ConstantPool constantPool = new ConstantPool(in);
+            int accessFlags = in.readUnsignedShort();
+            int classNameIndex = in.readUnsignedShort();
+            int superclassNameIndex = in.readUnsignedShort();
+            int[] interfaces = new int[in.readUnsignedShort()];
+
+            for (int i=0; i<interfaces.length; i++) {
+                interfaces[i] = in.readUnsignedShort();
+            }
+
+            Field[] fields = new Field[in.readUnsignedShort()];
+
+            for (int i=0; i<fields.length; i++) {
+                fields[i] = new Field(in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedShort(), readAttributes(in, constantPool), constantPool);
+            }
+
+            Method[] methods = new Method[in.readUnsignedShort()];
+
+            for (int i=0; i<methods.length; i++) {
+                methods[i] = readMethod(input, in, data, constantPool);
+            }
+
+            Attribute[] attributes = readAttributes(in, constantPool);
+
+            return new JavaClass(classNameIndex, superclassNameIndex, fileName, major, minor, accessFlags, constantPool, interfaces, fields, methods, attributes);
+        }
+    }
+
+    private static Method readMethod(Input input, DataInputStream in, byte[] data, ConstantPool constantPool) throws IOException {
+        int accessFlags = in.readUnsignedShort();
+        int nameIndex = in.readUnsignedShort();
+        int signatureIndex = in.readUnsignedShort();
+        int count = in.readUnsignedShort();
+        List<Attribute> attributes = new ArrayList<>(count);
+        int codeOffset = -1;
+        int codeLength = 0;
+        int codeIndex = 0;
+
+        for (int i=0; i<count; i++) {
+            int offset = input.position();
+            ConstantUtf8 name = constantPool.getConstant(readUnsignedShort(data, offset), Const.CONSTANT_Utf8);
+
+            if ((codeOffset == -1) && "Code".equals(name.getBytes())) {
+                // Skip the name index, the length and the content
+                codeOffset = offset;
+                codeLength = 6 + readInt(data, offset + 2);
+                codeIndex = attributes.size();
+                in.skipBytes(codeLength);
+            } else {
+                attributes.add(Attribute.readAttribute(in, constantPool));
+            }
+        }
+
+        Attribute[] array = attributes.toArray(new Attribute[0]);
+
+        if (codeOffset == -1) {
+            return new Method(accessFlags, nameIndex, signatureIndex, array, constantPool);
+        }
+        return new LazyCodeMethod(accessFlags, nameIndex, signatureIndex, array, constantPool, data, codeOffset, codeLength, codeIndex);
+    }
+
+    private static Attribute[] readAttributes(DataInputStream in, ConstantPool constantPool) throws IOException {
+        Attribute[] attributes = new Attribute[in.readUnsignedShort()];
+
+        for (int i=0; i<attributes.length; i++) {
+            attributes[i] = Attribute.readAttribute(in, constantPool);
+        }
+
+        return attributes;
+    }
+
+    private static int readUnsignedShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset+1] & 0xFF);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (readUnsignedShort(data, offset) << 16) | readUnsignedShort(data, offset + 2);
+    }
+
+    private static class Input extends ByteArrayInputStream {
+        public Input(byte[] data) {
+            super(data);
+        }
+
+        public int position() {
+            return pos;
+        }
+    }
+}
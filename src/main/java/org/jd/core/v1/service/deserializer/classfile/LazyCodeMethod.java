@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.deserializer.classfile;
+
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.Method;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Method keeping its 'Code' attribute as a slice of the class file, decoded by the first call to
+ * {@link #getCode()}. Until then, {@link #getAttributes()} does not contain the 'Code' attribute.
+ */
+public class LazyCodeMethod extends Method {
+    private volatile byte[] data;
+    private final int offset;
+    private final int length;
+    private final int codeIndex;
+
+    /**
+     * @param offset    offset of the 'Code' attribute in 'data', name index included
+     * @param length    length of the 'Code' attribute, header included
+     * @param codeIndex index of the 'Code' attribute in the attributes of the method
+     */
+    public LazyCodeMethod(int accessFlags, int nameIndex, int signatureIndex, Attribute[] attributes, ConstantPool constantPool,
+                          byte[] data, int offset, int length, int codeIndex) {
+        super(accessFlags, nameIndex, signatureIndex, attributes, constantPool);
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.codeIndex = codeIndex;
+    }
+
+    @Override
+    public Code getCode() {
+        if (data != null) {
+            decodeCode();
+        }
+        return super.getCode();
+    }
+
+    public boolean isCodeDecoded() {
+        return data == null;
+    }
+
+    protected synchronized void decodeCode() {
+        if (data != null) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+                Attribute[] attributes = getAttributes();
+                Attribute[] newAttributes = new Attribute[attributes.length + 1];
+
+                System.arraycopy(attributes, 0, newAttributes, 0, codeIndex);
+                newAttributes[codeIndex] = Attribute.readAttribute(in, getConstantPool());
+                System.arraycopy(attributes, codeIndex, newAttributes, codeIndex + 1, attributes.length - codeIndex);
+                setAttributes(newAttributes);
+            } catch (IOException e) {
+                throw new ClassFileFormatException("Invalid Code attribute in method " + getName() + ": " + e.getMessage());
+            }
+
+            data = null;
+        }
+    }
+}
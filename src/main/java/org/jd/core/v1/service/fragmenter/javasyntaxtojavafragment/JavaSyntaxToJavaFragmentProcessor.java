@@ -8,12 +8,13 @@
 package org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment;
 
 import org.jd.core.v1.api.loader.Loader;
-import org.jd.core.v1.model.javafragment.ImportsFragment;
 import org.jd.core.v1.model.javasyntax.CompilationUnit;
 import org.jd.core.v1.model.message.DecompileContext;
 import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.visitor.CompilationUnitVisitor;
 import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.visitor.SearchImportsVisitor;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Convert a Java syntax model to a list of fragments.<br><br>
  *
@@ -23,17 +24,26 @@ import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.visitor.Search
 public class JavaSyntaxToJavaFragmentProcessor {
 
     public void process(CompilationUnit compilationUnit, DecompileContext decompileContext) {
+        process(compilationUnit, decompileContext, null);
+    }
+
+    /**
+     * @param executor executor of the parallel fragments mode, null to build the fragments in the calling thread
+     */
+    public void process(CompilationUnit compilationUnit, DecompileContext decompileContext, ExecutorService executor) {
         Loader loader = decompileContext.getLoader();
         String mainInternalTypeName = decompileContext.getMainInternalTypeName();
         int majorVersion = decompileContext.getMajorVersion();
 
+        // Imports and max line number are collected by the fragment visitor, in a single pass
         SearchImportsVisitor importsVisitor = new SearchImportsVisitor(loader, mainInternalTypeName);
-        importsVisitor.visit(compilationUnit);
-        ImportsFragment importsFragment = importsVisitor.getImportsFragment();
-        decompileContext.setMaxLineNumber(importsVisitor.getMaxLineNumber());
+        CompilationUnitVisitor visitor = new CompilationUnitVisitor(loader, mainInternalTypeName, majorVersion, importsVisitor);
 
-        CompilationUnitVisitor visitor = new CompilationUnitVisitor(loader, mainInternalTypeName, majorVersion, importsFragment);
+        importsVisitor.setStringPool(decompileContext.getStringPool());
+        visitor.setStringPool(decompileContext.getStringPool());
+        visitor.setExecutor(executor);
         visitor.visit(compilationUnit);
+        decompileContext.setMaxLineNumber(visitor.getMaxLineNumber());
         decompileContext.setBody(visitor.getFragments());
     }
 }
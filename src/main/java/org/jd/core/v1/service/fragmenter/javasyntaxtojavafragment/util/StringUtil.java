@@ -8,6 +8,22 @@
 package org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.util;
 
 public final class StringUtil {
+    /** Escape sequences of the characters to escape, indexed by character. */
+    private static final String[] ESCAPES = new String['\\' + 1];
+
+    static {
+        for (int c = 0; c < ' '; c++) {
+            ESCAPES[c] = "\\0" + (char) ('0' + (c >> 3)) + (char) ('0' + (c & 7));
+        }
+
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['"'] = "\\\"";
+    }
 
     private StringUtil() {
         super();
@@ -15,55 +31,33 @@ public final class StringUtil {
 
     public static String escapeString(String s) {
         int length = s.length();
+        int i = 0;
 
-        for (int i = 0; i < length; i++) {
-            char c = s.charAt(i);
-
-            if (c == '\\' || c == '"' || c < ' ') {
-                StringBuilder sb = new StringBuilder(length * 2);
+        while (i < length && !isEscaped(s.charAt(i))) {
+            i++;
+        }
 
-                sb.append(s.substring(0, i));
+        if (i == length) {
+            return s;
+        }
 
-                for (; i < length; i++) {
-                    c = s.charAt(i);
+        StringBuilder sb = new StringBuilder(length * 2);
+        int start = 0;
 
-                    switch (c) {
-                        case '\\':
-                            sb.append("\\\\");
-                            break;
-                        case '\b':
-                            sb.append("\\b");
-                            break;
-                        case '\f':
-                            sb.append("\\f");
-                            break;
-                        case '\n':
-                            sb.append("\\n");
-                            break;
-                        case '\r':
-                            sb.append("\\r");
-                            break;
-                        case '\t':
-                            sb.append("\\t");
-                            break;
-                        case '"':
-                            sb.append("\\\"");
-                            break;
-                        default:
-                            if (c < ' ') {
-                                sb.append("\\0");
-                                sb.append((char)('0' + (c >> 3)));
-                                sb.append((char)('0' + (c & 7)));
-                            } else {
-                                sb.append(c);
-                            }
-                    }
-                }
+        for (; i < length; i++) {
+            char c = s.charAt(i);
 
-                return sb.toString();
+            if (isEscaped(c)) {
+                // Append the run of unescaped characters at once
+                sb.append(s, start, i).append(ESCAPES[c]);
+                start = i + 1;
             }
         }
 
-        return s;
+        return sb.append(s, start, length).toString();
+    }
+
+    private static boolean isEscaped(char c) {
+        return c < ESCAPES.length && ESCAPES[c] != null;
     }
 }
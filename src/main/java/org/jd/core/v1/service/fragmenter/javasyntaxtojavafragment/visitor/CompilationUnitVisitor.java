@@ -59,19 +59,22 @@ import org.jd.core.v1.model.javasyntax.type.BaseType;
 import org.jd.core.v1.model.javasyntax.type.BaseTypeParameter;
 import org.jd.core.v1.model.javasyntax.type.ObjectType;
 import org.jd.core.v1.model.javasyntax.type.Type;
-import org.jd.core.v1.model.token.DeclarationToken;
 import org.jd.core.v1.model.token.EndBlockToken;
 import org.jd.core.v1.model.token.EndMarkerToken;
 import org.jd.core.v1.model.token.KeywordToken;
 import org.jd.core.v1.model.token.NewLineToken;
-import org.jd.core.v1.model.token.ReferenceToken;
 import org.jd.core.v1.model.token.StartBlockToken;
 import org.jd.core.v1.model.token.StartMarkerToken;
 import org.jd.core.v1.model.token.TextToken;
 import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.util.JavaFragmentFactory;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static org.apache.bcel.Const.ACC_ABSTRACT;
 import static org.apache.bcel.Const.ACC_BRIDGE;
@@ -113,12 +116,25 @@ public class CompilationUnitVisitor extends StatementVisitor {
 
     private final AnnotationVisitor annotationVisitor = new AnnotationVisitor();
     private final SingleLineStatementVisitor singleLineStatementVisitor = new SingleLineStatementVisitor();
+    private final Loader loader;
     private final String mainInternalName;
+    private final int majorVersion;
     private boolean emptyConstants;
+    private ExecutorService executor;
 
-    public CompilationUnitVisitor(Loader loader, String mainInternalTypeName, int majorVersion, ImportsFragment importsFragment) {
-        super(loader, mainInternalTypeName, majorVersion, importsFragment);
+    public CompilationUnitVisitor(Loader loader, String mainInternalTypeName, int majorVersion, SearchImportsVisitor importsVisitor) {
+        super(loader, mainInternalTypeName, majorVersion, importsVisitor);
+        this.loader = loader;
         this.mainInternalName = mainInternalTypeName;
+        this.majorVersion = majorVersion;
+    }
+
+    /**
+     * @param executor executor building the fragments of the members of the top level types in
+     *                 parallel, null to build them in the calling thread. The loader must be thread-safe.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
     }
 
     @Override
@@ -373,19 +389,26 @@ public class CompilationUnitVisitor extends StatementVisitor {
             JavaFragmentFactory.addSpacerAfterPackage(fragments);
         }
 
-        // Add fragment for imports
-        if (!importsFragment.isEmpty()) {
-            fragments.add(importsFragment);
+        // The imports are collected during the visit, see 'newTypeReferenceToken'
+        int importsIndex = fragments.size();
 
-            if (!fragments.isEmpty()) {
-                JavaFragmentFactory.addSpacerAfterImports(fragments);
-            }
-        }
+        importsVisitor.searchLocalTypeNames(compilationUnit);
 
         JavaFragmentFactory.addSpacerBeforeMainDeclaration(fragments);
 
         // Visit all compilation unit
         super.visit(compilationUnit);
+
+        // Add fragment for imports
+        importsFragment.initLineCounts();
+
+        if (!importsFragment.isEmpty()) {
+            Fragments importsFragments = new Fragments();
+
+            importsFragments.add(importsFragment);
+            JavaFragmentFactory.addSpacerAfterImports(importsFragments);
+            fragments.addAll(importsIndex, importsFragments);
+        }
     }
 
     @Override
@@ -422,7 +445,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
                 }
 
                 // Build token for type declaration
-                tokens.add(new DeclarationToken(Printer.CONSTRUCTOR, getCurrentTypeInternalName(), currentTypeName, declaration.getDescriptor()));
+                tokens.add(newDeclarationToken(Printer.CONSTRUCTOR, getCurrentTypeInternalName(), currentTypeName, declaration.getDescriptor()));
 
                 storeContext();
                 currentMethodParamNames.clear();
@@ -649,7 +672,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
 
         // Build token for type declaration
         tokens.addLineNumberToken(declaration.getLineNumber());
-        tokens.add(new DeclarationToken(Printer.FIELD, getCurrentTypeInternalName(), declaration.getName(), 'L' + currentType.getInternalName() + ';'));
+        tokens.add(newDeclarationToken(Printer.FIELD, getCurrentTypeInternalName(), declaration.getName(), 'L' + currentType.getInternalName() + ';'));
 
         storeContext();
         currentMethodParamNames.clear();
@@ -723,7 +746,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
 
         tokens = new Tokens();
         tokens.add(TextToken.SPACE);
-        tokens.add(new DeclarationToken(Printer.FIELD, getCurrentTypeInternalName(), fieldDeclarator.getName(), descriptor));
+        tokens.add(newDeclarationToken(Printer.FIELD, getCurrentTypeInternalName(), fieldDeclarator.getName(), descriptor));
 
         if ((variableInitializer != null)) {
             tokens.add(TextToken.SPACE_EQUAL_SPACE);
@@ -866,7 +889,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
 
         tokens.add(MODULE);
         tokens.add(TextToken.SPACE);
-        tokens.add(new DeclarationToken(Printer.MODULE, declaration.getInternalTypeName(), declaration.getName(), null));
+        tokens.add(newDeclarationToken(Printer.MODULE, declaration.getInternalTypeName(), declaration.getName(), null));
         fragments.addTokensFragment(tokens);
 
         StartBodyFragment start = JavaFragmentFactory.addStartTypeBody(fragments);
@@ -954,14 +977,14 @@ public class CompilationUnitVisitor extends StatementVisitor {
         }
 
         tokens.add(TextToken.SPACE);
-        tokens.add(new ReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfo.name()));
+        tokens.add(newReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfo.name()));
         tokens.add(TextToken.SEMICOLON);
     }
 
     protected void visitModuleDeclaration(ModuleDeclaration.PackageInfo packageInfo, KeywordToken keywordToken) {
         tokens.add(keywordToken);
         tokens.add(TextToken.SPACE);
-        tokens.add(new ReferenceToken(Printer.PACKAGE, packageInfo.internalName(), packageInfo.internalName().replace('/', '.')));
+        tokens.add(newReferenceToken(Printer.PACKAGE, packageInfo.internalName(), packageInfo.internalName().replace('/', '.')));
 
         if (packageInfo.moduleInfoNames() != null && !packageInfo.moduleInfoNames().isEmpty()) {
             tokens.add(TextToken.SPACE);
@@ -970,7 +993,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
             if (packageInfo.moduleInfoNames().size() == 1) {
                 tokens.add(TextToken.SPACE);
                 String moduleInfoName = packageInfo.moduleInfoNames().get(0);
-                tokens.add(new ReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfoName));
+                tokens.add(newReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfoName));
             } else {
                 tokens.add(StartBlockToken.START_DECLARATION_OR_STATEMENT_BLOCK);
                 tokens.add(NewLineToken.NEWLINE_1);
@@ -978,13 +1001,13 @@ public class CompilationUnitVisitor extends StatementVisitor {
                 Iterator<String> iterator = packageInfo.moduleInfoNames().iterator();
 
                 String moduleInfoName = iterator.next();
-                tokens.add(new ReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfoName));
+                tokens.add(newReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfoName));
 
                 while (iterator.hasNext()) {
                     tokens.add(TextToken.COMMA);
                     tokens.add(NewLineToken.NEWLINE_1);
                     moduleInfoName = iterator.next();
-                    tokens.add(new ReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfoName));
+                    tokens.add(newReferenceToken(Printer.MODULE, MODULE_INFO, moduleInfoName));
                 }
 
                 tokens.add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
@@ -997,7 +1020,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
     protected void visitModuleDeclaration(String internalTypeName) {
         tokens.add(USES);
         tokens.add(TextToken.SPACE);
-        tokens.add(new ReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
+        tokens.add(newReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
         tokens.add(TextToken.SEMICOLON);
     }
 
@@ -1005,14 +1028,14 @@ public class CompilationUnitVisitor extends StatementVisitor {
         tokens.add(PROVIDES);
         tokens.add(TextToken.SPACE);
         String internalTypeName = serviceInfo.interfaceTypeName();
-        tokens.add(new ReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
+        tokens.add(newReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
         tokens.add(TextToken.SPACE);
         tokens.add(WITH);
 
         if (serviceInfo.implementationTypeNames().size() == 1) {
             tokens.add(TextToken.SPACE);
             internalTypeName = serviceInfo.implementationTypeNames().get(0);
-            tokens.add(new ReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
+            tokens.add(newReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
         } else {
             tokens.add(StartBlockToken.START_DECLARATION_OR_STATEMENT_BLOCK);
             tokens.add(NewLineToken.NEWLINE_1);
@@ -1020,13 +1043,13 @@ public class CompilationUnitVisitor extends StatementVisitor {
             Iterator<String> iterator = serviceInfo.implementationTypeNames().iterator();
 
             internalTypeName = iterator.next();
-            tokens.add(new ReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
+            tokens.add(newReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
 
             while (iterator.hasNext()) {
                 tokens.add(TextToken.COMMA);
                 tokens.add(NewLineToken.NEWLINE_1);
                 internalTypeName = iterator.next();
-                tokens.add(new ReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
+                tokens.add(newReferenceToken(Printer.TYPE, internalTypeName, internalTypeName.replace('/', '.')));
             }
 
             tokens.add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
@@ -1082,7 +1105,10 @@ public class CompilationUnitVisitor extends StatementVisitor {
     public void visit(MemberDeclarations list) {
         int size = list.size();
 
-        if (size > 0) {
+        if (executor != null && size > 1 && contextStack.size() == 1 && !inExpressionFlag && !emptyConstants) {
+            // Members of a top level type
+            visitInParallel(list);
+        } else if (size > 0) {
             int fragmentCount2 = fragments.size();
             Iterator<MemberDeclaration> iterator = list.iterator();
 
@@ -1107,6 +1133,93 @@ public class CompilationUnitVisitor extends StatementVisitor {
         }
     }
 
+    /**
+     * Build the fragments of each member into a separate visitor on the executor, then concatenate
+     * them in declaration order, as {@link #visit(MemberDeclarations)} does. The result is identical
+     * to the sequential visit: the referenced types are passed to the imports collector in declaration
+     * order, and a member is visited again when the line numbers of the previous members would have
+     * filtered its first line number.
+     */
+    protected void visitInParallel(MemberDeclarations list) {
+        List<Future<CompilationUnitVisitor>> futures = new ArrayList<>(list.size());
+
+        for (MemberDeclaration member : list) {
+            futures.add(executor.submit(() -> visitMember(member, UNKNOWN_LINE_NUMBER)));
+        }
+
+        Iterator<MemberDeclaration> iterator = list.iterator();
+        int fragmentCount0 = fragments.size();
+        int fragmentCount1 = -1;
+        int fragmentCount2 = fragmentCount0;
+
+        for (int i = 0; i < futures.size(); i++) {
+            MemberDeclaration member = iterator.next();
+            CompilationUnitVisitor visitor = getVisitor(futures.get(i));
+            int firstLineNumber = visitor.getFirstLineNumber();
+
+            if (firstLineNumber != UNKNOWN_LINE_NUMBER && firstLineNumber < getMaxLineNumber()) {
+                visitor = visitMember(member, getMaxLineNumber());
+            }
+
+            if (i > 0 && fragmentCount2 < fragments.size()) {
+                fragmentCount1 = fragments.size();
+                JavaFragmentFactory.addSpacerBetweenMembers(fragments);
+                fragmentCount2 = fragments.size();
+            }
+
+            for (ObjectType type : ((RecordingImportsVisitor)visitor.importsVisitor).types) {
+                importsVisitor.add(type);
+            }
+
+            fragments.addAll(visitor.fragments);
+            setMaxLineNumber(Math.max(getMaxLineNumber(), visitor.getMaxLineNumber()));
+        }
+
+        if (fragmentCount1 != -1 && fragmentCount2 == fragments.size()) {
+            fragments.subList(fragmentCount1, fragments.size()).clear();
+        }
+
+        if (fragmentCount0 < fragments.size()) {
+            tokens = new Tokens();
+        }
+    }
+
+    protected CompilationUnitVisitor visitMember(MemberDeclaration member, int maxLineNumber) {
+        RecordingImportsVisitor recordingImportsVisitor = new RecordingImportsVisitor(loader, mainInternalName, importsFragment);
+        CompilationUnitVisitor visitor = new CompilationUnitVisitor(loader, mainInternalName, majorVersion, recordingImportsVisitor);
+
+        visitor.currentType = currentType;
+        visitor.currentTypeName = currentTypeName;
+        visitor.currentMethodName = currentMethodName;
+        visitor.currentMethodParamNames = new HashSet<>(currentMethodParamNames);
+        visitor.parameterTypeCount = parameterTypeCount;
+        visitor.tokens = visitor.new Tokens();
+        visitor.setMaxLineNumber(maxLineNumber);
+        visitor.setStringPool(stringPool);
+
+        member.accept(visitor);
+
+        return visitor;
+    }
+
+    protected static CompilationUnitVisitor getVisitor(Future<CompilationUnitVisitor> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
     @Override
     public void visit(MethodDeclaration declaration) {
         if ((declaration.getFlags() & (ACC_SYNTHETIC | ACC_BRIDGE)) == 0) {
@@ -1143,7 +1256,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
             tokens.add(TextToken.SPACE);
 
             // Build token for type declaration
-            tokens.add(new DeclarationToken(Printer.METHOD, getCurrentTypeInternalName(), declaration.getName(), declaration.getDescriptor()));
+            tokens.add(newDeclarationToken(Printer.METHOD, getCurrentTypeInternalName(), declaration.getName(), declaration.getDescriptor()));
 
             storeContext();
             currentMethodParamNames.clear();
@@ -1280,7 +1393,7 @@ public class CompilationUnitVisitor extends StatementVisitor {
         tokens.add(TextToken.SPACE);
 
         // Build token for type declaration
-        tokens.add(new DeclarationToken(Printer.TYPE, declaration.getInternalTypeName(), declaration.getName(), null));
+        tokens.add(newDeclarationToken(Printer.TYPE, declaration.getInternalTypeName(), declaration.getName(), null));
     }
 
     protected void buildFragmentsForClassOrInterfaceDeclaration(InterfaceDeclaration declaration, int flags, KeywordToken keyword) {
@@ -1421,6 +1534,30 @@ public class CompilationUnitVisitor extends StatementVisitor {
         }
     }
 
+    /**
+     * Imports collector of a member visited in parallel: the referenced types are recorded, then
+     * passed to the collector of the compilation unit in declaration order.
+     */
+    protected static class RecordingImportsVisitor extends SearchImportsVisitor {
+        private final ImportsFragment importsFragment;
+        private final List<ObjectType> types = new ArrayList<>();
+
+        public RecordingImportsVisitor(Loader loader, String mainInternalName, ImportsFragment importsFragment) {
+            super(loader, mainInternalName);
+            this.importsFragment = importsFragment;
+        }
+
+        @Override
+        public ImportsFragment getImportsFragment() {
+            return importsFragment;
+        }
+
+        @Override
+        public void add(ObjectType type) {
+            types.add(type);
+        }
+    }
+
     protected class AnnotationVisitor extends AbstractJavaSyntaxVisitor {
         @Override
         public void visit(AnnotationReferences<? extends AnnotationReference> list) {
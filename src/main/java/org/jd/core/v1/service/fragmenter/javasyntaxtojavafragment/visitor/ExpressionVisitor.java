@@ -9,7 +9,6 @@ package org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.visitor;
 import org.jd.core.v1.api.loader.Loader;
 import org.jd.core.v1.api.printer.Printer;
 import org.jd.core.v1.model.fragment.Fragment;
-import org.jd.core.v1.model.javafragment.ImportsFragment;
 import org.jd.core.v1.model.javafragment.LineNumberTokensFragment;
 import org.jd.core.v1.model.javafragment.StartBlockFragment;
 import org.jd.core.v1.model.javafragment.StartBodyFragment;
@@ -71,7 +70,6 @@ import org.jd.core.v1.model.token.EndBlockToken;
 import org.jd.core.v1.model.token.EndMarkerToken;
 import org.jd.core.v1.model.token.KeywordToken;
 import org.jd.core.v1.model.token.NumericConstantToken;
-import org.jd.core.v1.model.token.ReferenceToken;
 import org.jd.core.v1.model.token.StartBlockToken;
 import org.jd.core.v1.model.token.StartMarkerToken;
 import org.jd.core.v1.model.token.StringConstantToken;
@@ -125,8 +123,8 @@ public class ExpressionVisitor extends TypeVisitor {
     private final int majorVersion;
 
 
-    public ExpressionVisitor(Loader loader, String mainInternalTypeName, int majorVersion, ImportsFragment importsFragment) {
-        super(loader, mainInternalTypeName, majorVersion, importsFragment);
+    public ExpressionVisitor(Loader loader, String mainInternalTypeName, int majorVersion, SearchImportsVisitor importsVisitor) {
+        super(loader, mainInternalTypeName, majorVersion, importsVisitor);
         this.majorVersion = majorVersion;
     }
 
@@ -254,7 +252,7 @@ public class ExpressionVisitor extends TypeVisitor {
 
         ObjectType type = expression.getObjectType();
 
-        tokens.add(new ReferenceToken(Printer.FIELD, type.getInternalName(), expression.getName(), type.getDescriptor(), currentType));
+        tokens.add(newReferenceToken(Printer.FIELD, type.getInternalName(), expression.getName(), type.getDescriptor(), currentType));
     }
 
     @Override
@@ -297,7 +295,7 @@ public class ExpressionVisitor extends TypeVisitor {
     public void visit(FieldReferenceExpression expression) {
         if (expression.getExpression() == null) {
             tokens.addLineNumberToken(expression);
-            tokens.add(new TextToken(expression.getName()));
+            tokens.add(newTextToken(expression.getName()));
         } else {
             tokens.addLineNumberToken(expression.getExpression());
 
@@ -317,7 +315,7 @@ public class ExpressionVisitor extends TypeVisitor {
                 tokens.add(TextToken.DOT);
             }
 
-            tokens.add(new ReferenceToken(Printer.FIELD, expression.getInternalTypeName(), expression.getName(), expression.getDescriptor(), currentType));
+            tokens.add(newReferenceToken(Printer.FIELD, expression.getInternalTypeName(), expression.getName(), expression.getDescriptor(), currentType));
         }
     }
 
@@ -335,7 +333,7 @@ public class ExpressionVisitor extends TypeVisitor {
 
         switch (pt.getJavaPrimitiveFlags()) {
             case FLAG_CHAR:
-                tokens.add(new CharacterConstantToken(CharacterUtil.escapeChar((char)expression.getIntegerValue()), getCurrentTypeInternalName()));
+                tokens.add(new CharacterConstantToken(CharacterUtil.escapeChar((char)expression.getIntegerValue()), intern(getCurrentTypeInternalName())));
                 break;
             case FLAG_BOOLEAN:
                 tokens.add(new BooleanConstantToken(expression.getIntegerValue() != 0));
@@ -511,7 +509,7 @@ public class ExpressionVisitor extends TypeVisitor {
             tokens.add(TextToken.RIGHTANGLEBRACKET);
         }
 
-        tokens.add(new ReferenceToken(Printer.METHOD, expression.getInternalTypeName(), expression.getName(), expression.getDescriptor(), currentType));
+        tokens.add(newReferenceToken(Printer.METHOD, expression.getInternalTypeName(), expression.getName(), expression.getDescriptor(), currentType));
         tokens.add(StartBlockToken.START_PARAMETERS_BLOCK);
 
         if (parameters != null) {
@@ -545,7 +543,7 @@ public class ExpressionVisitor extends TypeVisitor {
         }
         tokens.addLineNumberToken(expression);
         tokens.add(TextToken.COLON_COLON);
-        tokens.add(new ReferenceToken(Printer.METHOD, expression.getInternalTypeName(), expression.getName(), expression.getDescriptor(), currentType));
+        tokens.add(newReferenceToken(Printer.METHOD, expression.getInternalTypeName(), expression.getName(), expression.getDescriptor(), currentType));
     }
 
     @Override
@@ -728,7 +726,7 @@ public class ExpressionVisitor extends TypeVisitor {
     @Override
     public void visit(StringConstantExpression expression) {
         tokens.addLineNumberToken(expression);
-        tokens.add(new StringConstantToken(StringUtil.escapeString(expression.getStringValue()), getCurrentTypeInternalName()));
+        tokens.add(new StringConstantToken(StringUtil.escapeString(expression.getStringValue()), intern(getCurrentTypeInternalName())));
     }
 
     @Override
@@ -54,6 +54,7 @@ import org.jd.core.v1.model.javasyntax.reference.AnnotationElementValue;
 import org.jd.core.v1.model.javasyntax.reference.AnnotationReference;
 import org.jd.core.v1.model.javasyntax.type.BaseType;
 import org.jd.core.v1.model.javasyntax.type.ObjectType;
+import org.jd.core.v1.model.message.StringPool;
 import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.util.JavaFragmentFactory;
 
 import java.util.HashSet;
@@ -67,6 +68,7 @@ public class SearchImportsVisitor extends AbstractJavaSyntaxVisitor {
     private final Set<String> localTypeNames = new HashSet<>();
     private final Set<String> internalTypeNames = new HashSet<>();
     private final Set<String> importTypeNames = new HashSet<>();
+    private StringPool stringPool;
 
     public SearchImportsVisitor(Loader loader, String mainInternalName) {
         this.loader = loader;
@@ -74,6 +76,13 @@ public class SearchImportsVisitor extends AbstractJavaSyntaxVisitor {
         this.internalPackagePrefix = index == -1 ? "" : mainInternalName.substring(0, index + 1);
     }
 
+    /**
+     * @param stringPool pool interning the names of the imported types, null to keep them as is
+     */
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
     public ImportsFragment getImportsFragment() {
         importsFragment.initLineCounts();
         return importsFragment;
@@ -85,10 +94,18 @@ public class SearchImportsVisitor extends AbstractJavaSyntaxVisitor {
 
     @Override
     public void visit(CompilationUnit compilationUnit) {
-        compilationUnit.typeDeclarations().accept(new TypeVisitor(localTypeNames));
+        searchLocalTypeNames(compilationUnit);
         compilationUnit.typeDeclarations().accept(this);
     }
 
+    /**
+     * Collect the names of the types declared by 'compilationUnit', without visiting the members. Call
+     * it before {@link #add(ObjectType)} when the compilation unit is not visited.
+     */
+    public void searchLocalTypeNames(CompilationUnit compilationUnit) {
+        compilationUnit.typeDeclarations().accept(new TypeVisitor(localTypeNames));
+    }
+
     @Override
     public void visit(BodyDeclaration declaration) {
         if (!internalTypeNames.contains(declaration.getInternalTypeName())) {
@@ -376,7 +393,15 @@ public class SearchImportsVisitor extends AbstractJavaSyntaxVisitor {
         super.visit(expression);
     }
 
-    protected void add(ObjectType type) {
+    protected void addImport(String internalTypeName, String qualifiedName) {
+        if (stringPool == null) {
+            importsFragment.addImport(internalTypeName, qualifiedName);
+        } else {
+            importsFragment.addImport(stringPool.intern(internalTypeName), stringPool.intern(qualifiedName));
+        }
+    }
+
+    public void add(ObjectType type) {
         String descriptor = type.getDescriptor();
 
         if (descriptor.charAt(descriptor.length()-1) == ';') {
@@ -388,16 +413,16 @@ public class SearchImportsVisitor extends AbstractJavaSyntaxVisitor {
                 if (!importTypeNames.contains(typeName)) {
                     if (internalTypeName.startsWith("java/lang/")) {
                         if (internalTypeName.indexOf('/', 10) != -1 && !loader.canLoad(internalPackagePrefix + typeName)) { // 10 = "java/lang/".length()
-                            importsFragment.addImport(internalTypeName, type.getQualifiedName());
+                            addImport(internalTypeName, type.getQualifiedName());
                             importTypeNames.add(typeName);
                         }
                     } else if (internalTypeName.startsWith(internalPackagePrefix)) {
                         if (internalTypeName.indexOf('/', internalPackagePrefix.length()) != -1 && !localTypeNames.contains(typeName)) {
-                            importsFragment.addImport(internalTypeName, type.getQualifiedName());
+                            addImport(internalTypeName, type.getQualifiedName());
                             importTypeNames.add(typeName);
                         }
                     } else if (!localTypeNames.contains(typeName) && !loader.canLoad(internalPackagePrefix + typeName)) {
-                        importsFragment.addImport(internalTypeName, type.getQualifiedName());
+                        addImport(internalTypeName, type.getQualifiedName());
                         importTypeNames.add(typeName);
                     }
                 }
@@ -7,7 +7,6 @@
 package org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.visitor;
 
 import org.jd.core.v1.api.loader.Loader;
-import org.jd.core.v1.model.javafragment.ImportsFragment;
 import org.jd.core.v1.model.javafragment.StartSingleStatementBlockFragment;
 import org.jd.core.v1.model.javafragment.StartStatementsBlockFragment;
 import org.jd.core.v1.model.javafragment.TokensFragment;
@@ -72,8 +71,8 @@ public class StatementVisitor extends ExpressionVisitor {
     public static final KeywordToken VOLATILE = new KeywordToken("volatile");
     public static final KeywordToken WHILE = new KeywordToken("while");
 
-    public StatementVisitor(Loader loader, String mainInternalTypeName, int majorVersion, ImportsFragment importsFragment) {
-        super(loader, mainInternalTypeName, majorVersion, importsFragment);
+    public StatementVisitor(Loader loader, String mainInternalTypeName, int majorVersion, SearchImportsVisitor importsVisitor) {
+        super(loader, mainInternalTypeName, majorVersion, importsVisitor);
     }
 
     @Override
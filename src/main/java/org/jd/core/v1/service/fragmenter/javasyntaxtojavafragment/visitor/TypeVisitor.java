@@ -27,6 +27,8 @@ import org.jd.core.v1.model.javasyntax.type.Types;
 import org.jd.core.v1.model.javasyntax.type.WildcardExtendsTypeArgument;
 import org.jd.core.v1.model.javasyntax.type.WildcardSuperTypeArgument;
 import org.jd.core.v1.model.javasyntax.type.WildcardTypeArgument;
+import org.jd.core.v1.model.message.StringPool;
+import org.jd.core.v1.model.token.DeclarationToken;
 import org.jd.core.v1.model.token.KeywordToken;
 import org.jd.core.v1.model.token.LineNumberToken;
 import org.jd.core.v1.model.token.ReferenceToken;
@@ -35,6 +37,7 @@ import org.jd.core.v1.model.token.Token;
 import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
 import org.jd.core.v1.util.DefaultList;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,25 +79,53 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
 
     public static final int UNKNOWN_LINE_NUMBER = Printer.UNKNOWN_LINE_NUMBER;
 
+    /** Immutable operator tokens, shared by all the visitors. */
+    protected static final Map<String, TextToken> OPERATOR_TOKENS = createOperatorTokens(
+        "=", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<=", ">>=", ">>>=",
+        "+", "-", "*", "/", "%", "&", "|", "^", "<<", ">>", ">>>",
+        "&&", "||", "==", "!=", "<", ">", "<=", ">=", "!", "~", "++", "--");
+
     private final Loader loader;
     protected final TypeMaker typeMaker;
     private final String internalPackageName;
     private final boolean genericTypesSupported;
+    protected final SearchImportsVisitor importsVisitor;
     protected final ImportsFragment importsFragment;
     protected Tokens tokens;
     private int maxLineNumber;
+    private int firstLineNumber = UNKNOWN_LINE_NUMBER;
     protected ObjectType currentType;
     private final Map<String, TextToken> textTokenCache = new HashMap<>();
-
-    public TypeVisitor(Loader loader, String mainInternalTypeName, int majorVersion, ImportsFragment importsFragment) {
+    private final Map<ReferenceKey, ReferenceToken> referenceTokenCache = new HashMap<>();
+    // Reused to look up the cache without allocating a key
+    private final ReferenceKey referenceKeyProbe = new ReferenceKey();
+    protected StringPool stringPool;
+
+    /**
+     * @param importsVisitor collector of the imports, fed with the referenced types during the visit
+     */
+    public TypeVisitor(Loader loader, String mainInternalTypeName, int majorVersion, SearchImportsVisitor importsVisitor) {
         this.loader = loader;
         this.typeMaker = new TypeMaker(loader);
         this.genericTypesSupported = majorVersion >= MAJOR_1_5;
-        this.importsFragment = importsFragment;
+        this.importsVisitor = importsVisitor;
+        this.importsFragment = importsVisitor.getImportsFragment();
         int index = mainInternalTypeName.lastIndexOf('/');
         this.internalPackageName = index == -1 ? "" : mainInternalTypeName.substring(0, index+1);
     }
 
+    /**
+     * @param stringPool pool interning the names and descriptors of the declaration and reference
+     *                   tokens when they are created, null to keep them as is
+     */
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    protected String intern(String s) {
+        return stringPool == null ? s : stringPool.intern(s);
+    }
+
     @Override
     public void visit(TypeArguments arguments) {
         buildTokensForList(arguments, TextToken.COMMA_SPACE);
@@ -178,7 +209,7 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
         }
 
         // Build token for type reference
-        tokens.add(new ReferenceToken(Printer.TYPE, type.getInternalName(), type.getName(), null, currentType));
+        tokens.add(newReferenceToken(Printer.TYPE, type.getInternalName(), type.getName(), null, currentType));
 
         if (genericTypesSupported) {
             // Build token for type arguments
@@ -294,33 +325,50 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
         }
     }
 
+    public int getMaxLineNumber() {
+        return maxLineNumber;
+    }
+
+    protected void setMaxLineNumber(int maxLineNumber) {
+        this.maxLineNumber = maxLineNumber;
+    }
+
+    /**
+     * @return the first known line number passed to the tokens, filtered or not
+     */
+    protected int getFirstLineNumber() {
+        return firstLineNumber;
+    }
+
     protected ReferenceToken newTypeReferenceToken(ObjectType ot, ObjectType ownerType) {
-        String internalName = ot.getInternalName();
-        String qualifiedName = ot.getQualifiedName();
+        importsVisitor.add(ot);
+
+        String internalName = intern(ot.getInternalName());
+        String qualifiedName = intern(ot.getQualifiedName());
         
         int printerType = isInInvokeNew() ? Printer.CONSTRUCTOR : Printer.TYPE;
-        String name = ot.getName();
+        String name = intern(ot.getName());
         if (packageContainsType(internalPackageName, internalName)) {
             // In the current package
             if (ownerType != null && ownerType.getInnerTypeNames() != null) {
                 String innerTypeName = ownerType.getInternalName() + '$' + name;
                 if (ownerType.getInnerTypeNames().contains(innerTypeName)) {
-                    return new QualifiedReferenceToken(printerType, internalName, qualifiedName, null, ownerType);
+                    return new QualifiedReferenceToken(printerType, internalName, qualifiedName, null, intern(ownerType.getInternalName()));
                 }
-                return new ReferenceToken(printerType, internalName, name, null, ownerType);
+                return newReferenceToken(printerType, internalName, name, null, ownerType);
             }
-            return new ReferenceToken(printerType, internalName, name, null, ownerType);
+            return newReferenceToken(printerType, internalName, name, null, ownerType);
         }
         if (packageContainsType("java/lang/", internalName)) {
             // A 'java.lang' class
             String internalLocalTypeName = internalPackageName + name;
 
             if (loader.canLoad(internalLocalTypeName)) {
-                return new ReferenceToken(printerType, internalName, qualifiedName, null, ownerType);
+                return newReferenceToken(printerType, internalName, qualifiedName, null, ownerType);
             }
-            return new ReferenceToken(printerType, internalName, name, null, ownerType);
+            return newReferenceToken(printerType, internalName, name, null, ownerType);
         }
-        return new TypeReferenceToken(importsFragment, printerType, internalName, qualifiedName, name, ownerType);
+        return new TypeReferenceToken(importsFragment, printerType, internalName, qualifiedName, name, ownerType == null ? null : intern(ownerType.getInternalName()));
     }
 
     protected boolean isInInvokeNew() {
@@ -335,8 +383,8 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
         private ImportsFragment importsFragment;
         private String qualifiedName;
 
-        public TypeReferenceToken(ImportsFragment importsFragment, int printerType, String internalTypeName, String qualifiedName, String name, ObjectType ownerType) {
-            super(printerType, internalTypeName, name, null, ownerType);
+        public TypeReferenceToken(ImportsFragment importsFragment, int printerType, String internalTypeName, String qualifiedName, String name, String ownerInternalName) {
+            super(printerType, internalTypeName, name, null, ownerInternalName);
             this.importsFragment = importsFragment;
             this.qualifiedName = qualifiedName;
         }
@@ -353,8 +401,8 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
     private static final class QualifiedReferenceToken extends ReferenceToken {
         private String qualifiedName;
         
-        public QualifiedReferenceToken(int printerType, String internalTypeName, String qualifiedName, String name, ObjectType ownerType) {
-            super(printerType, internalTypeName, name, null, ownerType);
+        public QualifiedReferenceToken(int printerType, String internalTypeName, String qualifiedName, String name, String ownerInternalName) {
+            super(printerType, internalTypeName, name, null, ownerInternalName);
             this.qualifiedName = qualifiedName;
         }
         
@@ -365,7 +413,83 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
     }
     
     protected TextToken newTextToken(String text) {
-        return textTokenCache.computeIfAbsent(text, TextToken::new);
+        TextToken token = OPERATOR_TOKENS.get(text);
+        return token != null ? token : textTokenCache.computeIfAbsent(text, TextToken::new);
+    }
+
+    /**
+     * @return a reference token shared by the identical references of the compilation unit
+     */
+    protected ReferenceToken newReferenceToken(int type, String internalTypeName, String name, String descriptor, ObjectType ownerType) {
+        String ownerInternalName = ownerType == null ? null : ownerType.getInternalName();
+        ReferenceToken token = referenceTokenCache.get(referenceKeyProbe.set(type, internalTypeName, name, descriptor, ownerInternalName));
+
+        if (token == null) {
+            token = new ReferenceToken(type, intern(internalTypeName), intern(name), intern(descriptor), intern(ownerInternalName));
+            referenceTokenCache.put(new ReferenceKey().set(type, internalTypeName, name, descriptor, ownerInternalName), token);
+        }
+
+        return token;
+    }
+
+    protected ReferenceToken newReferenceToken(int type, String internalTypeName, String name) {
+        return new ReferenceToken(type, intern(internalTypeName), intern(name));
+    }
+
+    protected DeclarationToken newDeclarationToken(int type, String internalTypeName, String name, String descriptor) {
+        return new DeclarationToken(type, intern(internalTypeName), intern(name), intern(descriptor));
+    }
+
+    protected static Map<String, TextToken> createOperatorTokens(String... operators) {
+        Map<String, TextToken> map = new HashMap<>();
+
+        for (String operator : operators) {
+            map.put(operator, new TextToken(operator));
+        }
+
+        map.put("<", TextToken.LEFTANGLEBRACKET);
+        map.put(">", TextToken.RIGHTANGLEBRACKET);
+        map.put("!", TextToken.EXCLAMATION);
+        map.put("|", TextToken.VERTICALLINE);
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static final class ReferenceKey {
+        private int type;
+        private String internalTypeName;
+        private String name;
+        private String descriptor;
+        private String ownerInternalName;
+        private int hashCode;
+
+        public ReferenceKey set(int type, String internalTypeName, String name, String descriptor, String ownerInternalName) {
+            this.type = type;
+            this.internalTypeName = internalTypeName;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.ownerInternalName = ownerInternalName;
+            this.hashCode = 31 * (31 * (31 * (31 * type + Objects.hashCode(internalTypeName)) + Objects.hashCode(name)) + Objects.hashCode(descriptor)) + Objects.hashCode(ownerInternalName);
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReferenceKey that)) {
+                return false;
+            }
+
+            return type == that.type && Objects.equals(name, that.name) && Objects.equals(internalTypeName, that.internalTypeName) &&
+                   Objects.equals(descriptor, that.descriptor) && Objects.equals(ownerInternalName, that.ownerInternalName);
+        }
     }
 
     public class Tokens extends DefaultList<Token> {
@@ -389,9 +513,14 @@ public class TypeVisitor extends AbstractJavaSyntaxVisitor {
         }
 
         public void addLineNumberToken(int lineNumber) {
-            if (lineNumber != UNKNOWN_LINE_NUMBER && lineNumber >= maxLineNumber) {
-                super.add(new LineNumberToken(lineNumber));
-                maxLineNumber = currentLineNumber = lineNumber;
+            if (lineNumber != UNKNOWN_LINE_NUMBER) {
+                if (firstLineNumber == UNKNOWN_LINE_NUMBER) {
+                    firstLineNumber = lineNumber;
+                }
+                if (lineNumber >= maxLineNumber) {
+                    super.add(new LineNumberToken(lineNumber));
+                    maxLineNumber = currentLineNumber = lineNumber;
+                }
             }
         }
 
@@ -10,14 +10,21 @@ package org.jd.core.v1.service.layouter;
 import org.jd.core.v1.model.fragment.FixedFragment;
 import org.jd.core.v1.model.fragment.FlexibleFragment;
 import org.jd.core.v1.model.fragment.Fragment;
+import org.jd.core.v1.model.fragment.SpacerBetweenMovableBlocksFragment;
 import org.jd.core.v1.model.message.DecompileContext;
 import org.jd.core.v1.service.layouter.model.Section;
+import org.jd.core.v1.service.layouter.util.LayoutArena;
 import org.jd.core.v1.service.layouter.util.VisitorsHolder;
 import org.jd.core.v1.service.layouter.visitor.BuildSectionsVisitor;
 import org.jd.core.v1.service.layouter.visitor.UpdateSpacerBetweenMovableBlocksVisitor;
+import org.jd.core.v1.service.layouter.visitor.UpdateSpacerBetweenMovableBlocksVisitor.State;
 
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 import static org.jd.core.v1.api.printer.Printer.UNKNOWN_LINE_NUMBER;
 
@@ -46,90 +53,186 @@ public class LayoutFragmentProcessor {
             }
 
             List<Section> sections = buildSectionsVisitor.getSections();
-            VisitorsHolder holder = new VisitorsHolder();
-            UpdateSpacerBetweenMovableBlocksVisitor visitor = new UpdateSpacerBetweenMovableBlocksVisitor();
+            LayoutArena arena = newLayoutArena();
 
-            // Try to release constraints twice for each section
-            int sumOfRates = Integer.MAX_VALUE;
-            int max = sections.size() * 2;
+            releaseConstraints(sections, arena);
 
-            if (max > 20) {
-                max = 20;
+            // Force layout
+            for (Section section : sections) {
+                section.layout(true, arena);
             }
 
-            for (int loop=0; loop<max; loop++) {
-                // Update spacers
-                visitor.reset();
-
-                for (Section section : sections) {
-                    for (FlexibleFragment fragment : section.getFlexibleFragments()) {
-                        fragment.accept(visitor);
-                    }
-                    if (section.getFixedFragment() != null) {
-                        section.getFixedFragment().accept(visitor);
-                    }
-                }
+            // Update fragments
+            fragments.clear();
+
+            for (Section section : sections) {
+                fragments.addAll(section.getFlexibleFragments());
 
-                // Layout sections
-                for (int redo=0; redo<10; redo++) {
-                    boolean changed = false;
-
-                    for (Section section : sections) {
-                        changed |= section.layout(false);
-                    }
-                    if (!changed) {
-                        // Nothing changed -> Quit loop
-                        break;
-                    }
+                FixedFragment fixedFragment = section.getFixedFragment();
+
+                if (fixedFragment != null) {
+                    fragments.add(fixedFragment);
                 }
+            }
+        }
+    }
 
-                // Update the ratings
-                int newSumOfRates = 0;
-                Section mostConstrainedSection = sections.get(0);
+    /**
+     * @return the working storage shared by the sections of a layout
+     */
+    protected LayoutArena newLayoutArena() {
+        return new LayoutArena();
+    }
 
-                for (Section section : sections) {
-                    section.updateRate();
+    /**
+     * Move fragments from the most constrained sections to the others.<br>
+     * Sections are kept in a queue sorted by rate: after a move, only the sections whose fragments have
+     * changed are laid out and rated again, and the spacers are updated only in the sections touched
+     * by the last move and in the sections whose line counts have changed.
+     */
+    protected void releaseConstraints(List<Section> sections, LayoutArena arena) {
+        int sectionCount = sections.size();
+        int[] rates = new int[sectionCount];
+        // Section indexes sorted by decreasing rate, then by position
+        TreeSet<Integer> queue = new TreeSet<>((i1, i2) -> rates[i1] == rates[i2] ? Integer.compare(i1, i2) : Integer.compare(rates[i2], rates[i1]));
+        Map<FlexibleFragment, Section> spacerSections = new IdentityHashMap<>();
+        BitSet updatedSections = new BitSet(sectionCount);
+        BitSet sectionsToVisit = new BitSet(sectionCount);
+        VisitorsHolder holder = new VisitorsHolder();
+        UpdateSpacerBetweenMovableBlocksVisitor visitor = new UpdateSpacerBetweenMovableBlocksVisitor();
+        // State of the spacer update at the beginning of each section
+        State[] states = new State[sectionCount];
+
+        for (Section section : sections) {
+            storeSpacerSections(spacerSections, section);
+            queue.add(section.getIndex());
+            states[section.getIndex()] = new State();
+        }
 
-                    if (mostConstrainedSection.getRate() < section.getRate()) {
-                        mostConstrainedSection = section;
-                    }
+        updatedSections.set(0, sectionCount);
+        sectionsToVisit.set(0, sectionCount);
+        visitor.reset();
+        visitor.saveState(states[0]);
 
-                    newSumOfRates += section.getRate();
-                }
+        // Try to release constraints twice for each section
+        int sumOfRates = Integer.MAX_VALUE;
+        int newSumOfRates = 0;
+        int max = sectionCount * 2;
 
-                //  Move fragments from the most constrained section
-                if (mostConstrainedSection.getRate() == 0) {
-                    // No more constrained section -> Quit loop
-                    break;
-                }
+        if (max > 20) {
+            max = 20;
+        }
 
-                if (sumOfRates <= newSumOfRates) {
-                    // The sum of the constraints does not decrease -> Quit loop
-                    break;
+        for (int loop=0; loop<max; loop++) {
+            // Update spacers
+            updateSpacers(sections, spacerSections, visitor, states, sectionsToVisit);
+
+            for (FlexibleFragment spacer : visitor.getUpdatedSpacers()) {
+                updatedSections.set(spacerSections.get(spacer).getIndex());
+            }
+
+            sectionsToVisit.clear();
+
+            // Layout and rate the updated sections, the others are stable
+            for (int index = updatedSections.nextSetBit(0); index >= 0; index = updatedSections.nextSetBit(index + 1)) {
+                Section section = sections.get(index);
+                boolean changed = section.layout(false, arena);
+
+                if (changed) {
+                    // Line counts of spacers may have changed
+                    sectionsToVisit.set(index);
                 }
-                sumOfRates = newSumOfRates;
 
-                if (! mostConstrainedSection.releaseConstraints(holder)) {
-                    break;
+                for (int redo=1; changed && redo<10; redo++) {
+                    changed = section.layout(false, arena);
                 }
+                if (!changed) {
+                    // Nothing changed -> Section is stable
+                    updatedSections.clear(index);
+                }
+
+                queue.remove(index);
+                newSumOfRates -= rates[index];
+                section.updateRate();
+                rates[index] = section.getRate();
+                newSumOfRates += rates[index];
+                queue.add(index);
             }
 
-            // Force layout
-            for (Section section : sections) {
-                section.layout(true);
+            //  Move fragments from the most constrained section
+            Section mostConstrainedSection = sections.get(queue.first());
+
+            if (mostConstrainedSection.getRate() == 0) {
+                // No more constrained section -> Quit loop
+                break;
             }
 
-            // Update fragments
-            fragments.clear();
+            if (sumOfRates <= newSumOfRates) {
+                // The sum of the constraints does not decrease -> Quit loop
+                break;
+            }
+            sumOfRates = newSumOfRates;
 
-            for (Section section : sections) {
-                fragments.addAll(section.getFlexibleFragments());
+            Section updatedSection = mostConstrainedSection.releaseConstraints(holder);
 
-                FixedFragment fixedFragment = section.getFixedFragment();
+            if (updatedSection == null) {
+                break;
+            }
 
-                if (fixedFragment != null) {
-                    fragments.add(fixedFragment);
+            storeSpacerSections(spacerSections, updatedSection);
+            updatedSections.set(mostConstrainedSection.getIndex());
+            updatedSections.set(updatedSection.getIndex());
+            // The sections between the source and the target of the move are visited with a new state
+            sectionsToVisit.set(Math.min(mostConstrainedSection.getIndex(), updatedSection.getIndex()), Math.max(mostConstrainedSection.getIndex(), updatedSection.getIndex()) + 1);
+        }
+    }
+
+    /**
+     * Update the spacers of 'sectionsToVisit', whose fragments or line counts have changed. The visit of a
+     * run of sections restarts from the state saved at its beginning, and goes on past the run until the
+     * state is the one saved for the next section and no spacer of 'sectionsToVisit' is pending: the
+     * spacers of the other sections are updated as by a visit of all sections.
+     */
+    protected void updateSpacers(List<Section> sections, Map<FlexibleFragment, Section> spacerSections, UpdateSpacerBetweenMovableBlocksVisitor visitor, State[] states, BitSet sectionsToVisit) {
+        int sectionCount = sections.size();
+        int index = sectionsToVisit.nextSetBit(0);
+        Predicate<SpacerBetweenMovableBlocksFragment> changedSpacer = spacer -> sectionsToVisit.get(spacerSections.get(spacer).getIndex());
+
+        visitor.reset();
+
+        while ((index >= 0) && (index < sectionCount)) {
+            visitor.restoreState(states[index]);
+
+            while (true) {
+                Section section = sections.get(index);
+
+                for (FlexibleFragment fragment : section.getFlexibleFragments()) {
+                    fragment.accept(visitor);
+                }
+                if (section.getFixedFragment() != null) {
+                    section.getFixedFragment().accept(visitor);
                 }
+
+                index++;
+
+                if (index == sectionCount) {
+                    return;
+                }
+                if (!sectionsToVisit.get(index) && visitor.isInState(states[index]) && !visitor.hasPendingSpacer(changedSpacer)) {
+                    break;
+                }
+
+                visitor.saveState(states[index]);
+            }
+
+            index = sectionsToVisit.nextSetBit(index);
+        }
+    }
+
+    protected static void storeSpacerSections(Map<FlexibleFragment, Section> spacerSections, Section section) {
+        for (FlexibleFragment fragment : section.getFlexibleFragments()) {
+            if (fragment instanceof SpacerBetweenMovableBlocksFragment) {
+                spacerSections.put(fragment, section);
             }
         }
     }
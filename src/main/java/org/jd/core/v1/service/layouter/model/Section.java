@@ -8,15 +8,15 @@ package org.jd.core.v1.service.layouter.model;
 
 import org.jd.core.v1.model.fragment.FixedFragment;
 import org.jd.core.v1.model.fragment.FlexibleFragment;
+import org.jd.core.v1.service.layouter.util.AutoGrowthList;
+import org.jd.core.v1.service.layouter.util.LayoutArena;
 import org.jd.core.v1.service.layouter.util.VisitorsHolder;
 import org.jd.core.v1.service.layouter.visitor.AbstractSearchMovableBlockFragmentVisitor;
 import org.jd.core.v1.service.layouter.visitor.AbstractStoreMovableBlockFragmentIndexVisitorAbstract;
 import org.jd.core.v1.util.DefaultList;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.NoSuchElementException;
 
 public class Section {
     private final DefaultList<FlexibleFragment> flexibleFragments;
@@ -24,6 +24,7 @@ public class Section {
     private final Section previousSection;
     private       Section nextSection; // NO_UCD (use final)
     private final int targetLineCount;
+    private final int index;
     private       int rate;
 
     /** Uses by "layout" method. */
@@ -43,8 +44,10 @@ public class Section {
 
         if (previousSection == null) {
             previousLineNumber = 1;
+            this.index = 0;
         } else {
             previousSection.nextSection = this;
+            this.index = previousSection.index + 1;
             previousLineNumber = previousSection.fixedFragment.getLastLineNumber();
         }
 
@@ -59,6 +62,7 @@ public class Section {
     public FixedFragment getFixedFragment() { return fixedFragment; }
     public Section getPreviousSection() { return previousSection; }
     public Section getNextSection() { return nextSection; }
+    public int getIndex() { return index; }
     public int getRate() { return rate; }
 
     public void updateRate() {
@@ -75,6 +79,14 @@ public class Section {
      * @return true if a fragment has changed
      */
     public boolean layout(boolean force) {
+        return layout(force, new LayoutArena());
+    }
+
+    /**
+     * @param arena working storage, reused between calls
+     * @return true if a fragment has changed
+     */
+    public boolean layout(boolean force, LayoutArena arena) {
         // Skip layout of last section
         if (fixedFragment != null) {
             // Compute line count
@@ -89,8 +101,8 @@ public class Section {
                 lastLineCount = currentLineCount;
 
                 if (targetLineCount != currentLineCount) {
-                    AutoGrowthList filteredFlexibleFragments = new AutoGrowthList();
-                    DefaultList<FlexibleFragment> constrainedFlexibleFragments = new DefaultList<>(flexibleFragments.size());
+                    AutoGrowthList filteredFlexibleFragments = arena.getFilteredFlexibleFragments();
+                    DefaultList<FlexibleFragment> constrainedFlexibleFragments = arena.getConstrainedFlexibleFragments();
 
                     if (targetLineCount > currentLineCount) {
                         // Expands fragments
@@ -207,7 +219,10 @@ public class Section {
         }
     }
 
-    public boolean releaseConstraints(VisitorsHolder holder) {
+    /**
+     * @return the section which received the moved fragments, null if no fragment was moved
+     */
+    public Section releaseConstraints(VisitorsHolder holder) {
         int flexibleCount = flexibleFragments.size();
         AbstractStoreMovableBlockFragmentIndexVisitorAbstract backwardSearchStartIndexesVisitor = holder.getBackwardSearchStartIndexesVisitor();
         AbstractStoreMovableBlockFragmentIndexVisitorAbstract forwardSearchEndIndexesVisitor = holder.getForwardSearchEndIndexesVisitor();
@@ -247,14 +262,12 @@ public class Section {
                 if (foundNextSection.getRate() > foundPreviousSection.getRate()) {
                     int index = foundPreviousSection.getFlexibleFragments().size() - backwardSearchVisitor.getIndex();
                     foundPreviousSection.addFragmentsAtEnd(holder, index, extract(index3, index4));
-                } else {
-                    foundNextSection.addFragmentsAtBeginning(holder, nextIndex, extract(index1, index2));
+                    return foundPreviousSection;
                 }
-            } else {
-                foundNextSection.addFragmentsAtBeginning(holder, nextIndex, extract(index1, index2));
             }
 
-            return true;
+            foundNextSection.addFragmentsAtBeginning(holder, nextIndex, extract(index1, index2));
+            return foundNextSection;
         }
         size = forwardSearchEndIndexesVisitor.getSize();
 
@@ -266,11 +279,11 @@ public class Section {
             if (size > 1 && foundPreviousSection != null) {
                 int index = foundPreviousSection.getFlexibleFragments().size() - backwardSearchVisitor.getIndex();
                 foundPreviousSection.addFragmentsAtEnd(holder, index, extract(index3, index4));
-                return true;
+                return foundPreviousSection;
             }
         }
 
-        return false;
+        return null;
     }
 
     protected Section searchNextSection(AbstractSearchMovableBlockFragmentVisitor visitor) {
@@ -393,92 +406,4 @@ public class Section {
     public String toString() {
         return "Section{flexibleFragments.size=" + flexibleFragments.size() + ", fixedFragment.firstLineNumber=" + (fixedFragment ==null ? "undefined" : fixedFragment.getFirstLineNumber()) + ", rate=" + rate + "}";
     }
-
-    @SuppressWarnings("unchecked")
-    protected class AutoGrowthList implements Iterable<DefaultList<FlexibleFragment>>, Iterator<DefaultList<FlexibleFragment>> {
-        private DefaultList<FlexibleFragment>[] elements = new DefaultList[21];
-        private int iteratorIndex;
-
-        public DefaultList<FlexibleFragment> get(int index) {
-            ensureCapacity(index);
-
-            DefaultList<FlexibleFragment> element = elements[index];
-
-            if (element == null) {
-                elements[index] = element = new DefaultList<>(flexibleFragments.size());
-            }
-
-            return element;
-        }
-
-        protected void ensureCapacity(int minCapacity) {
-            if (elements.length <= minCapacity) {
-                DefaultList<FlexibleFragment>[] tmp = new DefaultList[minCapacity + 10];
-                System.arraycopy(elements, 0, tmp, 0, elements.length);
-                elements = tmp;
-            }
-        }
-
-        @Override
-        public Iterator<DefaultList<FlexibleFragment>> iterator() {
-            return new Itr();
-        }
-
-        @Override
-        public boolean hasNext() {
-            return iteratorIndex < elements.length;
-        }
-
-        @Override
-        public DefaultList<FlexibleFragment> next() {
-            if (iteratorIndex >= elements.length) {
-                throw new NoSuchElementException();
-            }
-            DefaultList<FlexibleFragment> element = elements[iteratorIndex++];
-            int length = elements.length;
-
-            while (iteratorIndex < length && elements[iteratorIndex] == null) {
-                iteratorIndex++;
-            }
-
-            return element;
-        }
-
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException();
-        }
-
-        private final class Itr implements Iterator<DefaultList<FlexibleFragment>> {
-            private Itr() {
-                int length = elements.length;
-
-                iteratorIndex = 0;
-
-                while (iteratorIndex < length && elements[iteratorIndex] == null) {
-                    iteratorIndex++;
-                }
-            }
-
-            @Override
-            public DefaultList<FlexibleFragment> next() {
-                if (iteratorIndex >= elements.length) {
-                    throw new NoSuchElementException();
-                }
-                DefaultList<FlexibleFragment> element = elements[iteratorIndex++];
-                int length = elements.length;
-
-                while (iteratorIndex < length && elements[iteratorIndex] == null) {
-                    iteratorIndex++;
-                }
-
-                return element;
-            }
-
-            @Override
-            public boolean hasNext() {
-                return iteratorIndex < elements.length;
-            }
-        }
-    }
 }
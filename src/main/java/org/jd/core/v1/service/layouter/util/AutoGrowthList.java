@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.layouter.util;
+
+import org.jd.core.v1.model.fragment.FlexibleFragment;
+import org.jd.core.v1.util.DefaultList;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Flexible fragments grouped by weight.<br>
+ * Buckets are kept by {@link #clear()}: the same list can be reused for all sections of a layout. The
+ * iteration skips empty buckets.
+ */
+@SuppressWarnings("unchecked")
+public class AutoGrowthList implements Iterable<DefaultList<FlexibleFragment>>, Iterator<DefaultList<FlexibleFragment>> {
+    private DefaultList<FlexibleFragment>[] elements = new DefaultList[21];
+    private int iteratorIndex;
+
+    public DefaultList<FlexibleFragment> get(int index) {
+        ensureCapacity(index);
+
+        DefaultList<FlexibleFragment> element = elements[index];
+
+        if (element == null) {
+            elements[index] = element = new DefaultList<>();
+        }
+
+        return element;
+    }
+
+    public void clear() {
+        for (DefaultList<FlexibleFragment> element : elements) {
+            if (element != null) {
+                element.clear();
+            }
+        }
+    }
+
+    protected void ensureCapacity(int minCapacity) {
+        if (elements.length <= minCapacity) {
+            DefaultList<FlexibleFragment>[] tmp = new DefaultList[minCapacity + 10];
+            System.arraycopy(elements, 0, tmp, 0, elements.length);
+            elements = tmp;
+        }
+    }
+
+    protected void skipEmptyElements() {
+        int length = elements.length;
+
+        while (iteratorIndex < length && (elements[iteratorIndex] == null || elements[iteratorIndex].isEmpty())) {
+            iteratorIndex++;
+        }
+    }
+
+    @Override
+    public Iterator<DefaultList<FlexibleFragment>> iterator() {
+        iteratorIndex = 0;
+        skipEmptyElements();
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iteratorIndex < elements.length;
+    }
+
+    @Override
+    public DefaultList<FlexibleFragment> next() {
+        if (iteratorIndex >= elements.length) {
+            throw new NoSuchElementException();
+        }
+
+        DefaultList<FlexibleFragment> element = elements[iteratorIndex++];
+
+        skipEmptyElements();
+
+        return element;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
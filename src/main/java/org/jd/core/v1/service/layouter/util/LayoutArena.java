@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.layouter.util;
+
+import org.jd.core.v1.model.fragment.FlexibleFragment;
+import org.jd.core.v1.util.DefaultList;
+
+/**
+ * Working storage of "Section.layout", shared by all the sections of a layout.
+ */
+public class LayoutArena {
+    private final AutoGrowthList filteredFlexibleFragments = new AutoGrowthList();
+    private final DefaultList<FlexibleFragment> constrainedFlexibleFragments = new DefaultList<>();
+
+    public AutoGrowthList getFilteredFlexibleFragments() {
+        filteredFlexibleFragments.clear();
+        return filteredFlexibleFragments;
+    }
+
+    public DefaultList<FlexibleFragment> getConstrainedFlexibleFragments() {
+        constrainedFlexibleFragments.clear();
+        return constrainedFlexibleFragments;
+    }
+}
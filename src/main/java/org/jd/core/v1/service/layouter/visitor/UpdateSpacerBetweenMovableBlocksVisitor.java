@@ -17,10 +17,15 @@ import org.jd.core.v1.model.fragment.StartFlexibleBlockFragment;
 import org.jd.core.v1.model.fragment.StartMovableBlockFragment;
 import org.jd.core.v1.util.DefaultList;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
 
 public class UpdateSpacerBetweenMovableBlocksVisitor implements FragmentVisitor {
     private final DefaultList<StartMovableBlockFragment> blocks = new DefaultList<>();
     private final DefaultList<SpacerBetweenMovableBlocksFragment> spacers = new DefaultList<>();
+    private final DefaultList<SpacerBetweenMovableBlocksFragment> updatedSpacers = new DefaultList<>();
 
     private int lastStartMovableBlockFragmentType;
     private SpacerBetweenMovableBlocksFragment lastSpacer;
@@ -30,6 +35,82 @@ public class UpdateSpacerBetweenMovableBlocksVisitor implements FragmentVisitor
         lastStartMovableBlockFragmentType = 0;
         lastSpacer = null;
         depth = 0;
+        updatedSpacers.clear();
+    }
+
+    /**
+     * Copy the state of the visit into 'state', to restart it later from the current fragment.
+     */
+    public void saveState(State state) {
+        state.lastStartMovableBlockFragmentType = lastStartMovableBlockFragmentType;
+        state.lastSpacer = lastSpacer;
+        state.depth = depth;
+        state.blocks.clear();
+        state.blocks.addAll(blocks);
+        state.spacers.clear();
+        state.spacers.addAll(spacers);
+    }
+
+    /**
+     * Restart the visit from 'state'. The updated spacers are kept.
+     */
+    public void restoreState(State state) {
+        lastStartMovableBlockFragmentType = state.lastStartMovableBlockFragmentType;
+        lastSpacer = state.lastSpacer;
+        depth = state.depth;
+        blocks.clear();
+        blocks.addAll(state.blocks);
+        spacers.clear();
+        spacers.addAll(state.spacers);
+    }
+
+    /**
+     * @return true if the visit is in 'state': the next spacers are updated as after 'state'
+     */
+    public boolean isInState(State state) {
+        return (lastStartMovableBlockFragmentType == state.lastStartMovableBlockFragmentType) &&
+               (lastSpacer == state.lastSpacer) && (depth == state.depth) &&
+               isSame(blocks, state.blocks) && isSame(spacers, state.spacers);
+    }
+
+    protected static boolean isSame(List<?> list1, List<?> list2) {
+        int size = list1.size();
+
+        if (size != list2.size()) {
+            return false;
+        }
+
+        for (int i=0; i<size; i++) {
+            if (list1.get(i) != list2.get(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if one of the visited spacers whose line count may still be updated by the next
+     *         fragments matches 'filter'
+     */
+    public boolean hasPendingSpacer(Predicate<SpacerBetweenMovableBlocksFragment> filter) {
+        if (lastSpacer != null && filter.test(lastSpacer)) {
+            return true;
+        }
+        for (SpacerBetweenMovableBlocksFragment spacer : spacers) {
+            if (spacer != null && filter.test(spacer)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the spacers whose line count was modified since the last call to {@link #reset()}
+     */
+    public DefaultList<SpacerBetweenMovableBlocksFragment> getUpdatedSpacers() {
+        return updatedSpacers;
     }
 
     @Override
@@ -38,10 +119,10 @@ public class UpdateSpacerBetweenMovableBlocksVisitor implements FragmentVisitor
             // type=2 ==> Field
             if (lastStartMovableBlockFragmentType == 2 && fragment.getType() == 2) {
                 // 1 new line between 2 field declarations
-                lastSpacer.setInitialLineCount(1);
+                updateSpacer(1);
             } else {
                 // otherwise, 2 new lines
-                lastSpacer.setInitialLineCount(2);
+                updateSpacer(2);
             }
         }
 
@@ -55,6 +136,13 @@ public class UpdateSpacerBetweenMovableBlocksVisitor implements FragmentVisitor
         depth = 1;
     }
 
+    protected void updateSpacer(int lineCount) {
+        if (lastSpacer.getInitialLineCount() != lineCount || lastSpacer.getLineCount() != lineCount) {
+            updatedSpacers.add(lastSpacer);
+        }
+        lastSpacer.setInitialLineCount(lineCount);
+    }
+
     @Override
     public void visit(EndMovableBlockFragment fragment) {
         if (depth != 1) {
@@ -74,4 +162,15 @@ public class UpdateSpacerBetweenMovableBlocksVisitor implements FragmentVisitor
     @Override public void visit(EndFlexibleBlockFragment fragment) {}
     @Override public void visit(StartFlexibleBlockFragment fragment) {}
     @Override public void visit(FixedFragment fragment) {}
+
+    /**
+     * State of the visit, reused by the successive calls to {@link #saveState(State)}.
+     */
+    public static final class State {
+        private int lastStartMovableBlockFragmentType;
+        private SpacerBetweenMovableBlocksFragment lastSpacer;
+        private int depth;
+        private final List<StartMovableBlockFragment> blocks = new ArrayList<>();
+        private final List<SpacerBetweenMovableBlocksFragment> spacers = new ArrayList<>();
+    }
 }
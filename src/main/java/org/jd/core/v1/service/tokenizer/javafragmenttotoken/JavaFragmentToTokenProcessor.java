@@ -8,6 +8,7 @@
 package org.jd.core.v1.service.tokenizer.javafragmenttotoken;
 
 import org.jd.core.v1.model.javafragment.JavaFragment;
+import org.jd.core.v1.model.token.PackedTokens;
 import org.jd.core.v1.model.token.Token;
 import org.jd.core.v1.service.tokenizer.javafragmenttotoken.visitor.TokenizeJavaFragmentVisitor;
 import org.jd.core.v1.util.DefaultList;
@@ -18,7 +19,7 @@ import java.util.List;
  * Convert a list of fragments to a list of tokens.<br><br>
  *
  * Input:  List<{@link org.jd.core.v1.model.fragment.Fragment}><br>
- * Output: List<{@link org.jd.core.v1.model.token.Token}><br>
+ * Output: List<{@link org.jd.core.v1.model.token.Token}> or {@link org.jd.core.v1.model.token.PackedTokens}<br>
  */
 public class JavaFragmentToTokenProcessor {
 
@@ -32,4 +33,14 @@ public class JavaFragmentToTokenProcessor {
 
         return visitor.getTokens();
     }
+
+    public PackedTokens processPacked(List<JavaFragment> fragments) {
+        TokenizeJavaFragmentVisitor visitor = new TokenizeJavaFragmentVisitor(new PackedTokens(fragments.size() * 3));
+
+        for (JavaFragment fragment : fragments) {
+            fragment.accept(visitor);
+        }
+
+        return visitor.getPackedTokens();
+    }
 }
@@ -39,6 +39,7 @@ import org.jd.core.v1.model.token.KeywordToken;
 import org.jd.core.v1.model.token.LineNumberToken;
 import org.jd.core.v1.model.token.NewLineToken;
 import org.jd.core.v1.model.token.NumericConstantToken;
+import org.jd.core.v1.model.token.PackedTokens;
 import org.jd.core.v1.model.token.ReferenceToken;
 import org.jd.core.v1.model.token.StartBlockToken;
 import org.jd.core.v1.model.token.StartMarkerToken;
@@ -65,33 +66,71 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     private final KnownLineNumberTokenVisitor knownLineNumberTokenVisitor = new KnownLineNumberTokenVisitor();
     private final UnknownLineNumberTokenVisitor unknownLineNumberTokenVisitor = new UnknownLineNumberTokenVisitor();
     protected final DefaultList<Token> tokens;
+    protected final PackedTokens packedTokens;
 
     public TokenizeJavaFragmentVisitor(int initialCapacity) {
         this.tokens = new DefaultList<>(initialCapacity);
+        this.packedTokens = null;
+    }
+
+    /**
+     * Encode the tokens into 'packedTokens' instead of a list.
+     */
+    public TokenizeJavaFragmentVisitor(PackedTokens packedTokens) {
+        this.tokens = null;
+        this.packedTokens = packedTokens;
     }
 
     public DefaultList<Token> getTokens() {
         return tokens;
     }
 
+    public PackedTokens getPackedTokens() {
+        return packedTokens;
+    }
+
+    protected void add(Token token) {
+        if (packedTokens == null) {
+            tokens.add(token);
+        } else {
+            packedTokens.add(token);
+        }
+    }
+
+    protected void addAll(Collection<Token> tokens) {
+        if (packedTokens == null) {
+            this.tokens.addAll(tokens);
+        } else {
+            packedTokens.addAll(tokens);
+        }
+    }
+
+    protected void addNewLine(int count) {
+        if (packedTokens == null) {
+            tokens.add(new NewLineToken(count));
+        } else {
+            packedTokens.addNewLine(count);
+        }
+    }
+
     @Override
     public void visit(EndBlockFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_BLOCK);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_BLOCK);
                 break;
             case 1:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_2);
-                tokens.add(EndBlockToken.END_BLOCK);
+                add(NewLineToken.NEWLINE_2);
+                add(EndBlockToken.END_BLOCK);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()));
-                tokens.add(EndBlockToken.END_BLOCK);
+                addNewLine(fragment.getLineCount());
+                add(EndBlockToken.END_BLOCK);
         }
     }
 
@@ -99,24 +138,24 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(EndBlockInParameterFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
                 break;
             case 1:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_2);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
+                add(NewLineToken.NEWLINE_2);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()));
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
+                addNewLine(fragment.getLineCount());
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
         }
     }
 
@@ -124,28 +163,28 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(EndBodyFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_BLOCK);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_BLOCK);
                 break;
             case 1:
                 if (fragment.getStartBodyFragment().getLineCount() == 0) {
-                    tokens.add(TextToken.SPACE);
-                    tokens.add(EndBlockToken.END_BLOCK);
-                    tokens.add(NewLineToken.NEWLINE_1);
+                    add(TextToken.SPACE);
+                    add(EndBlockToken.END_BLOCK);
+                    add(NewLineToken.NEWLINE_1);
                 } else {
-                    tokens.add(NewLineToken.NEWLINE_1);
-                    tokens.add(EndBlockToken.END_BLOCK);
+                    add(NewLineToken.NEWLINE_1);
+                    add(EndBlockToken.END_BLOCK);
                 }
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
+                add(NewLineToken.NEWLINE_1);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()-1));
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                addNewLine(fragment.getLineCount()-1);
+                add(EndBlockToken.END_BLOCK);
+                add(NewLineToken.NEWLINE_1);
         }
     }
 
@@ -153,27 +192,27 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(EndBodyInParameterFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
                 break;
             case 1:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
-                tokens.add(TextToken.SPACE);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
+                add(TextToken.SPACE);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
+                add(NewLineToken.NEWLINE_1);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()-1));
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.COMMA);
-                tokens.add(NewLineToken.NEWLINE_1);
+                addNewLine(fragment.getLineCount()-1);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.COMMA);
+                add(NewLineToken.NEWLINE_1);
         }
     }
 
@@ -185,41 +224,41 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
         switch (fragment.getLineCount()) {
             case 0:
             if (fragment.getStartSingleStatementBlockFragment().getLineCount() == 0 || fragment.getStartSingleStatementBlockFragment().getLineCount() == 1) {
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
             } else {
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.SPACE);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.SPACE);
             }
                 break;
             case 1:
             if (fragment.getStartSingleStatementBlockFragment().getLineCount() == 0) {
-                tokens.add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
+                add(NewLineToken.NEWLINE_1);
             } else {
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
             }
                 break;
             case 2:
             if (fragment.getStartSingleStatementBlockFragment().getLineCount() == 0) {
-                tokens.add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_2);
+                add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
+                add(NewLineToken.NEWLINE_2);
             } else {
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
+                add(NewLineToken.NEWLINE_1);
             }
                 break;
             default:
             if (fragment.getStartSingleStatementBlockFragment().getLineCount() == 0) {
-                tokens.add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
-                tokens.add(new NewLineToken(fragment.getLineCount()));
+                add(EndBlockToken.END_DECLARATION_OR_STATEMENT_BLOCK);
+                addNewLine(fragment.getLineCount());
             } else {
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(new NewLineToken(fragment.getLineCount()-1));
+                add(NewLineToken.NEWLINE_1);
+                add(EndBlockToken.END_BLOCK);
+                addNewLine(fragment.getLineCount()-1);
             }
                 break;
         }
@@ -231,54 +270,54 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
 
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(EndBlockToken.END_BLOCK);
-                tokens.add(TextToken.SPACE);
+                add(TextToken.SPACE);
+                add(EndBlockToken.END_BLOCK);
+                add(TextToken.SPACE);
                 break;
             case 1:
                 if (minimalLineCount == 0) {
-                    tokens.add(TextToken.SPACE);
-                    tokens.add(EndBlockToken.END_BLOCK);
-                    tokens.add(NewLineToken.NEWLINE_1);
+                    add(TextToken.SPACE);
+                    add(EndBlockToken.END_BLOCK);
+                    add(NewLineToken.NEWLINE_1);
                 } else {
-                    tokens.add(NewLineToken.NEWLINE_1);
-                    tokens.add(EndBlockToken.END_BLOCK);
-                    tokens.add(TextToken.SPACE);
+                    add(NewLineToken.NEWLINE_1);
+                    add(EndBlockToken.END_BLOCK);
+                    add(TextToken.SPACE);
                 }
                 break;
             case 2:
                 switch (minimalLineCount) {
                     case 0:
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(EndBlockToken.END_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_2);
+                        add(TextToken.SPACE);
+                        add(EndBlockToken.END_BLOCK);
+                        add(NewLineToken.NEWLINE_2);
                         break;
                     case 1:
-                        tokens.add(NewLineToken.NEWLINE_1);
-                        tokens.add(EndBlockToken.END_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_1);
+                        add(NewLineToken.NEWLINE_1);
+                        add(EndBlockToken.END_BLOCK);
+                        add(NewLineToken.NEWLINE_1);
                         break;
                     default:
-                        tokens.add(new NewLineToken(fragment.getLineCount()-1));
-                        tokens.add(EndBlockToken.END_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_1);
+                        addNewLine(fragment.getLineCount()-1);
+                        add(EndBlockToken.END_BLOCK);
+                        add(NewLineToken.NEWLINE_1);
                 }
                 break;
             default:
                 switch (minimalLineCount) {
                     case 0:
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(EndBlockToken.END_BLOCK);
-                        tokens.add(new NewLineToken(fragment.getLineCount()));
+                        add(TextToken.SPACE);
+                        add(EndBlockToken.END_BLOCK);
+                        addNewLine(fragment.getLineCount());
                         break;
                     case 1:
-                        tokens.add(new NewLineToken(fragment.getLineCount()));
-                        tokens.add(EndBlockToken.END_BLOCK);
+                        addNewLine(fragment.getLineCount());
+                        add(EndBlockToken.END_BLOCK);
                         break;
                     default:
-                        tokens.add(new NewLineToken(fragment.getLineCount()-1));
-                        tokens.add(EndBlockToken.END_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_1);
+                        addNewLine(fragment.getLineCount()-1);
+                        add(EndBlockToken.END_BLOCK);
+                        add(NewLineToken.NEWLINE_1);
                 }
                 break;
         }
@@ -290,17 +329,21 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
 
         imports.sort(Comparator.comparing(Import::getQualifiedName));
 
-        tokens.add(StartMarkerToken.IMPORT_STATEMENTS);
+        add(StartMarkerToken.IMPORT_STATEMENTS);
 
         for (ImportsFragment.Import imp : imports) {
-            tokens.add(IMPORT);
-            tokens.add(TextToken.SPACE);
-            tokens.add(new ReferenceToken(Printer.TYPE, imp.getInternalName(), imp.getQualifiedName()));
-            tokens.add(TextToken.SEMICOLON);
-            tokens.add(NewLineToken.NEWLINE_1);
+            add(IMPORT);
+            add(TextToken.SPACE);
+            if (packedTokens == null) {
+                tokens.add(new ReferenceToken(Printer.TYPE, imp.getInternalName(), imp.getQualifiedName()));
+            } else {
+                packedTokens.addReference(Printer.TYPE, imp.getInternalName(), imp.getQualifiedName(), null, null);
+            }
+            add(TextToken.SEMICOLON);
+            add(NewLineToken.NEWLINE_1);
         }
 
-        tokens.add(EndMarkerToken.IMPORT_STATEMENTS);
+        add(EndMarkerToken.IMPORT_STATEMENTS);
     }
 
     @Override
@@ -316,16 +359,16 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(SpacerBetweenMembersFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
+                add(TextToken.SPACE);
                 break;
             case 1:
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_2);
+                add(NewLineToken.NEWLINE_2);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()));
+                addNewLine(fragment.getLineCount());
         }
     }
 
@@ -335,13 +378,13 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
             case 0:
                 break;
             case 1:
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_2);
+                add(NewLineToken.NEWLINE_2);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()));
+                addNewLine(fragment.getLineCount());
         }
     }
 
@@ -349,16 +392,16 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(SpaceSpacerFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
+                add(TextToken.SPACE);
                 break;
             case 1:
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_2);
+                add(NewLineToken.NEWLINE_2);
                 break;
             default:
-                tokens.add(new NewLineToken(fragment.getLineCount()));
+                addNewLine(fragment.getLineCount());
         }
     }
 
@@ -366,20 +409,20 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(StartBlockFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(TextToken.SPACE);
+                add(StartBlockToken.START_BLOCK);
+                add(TextToken.SPACE);
                 break;
             case 1:
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(StartBlockToken.START_BLOCK);
+                add(NewLineToken.NEWLINE_1);
                 break;
             case 2:
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_2);
+                add(StartBlockToken.START_BLOCK);
+                add(NewLineToken.NEWLINE_2);
                 break;
             default:
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(new NewLineToken(fragment.getLineCount()));
+                add(StartBlockToken.START_BLOCK);
+                addNewLine(fragment.getLineCount());
                 break;
         }
     }
@@ -388,24 +431,24 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(StartBodyFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(TextToken.SPACE);
+                add(TextToken.SPACE);
+                add(StartBlockToken.START_BLOCK);
+                add(TextToken.SPACE);
                 break;
             case 1:
-                tokens.add(TextToken.SPACE);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(TextToken.SPACE);
+                add(StartBlockToken.START_BLOCK);
+                add(NewLineToken.NEWLINE_1);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
+                add(StartBlockToken.START_BLOCK);
+                add(NewLineToken.NEWLINE_1);
                 break;
             default:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(new NewLineToken(fragment.getLineCount()-1));
+                add(NewLineToken.NEWLINE_1);
+                add(StartBlockToken.START_BLOCK);
+                addNewLine(fragment.getLineCount()-1);
                 break;
         }
     }
@@ -418,27 +461,27 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
     public void visit(StartSingleStatementBlockFragment fragment) {
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(StartBlockToken.START_DECLARATION_OR_STATEMENT_BLOCK);
-                tokens.add(TextToken.SPACE);
+                add(StartBlockToken.START_DECLARATION_OR_STATEMENT_BLOCK);
+                add(TextToken.SPACE);
                 break;
             case 1:
             if (fragment.getEndSingleStatementBlockFragment().getLineCount() == 0) {
-                tokens.add(StartBlockToken.START_DECLARATION_OR_STATEMENT_BLOCK);
+                add(StartBlockToken.START_DECLARATION_OR_STATEMENT_BLOCK);
             } else {
-                tokens.add(TextToken.SPACE);
-                tokens.add(StartBlockToken.START_BLOCK);
+                add(TextToken.SPACE);
+                add(StartBlockToken.START_BLOCK);
             }
-            tokens.add(NewLineToken.NEWLINE_1);
+            add(NewLineToken.NEWLINE_1);
                 break;
             case 2:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(NewLineToken.NEWLINE_1);
+                add(NewLineToken.NEWLINE_1);
+                add(StartBlockToken.START_BLOCK);
+                add(NewLineToken.NEWLINE_1);
                 break;
             default:
-                tokens.add(NewLineToken.NEWLINE_1);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(new NewLineToken(fragment.getLineCount() - 1));
+                add(NewLineToken.NEWLINE_1);
+                add(StartBlockToken.START_BLOCK);
+                addNewLine(fragment.getLineCount() - 1);
                 break;
         }
     }
@@ -449,55 +492,55 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
 
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.add(TextToken.SPACE);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(TextToken.SPACE);
+                add(TextToken.SPACE);
+                add(StartBlockToken.START_BLOCK);
+                add(TextToken.SPACE);
                 break;
             case 1:
                 if (minimalLineCount == 0) {
-                    tokens.add(NewLineToken.NEWLINE_1);
-                    tokens.add(StartBlockToken.START_BLOCK);
-                    tokens.add(TextToken.SPACE);
+                    add(NewLineToken.NEWLINE_1);
+                    add(StartBlockToken.START_BLOCK);
+                    add(TextToken.SPACE);
                 } else {
-                    tokens.add(TextToken.SPACE);
-                    tokens.add(StartBlockToken.START_BLOCK);
-                    tokens.add(NewLineToken.NEWLINE_1);
+                    add(TextToken.SPACE);
+                    add(StartBlockToken.START_BLOCK);
+                    add(NewLineToken.NEWLINE_1);
                 }
                 break;
             case 2:
                 switch (minimalLineCount) {
                     case 0:
-                        tokens.add(NewLineToken.NEWLINE_2);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(TextToken.SPACE);
+                        add(NewLineToken.NEWLINE_2);
+                        add(StartBlockToken.START_BLOCK);
+                        add(TextToken.SPACE);
                         break;
                     case 1:
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_2);
+                        add(TextToken.SPACE);
+                        add(StartBlockToken.START_BLOCK);
+                        add(NewLineToken.NEWLINE_2);
                         break;
                     default:
-                        tokens.add(NewLineToken.NEWLINE_1);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_1);
+                        add(NewLineToken.NEWLINE_1);
+                        add(StartBlockToken.START_BLOCK);
+                        add(NewLineToken.NEWLINE_1);
                 }
                 break;
             default:
                 switch (minimalLineCount) {
                     case 0:
-                        tokens.add(new NewLineToken(fragment.getLineCount()));
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(TextToken.SPACE);
+                        addNewLine(fragment.getLineCount());
+                        add(StartBlockToken.START_BLOCK);
+                        add(TextToken.SPACE);
                         break;
                     case 1:
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(new NewLineToken(fragment.getLineCount()));
+                        add(TextToken.SPACE);
+                        add(StartBlockToken.START_BLOCK);
+                        addNewLine(fragment.getLineCount());
                         break;
                     default:
-                        tokens.add(NewLineToken.NEWLINE_1);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(new NewLineToken(fragment.getLineCount() - 1));
+                        add(NewLineToken.NEWLINE_1);
+                        add(StartBlockToken.START_BLOCK);
+                        addNewLine(fragment.getLineCount() - 1);
                 }
                 break;
         }
@@ -532,7 +575,7 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
             if (token == EndBlockToken.END_BLOCK) {
                 throw new IllegalArgumentException("Unexpected EndBlockToken.END_BLOCK at this step. Uses 'JavaFragmentFactory.addEnd***(fragments)' instead");
             }
-            tokens.add(token);
+            add(token);
         }
 
         @Override
@@ -545,19 +588,19 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
                         case 0:
                             break;
                         case 1:
-                            tokens.add(NewLineToken.NEWLINE_1);
+                            add(NewLineToken.NEWLINE_1);
                             break;
                         case 2:
-                            tokens.add(NewLineToken.NEWLINE_2);
+                            add(NewLineToken.NEWLINE_2);
                             break;
                         default:
-                            tokens.add(new NewLineToken(lineNumber - currentLineNumber));
+                            addNewLine(lineNumber - currentLineNumber);
                             break;
                     }
                 }
 
                 currentLineNumber = token.lineNumber();
-                tokens.add(token);
+                add(token);
             }
         }
 
@@ -566,29 +609,29 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
             if (token == StartBlockToken.START_BLOCK) {
                 throw new IllegalArgumentException("Unexpected StartBlockToken.START_BLOCK at this step. Uses 'JavaFragmentFactory.addStart***(fragments)' instead");
             }
-            tokens.add(token);
+            add(token);
         }
 
         @Override
-        public void visit(BooleanConstantToken token) { tokens.add(token); }
+        public void visit(BooleanConstantToken token) { add(token); }
         @Override
-        public void visit(CharacterConstantToken token) { tokens.add(token); }
+        public void visit(CharacterConstantToken token) { add(token); }
         @Override
-        public void visit(DeclarationToken token) { tokens.add(token); }
+        public void visit(DeclarationToken token) { add(token); }
         @Override
-        public void visit(EndMarkerToken token) { tokens.add(token); }
+        public void visit(EndMarkerToken token) { add(token); }
         @Override
-        public void visit(KeywordToken token) { tokens.add(token); }
+        public void visit(KeywordToken token) { add(token); }
         @Override
-        public void visit(NumericConstantToken token) { tokens.add(token); }
+        public void visit(NumericConstantToken token) { add(token); }
         @Override
-        public void visit(ReferenceToken token) { tokens.add(token); }
+        public void visit(ReferenceToken token) { add(token); }
         @Override
-        public void visit(StartMarkerToken token) { tokens.add(token); }
+        public void visit(StartMarkerToken token) { add(token); }
         @Override
-        public void visit(StringConstantToken token) { tokens.add(token); }
+        public void visit(StringConstantToken token) { add(token); }
         @Override
-        public void visit(TextToken token) { tokens.add(token); }
+        public void visit(TextToken token) { add(token); }
     }
 
     protected class UnknownLineNumberTokenVisitor implements TokenVisitor {
@@ -597,7 +640,7 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
             if (token == EndBlockToken.END_BLOCK) {
                 throw new IllegalArgumentException("Unexpected EndBlockToken.END_BLOCK at this step. Uses 'JavaFragmentFactory.addEnd***(fragments)' instead");
             }
-            tokens.add(token);
+            add(token);
         }
 
         @Override
@@ -612,31 +655,31 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
             if (token == StartBlockToken.START_BLOCK) {
                 throw new IllegalArgumentException("Unexpected StartBlockToken.START_BLOCK at this step. Uses 'JavaFragmentFactory.addStart***(fragments)' instead");
             }
-            tokens.add(token);
+            add(token);
         }
 
         @Override
-        public void visit(BooleanConstantToken token) { tokens.add(token); }
+        public void visit(BooleanConstantToken token) { add(token); }
         @Override
-        public void visit(CharacterConstantToken token) { tokens.add(token); }
+        public void visit(CharacterConstantToken token) { add(token); }
         @Override
-        public void visit(DeclarationToken token) { tokens.add(token); }
+        public void visit(DeclarationToken token) { add(token); }
         @Override
-        public void visit(EndMarkerToken token) { tokens.add(token); }
+        public void visit(EndMarkerToken token) { add(token); }
         @Override
-        public void visit(KeywordToken token) { tokens.add(token); }
+        public void visit(KeywordToken token) { add(token); }
         @Override
-        public void visit(NewLineToken token) { tokens.add(token); }
+        public void visit(NewLineToken token) { add(token); }
         @Override
-        public void visit(NumericConstantToken token) { tokens.add(token); }
+        public void visit(NumericConstantToken token) { add(token); }
         @Override
-        public void visit(ReferenceToken token) { tokens.add(token); }
+        public void visit(ReferenceToken token) { add(token); }
         @Override
-        public void visit(StartMarkerToken token) { tokens.add(token); }
+        public void visit(StartMarkerToken token) { add(token); }
         @Override
-        public void visit(StringConstantToken token) { tokens.add(token); }
+        public void visit(StringConstantToken token) { add(token); }
         @Override
-        public void visit(TextToken token) { tokens.add(token); }
+        public void visit(TextToken token) { add(token); }
     }
 
     protected void visit(StartStatementsBlockFragment fragment, Collection<Token> adds) {
@@ -644,68 +687,68 @@ public class TokenizeJavaFragmentVisitor implements JavaFragmentVisitor {
 
         switch (fragment.getLineCount()) {
             case 0:
-                tokens.addAll(adds);
-                tokens.add(TextToken.SPACE);
-                tokens.add(StartBlockToken.START_BLOCK);
-                tokens.add(TextToken.SPACE);
+                addAll(adds);
+                add(TextToken.SPACE);
+                add(StartBlockToken.START_BLOCK);
+                add(TextToken.SPACE);
                 break;
             case 1:
                 if (minimalLineCount == 0) {
-                    tokens.add(NewLineToken.NEWLINE_1);
-                    tokens.addAll(adds);
-                    tokens.add(TextToken.SPACE);
-                    tokens.add(StartBlockToken.START_BLOCK);
-                    tokens.add(TextToken.SPACE);
+                    add(NewLineToken.NEWLINE_1);
+                    addAll(adds);
+                    add(TextToken.SPACE);
+                    add(StartBlockToken.START_BLOCK);
+                    add(TextToken.SPACE);
                 } else {
-                    tokens.addAll(adds);
-                    tokens.add(TextToken.SPACE);
-                    tokens.add(StartBlockToken.START_BLOCK);
-                    tokens.add(NewLineToken.NEWLINE_1);
+                    addAll(adds);
+                    add(TextToken.SPACE);
+                    add(StartBlockToken.START_BLOCK);
+                    add(NewLineToken.NEWLINE_1);
                 }
                 break;
             case 2:
                 switch (minimalLineCount) {
                     case 0:
-                        tokens.add(NewLineToken.NEWLINE_2);
-                        tokens.addAll(adds);
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(TextToken.SPACE);
+                        add(NewLineToken.NEWLINE_2);
+                        addAll(adds);
+                        add(TextToken.SPACE);
+                        add(StartBlockToken.START_BLOCK);
+                        add(TextToken.SPACE);
                         break;
                     case 1:
-                        tokens.add(NewLineToken.NEWLINE_1);
-                        tokens.addAll(adds);
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_1);
+                        add(NewLineToken.NEWLINE_1);
+                        addAll(adds);
+                        add(TextToken.SPACE);
+                        add(StartBlockToken.START_BLOCK);
+                        add(NewLineToken.NEWLINE_1);
                         break;
                     default:
-                        tokens.addAll(adds);
-                        tokens.add(NewLineToken.NEWLINE_1);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(NewLineToken.NEWLINE_1);
+                        addAll(adds);
+                        add(NewLineToken.NEWLINE_1);
+                        add(StartBlockToken.START_BLOCK);
+                        add(NewLineToken.NEWLINE_1);
                 }
                 break;
             default:
                 switch (minimalLineCount) {
                     case 0:
-                        tokens.add(new NewLineToken(fragment.getLineCount()));
-                        tokens.addAll(adds);
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(TextToken.SPACE);
+                        addNewLine(fragment.getLineCount());
+                        addAll(adds);
+                        add(TextToken.SPACE);
+                        add(StartBlockToken.START_BLOCK);
+                        add(TextToken.SPACE);
                         break;
                     case 1:
-                        tokens.addAll(adds);
-                        tokens.add(TextToken.SPACE);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(new NewLineToken(fragment.getLineCount()));
+                        addAll(adds);
+                        add(TextToken.SPACE);
+                        add(StartBlockToken.START_BLOCK);
+                        addNewLine(fragment.getLineCount());
                         break;
                     default:
-                        tokens.addAll(adds);
-                        tokens.add(NewLineToken.NEWLINE_1);
-                        tokens.add(StartBlockToken.START_BLOCK);
-                        tokens.add(new NewLineToken(fragment.getLineCount() - 1));
+                        addAll(adds);
+                        add(NewLineToken.NEWLINE_1);
+                        add(StartBlockToken.START_BLOCK);
+                        addNewLine(fragment.getLineCount() - 1);
                 }
                 break;
         }
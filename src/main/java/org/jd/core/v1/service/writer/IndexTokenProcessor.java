@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.writer;
+
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.model.token.Token;
+import org.jd.core.v1.service.writer.visitor.IndexTokenVisitor;
+
+import java.util.List;
+
+/**
+ * Write the declarations, references and string constants of a list of tokens to a
+ * {@link org.jd.core.v1.api.printer.Printer}, without the text.<br><br>
+ *
+ * Input:  List<{@link org.jd.core.v1.model.token.Token}><br>
+ * Output: -<br>
+ */
+public class IndexTokenProcessor {
+
+    public void process(DecompileContext decompileContext) {
+        Printer printer = decompileContext.getPrinter();
+        List<Token> tokens = decompileContext.getTokens();
+        IndexTokenVisitor visitor = new IndexTokenVisitor();
+
+        printer.start(decompileContext.getMaxLineNumber(), decompileContext.getMajorVersion(), decompileContext.getMinorVersion());
+        visitor.start(printer);
+
+        for (Token token : tokens) {
+            token.accept(visitor);
+        }
+
+        printer.end();
+    }
+}
@@ -8,7 +8,9 @@
 package org.jd.core.v1.service.writer;
 
 import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.api.printer.SourceMapPrinter;
 import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.model.token.PackedTokens;
 import org.jd.core.v1.model.token.Token;
 import org.jd.core.v1.service.writer.visitor.PrintTokenVisitor;
 
@@ -17,24 +19,36 @@ import java.util.List;
 /**
  * Write a list of tokens to a {@link org.jd.core.v1.api.printer.Printer}.<br><br>
  *
- * Input:  List<{@link org.jd.core.v1.model.token.Token}><br>
+ * Input:  List<{@link org.jd.core.v1.model.token.Token}> or {@link org.jd.core.v1.model.token.PackedTokens}<br>
  * Output: -<br>
  */
 public class WriteTokenProcessor {
 
     public void process(DecompileContext decompileContext) {
         Printer printer = decompileContext.getPrinter();
-        List<Token> tokens = decompileContext.getTokens();
+        PackedTokens packedTokens = decompileContext.getPackedTokens();
         PrintTokenVisitor visitor = new PrintTokenVisitor();
         int maxLineNumber = decompileContext.getMaxLineNumber();
         int majorVersion = decompileContext.getMajorVersion();
         int minorVersion = decompileContext.getMinorVersion();
 
         printer.start(maxLineNumber, majorVersion, minorVersion);
-        visitor.start(printer, tokens);
 
-        for (Token token : tokens) {
-            token.accept(visitor);
+        if ((printer instanceof SourceMapPrinter sourceMapPrinter) && (decompileContext.getLineNumberTables() != null)) {
+            sourceMapPrinter.lineNumberTables(decompileContext.getLineNumberTables());
+        }
+
+        if (packedTokens == null) {
+            List<Token> tokens = decompileContext.getTokens();
+
+            visitor.start(printer, tokens);
+
+            for (Token token : tokens) {
+                token.accept(visitor);
+            }
+        } else {
+            visitor.start(printer, packedTokens);
+            visitor.printPackedTokens();
         }
 
         visitor.end();
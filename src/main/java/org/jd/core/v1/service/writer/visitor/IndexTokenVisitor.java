@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.writer.visitor;
+
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.model.token.AbstractNopTokenVisitor;
+import org.jd.core.v1.model.token.CharacterConstantToken;
+import org.jd.core.v1.model.token.DeclarationToken;
+import org.jd.core.v1.model.token.ReferenceToken;
+import org.jd.core.v1.model.token.StringConstantToken;
+
+/**
+ * Send only the declarations, the references and the string constants to the printer: no text,
+ * no line.
+ */
+public class IndexTokenVisitor extends AbstractNopTokenVisitor {
+    private Printer printer;
+
+    public void start(Printer printer) {
+        this.printer = printer;
+    }
+
+    @Override
+    public void visit(CharacterConstantToken token) {
+        printer.printStringConstant('\'' + token.getCharacter() + '\'', token.getOwnerInternalName());
+    }
+
+    @Override
+    public void visit(DeclarationToken token) {
+        printer.printDeclaration(token.getType(), token.getInternalTypeName(), token.getName(), token.getDescriptor());
+    }
+
+    @Override
+    public void visit(ReferenceToken token) {
+        printer.printReference(token.getType(), token.getInternalTypeName(), token.getName(), token.getDescriptor(), token.getOwnerInternalName());
+    }
+
+    @Override
+    public void visit(StringConstantToken token) {
+        printer.printStringConstant('"' + token.text() + '"', token.getOwnerInternalName());
+    }
+}
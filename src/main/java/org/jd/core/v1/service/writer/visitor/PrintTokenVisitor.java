@@ -8,6 +8,7 @@
 package org.jd.core.v1.service.writer.visitor;
 
 import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.api.printer.SourceMapPrinter;
 import org.jd.core.v1.model.token.AbstractNopTokenVisitor;
 import org.jd.core.v1.model.token.BooleanConstantToken;
 import org.jd.core.v1.model.token.CharacterConstantToken;
@@ -18,6 +19,7 @@ import org.jd.core.v1.model.token.KeywordToken;
 import org.jd.core.v1.model.token.LineNumberToken;
 import org.jd.core.v1.model.token.NewLineToken;
 import org.jd.core.v1.model.token.NumericConstantToken;
+import org.jd.core.v1.model.token.PackedTokens;
 import org.jd.core.v1.model.token.ReferenceToken;
 import org.jd.core.v1.model.token.StartBlockToken;
 import org.jd.core.v1.model.token.StartMarkerToken;
@@ -26,6 +28,7 @@ import org.jd.core.v1.model.token.TextToken;
 import org.jd.core.v1.model.token.Token;
 import org.jd.core.v1.model.token.TokenVisitor;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.jd.core.v1.api.printer.Printer.UNKNOWN_LINE_NUMBER;
@@ -35,15 +38,33 @@ public class PrintTokenVisitor implements TokenVisitor {
     private final SearchLineNumberVisitor searchLineNumberVisitor = new SearchLineNumberVisitor();
 
     private Printer printer;
+    private SourceMapPrinter sourceMapPrinter;
     private List<Token> tokens;
+    private PackedTokens packedTokens;
     private int index;
     private int newLineCount;
+    private int[] pendingLineNumbers = new int[8];
+    private int pendingLineNumberCount;
 
     public void start(Printer printer, List<Token> tokens) {
         this.printer = printer;
+        this.sourceMapPrinter = (printer instanceof SourceMapPrinter) ? (SourceMapPrinter)printer : null;
         this.tokens = tokens;
+        this.packedTokens = null;
         this.index = 0;
         this.newLineCount = 0;
+        this.pendingLineNumberCount = 0;
+        printer.startLine(searchLineNumber());
+    }
+
+    public void start(Printer printer, PackedTokens packedTokens) {
+        this.printer = printer;
+        this.sourceMapPrinter = (printer instanceof SourceMapPrinter) ? (SourceMapPrinter)printer : null;
+        this.tokens = null;
+        this.packedTokens = packedTokens;
+        this.index = 0;
+        this.newLineCount = 0;
+        this.pendingLineNumberCount = 0;
         printer.startLine(searchLineNumber());
     }
 
@@ -123,6 +144,7 @@ public class PrintTokenVisitor implements TokenVisitor {
 
     @Override
     public void visit(LineNumberToken token) {
+        printLineNumber(token.lineNumber());
         index++;
     }
 
@@ -154,6 +176,83 @@ public class PrintTokenVisitor implements TokenVisitor {
         index++;
     }
 
+    /**
+     * Print the tokens passed to {@link #start(Printer, PackedTokens)}, like the visit methods.
+     */
+    public void printPackedTokens() {
+        int size = packedTokens.size();
+
+        while (index < size) {
+            switch (packedTokens.getOpcode(index)) {
+                case PackedTokens.BOOLEAN_CONSTANT:
+                    prepareNewLine();
+                    printer.printKeyword(packedTokens.getOperand(index, 1) != 0 ? "true" : "false");
+                    break;
+                case PackedTokens.CHARACTER_CONSTANT:
+                    prepareNewLine();
+                    printer.printStringConstant('\'' + packedTokens.getString(index, 1) + '\'', packedTokens.getString(index, 2));
+                    break;
+                case PackedTokens.DECLARATION:
+                    prepareNewLine();
+                    printer.printDeclaration(packedTokens.getOperand(index, 1), packedTokens.getString(index, 2), packedTokens.getString(index, 3), packedTokens.getString(index, 4));
+                    break;
+                case PackedTokens.REFERENCE:
+                    prepareNewLine();
+                    printer.printReference(packedTokens.getOperand(index, 1), packedTokens.getString(index, 2), packedTokens.getString(index, 3), packedTokens.getString(index, 4), packedTokens.getString(index, 5));
+                    break;
+                case PackedTokens.START_BLOCK:
+                    prepareNewLine();
+                    printer.printText(packedTokens.getString(index, 1));
+                    printer.indent();
+                    if (packedTokens.getOperand(index, 2) != 0) {
+                        printer.indent();
+                    }
+                    break;
+                case PackedTokens.END_BLOCK:
+                    printer.unindent();
+                    if (packedTokens.getOperand(index, 2) != 0) {
+                        printer.unindent();
+                    }
+                    prepareNewLine();
+                    printer.printText(packedTokens.getString(index, 1));
+                    break;
+                case PackedTokens.START_MARKER:
+                    prepareNewLine();
+                    printer.startMarker(packedTokens.getOperand(index, 1));
+                    break;
+                case PackedTokens.END_MARKER:
+                    prepareNewLine();
+                    printer.endMarker(packedTokens.getOperand(index, 1));
+                    break;
+                case PackedTokens.NEW_LINE:
+                    newLineCount += packedTokens.getOperand(index, 1);
+                    break;
+                case PackedTokens.KEYWORD:
+                    prepareNewLine();
+                    printer.printKeyword(packedTokens.getString(index, 1));
+                    break;
+                case PackedTokens.NUMERIC_CONSTANT:
+                    prepareNewLine();
+                    printer.printNumericConstant(packedTokens.getString(index, 1));
+                    break;
+                case PackedTokens.STRING_CONSTANT:
+                    prepareNewLine();
+                    printer.printStringConstant('"' + packedTokens.getString(index, 1) + '"', packedTokens.getString(index, 2));
+                    break;
+                case PackedTokens.TEXT:
+                    prepareNewLine();
+                    printer.printText(packedTokens.getString(index, 1));
+                    break;
+                default:
+                    // LINE_NUMBER
+                    printLineNumber(packedTokens.getOperand(index, 1));
+                    break;
+            }
+
+            index++;
+        }
+    }
+
     protected void prepareNewLine() {
         if (newLineCount > 0) {
             printer.endLine();
@@ -170,10 +269,33 @@ public class PrintTokenVisitor implements TokenVisitor {
 
             printer.startLine(searchLineNumber());
             newLineCount = 0;
+
+            for (int i=0; i<pendingLineNumberCount; i++) {
+                sourceMapPrinter.printLineNumber(pendingLineNumbers[i]);
+            }
+            pendingLineNumberCount = 0;
+        }
+    }
+
+    protected void printLineNumber(int lineNumber) {
+        if (sourceMapPrinter != null) {
+            if (newLineCount == 0) {
+                sourceMapPrinter.printLineNumber(lineNumber);
+            } else {
+                // Position known once the next line is started
+                if (pendingLineNumberCount == pendingLineNumbers.length) {
+                    pendingLineNumbers = Arrays.copyOf(pendingLineNumbers, 2 * pendingLineNumberCount);
+                }
+                pendingLineNumbers[pendingLineNumberCount++] = lineNumber;
+            }
         }
     }
 
     protected int searchLineNumber() {
+        if (packedTokens != null) {
+            return searchPackedLineNumber();
+        }
+
         // Backward search
         searchLineNumberVisitor.reset();
 
@@ -207,6 +329,36 @@ public class PrintTokenVisitor implements TokenVisitor {
         return UNKNOWN_LINE_NUMBER;
     }
 
+    protected int searchPackedLineNumber() {
+        // Backward search
+        for (int i=index; i>=0 && i<packedTokens.size(); i--) {
+            int opcode = packedTokens.getOpcode(i);
+
+            if (opcode == PackedTokens.LINE_NUMBER) {
+                return packedTokens.getOperand(i, 1);
+            }
+            if (opcode == PackedTokens.NEW_LINE) {
+                break;
+            }
+        }
+
+        // Forward search
+        int size = packedTokens.size();
+
+        for (int i=index; i<size; i++) {
+            int opcode = packedTokens.getOpcode(i);
+
+            if (opcode == PackedTokens.LINE_NUMBER) {
+                return packedTokens.getOperand(i, 1);
+            }
+            if (opcode == PackedTokens.NEW_LINE) {
+                break;
+            }
+        }
+
+        return UNKNOWN_LINE_NUMBER;
+    }
+
     protected static class SearchLineNumberVisitor extends AbstractNopTokenVisitor {
         private int lineNumber;
         private int newLineCounter;
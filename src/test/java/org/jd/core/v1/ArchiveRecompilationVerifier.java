@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.compiler.CompilerUtil;
+import org.jd.core.v1.compiler.InMemoryClassLoader;
+import org.jd.core.v1.compiler.InMemoryJavaSourceFileObject;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.util.StringConstants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jd.core.ClassUtil;
+
+/**
+ * Round trip verification of a whole archive: the classes are decompiled in parallel, then all the
+ * sources are recompiled in one in-memory invocation, at the highest JDK level of the archive.
+ * References between the classes of the archive are resolved on the decompiled sources.
+ */
+public class ArchiveRecompilationVerifier {
+    protected final Map<String, Object> configuration = new HashMap<>();
+    protected final int threadCount;
+
+    public ArchiveRecompilationVerifier(int threadCount) {
+        this.threadCount = threadCount;
+        configuration.put("realignLineNumbers", Boolean.TRUE);
+    }
+
+    /**
+     * @param classPath class path of the recompilation, which should not contain the archive
+     */
+    public Report verify(ZipLoader loader, String classPath) throws Exception {
+        List<String> internalTypeNames = new ArrayList<>();
+
+        for (String path : loader.getMap().keySet()) {
+            if (path.endsWith(StringConstants.CLASS_FILE_SUFFIX) && (path.indexOf('$') == -1) && !path.endsWith("module-info.class")) {
+                internalTypeNames.add(ClassUtil.getInternalName(path));
+            }
+        }
+
+        // Decompile
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<DecompiledClass>> futures = new ArrayList<>(internalTypeNames.size());
+
+        try {
+            for (String internalTypeName : internalTypeNames) {
+                futures.add(executor.submit(() -> decompile(loader, internalTypeName)));
+            }
+
+            Report report = new Report();
+            List<InMemoryJavaSourceFileObject> sources = new ArrayList<>(futures.size());
+            int maxMajorVersion = 0;
+
+            for (Future<DecompiledClass> future : futures) {
+                DecompiledClass decompiledClass = future.get();
+
+                report.classCount++;
+
+                if (decompiledClass.failure != null) {
+                    report.decompilationFailures.put(decompiledClass.internalTypeName, decompiledClass.failure);
+                } else {
+                    sources.add(new InMemoryJavaSourceFileObject(decompiledClass.internalTypeName, decompiledClass.source));
+                    maxMajorVersion = Math.max(maxMajorVersion, decompiledClass.majorVersion);
+                }
+            }
+
+            // Recompile in one invocation: classes of different JDK levels may reference each other
+            report.compilationErrors.putAll(CompilerUtil.compileAll(CompilerUtil.getJavaVersion(maxMajorVersion), classPath, new InMemoryClassLoader(), sources));
+
+            return report;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    protected DecompiledClass decompile(ZipLoader loader, String internalTypeName) {
+        PlainTextPrinter printer = new PlainTextPrinter();
+
+        try {
+            DecompileContext ctx = new ClassFileToJavaSourceDecompiler().decompile(loader, printer, internalTypeName, configuration);
+            return new DecompiledClass(internalTypeName, printer.toString(), ctx.getMajorVersion(), null);
+        } catch (Throwable t) {
+            String failure = t.getClass().getName() + (t.getMessage() == null ? "" : ": " + t.getMessage());
+            return new DecompiledClass(internalTypeName, null, 0, failure);
+        }
+    }
+
+    protected static class DecompiledClass {
+        protected final String internalTypeName;
+        protected final String source;
+        protected final int majorVersion;
+        protected final String failure;
+
+        protected DecompiledClass(String internalTypeName, String source, int majorVersion, String failure) {
+            this.internalTypeName = internalTypeName;
+            this.source = source;
+            this.majorVersion = majorVersion;
+            this.failure = failure;
+        }
+    }
+
+    public static class Report {
+        protected int classCount;
+        protected final Map<String, String> decompilationFailures = new TreeMap<>();
+        protected final Map<String, List<String>> compilationErrors = new TreeMap<>();
+
+        public int getClassCount() { return classCount; }
+
+        /**
+         * @return the exception messages, indexed by internal type name
+         */
+        public Map<String, String> getDecompilationFailures() { return decompilationFailures; }
+
+        /**
+         * @return the compilation errors, indexed by internal type name; errors without source are indexed by ""
+         */
+        public Map<String, List<String>> getCompilationErrors() { return compilationErrors; }
+
+        public boolean isSuccess() {
+            return decompilationFailures.isEmpty() && compilationErrors.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+
+            sb.append("Classes: ").append(classCount)
+              .append(", decompilation failures: ").append(decompilationFailures.size())
+              .append(", recompilation failures: ").append(compilationErrors.size()).append('\n');
+
+            for (Map.Entry<String, String> entry : decompilationFailures.entrySet()) {
+                sb.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            for (Map.Entry<String, List<String>> entry : compilationErrors.entrySet()) {
+                for (String error : entry.getValue()) {
+                    sb.append(entry.getKey()).append(": ").append(error).append('\n');
+                }
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.compiler.CompilerUtil;
+import org.jd.core.v1.compiler.InMemoryClassLoader;
+import org.jd.core.v1.compiler.InMemoryJavaSourceFileObject;
+import org.jd.core.v1.loader.ZipLoader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+public class ArchiveRecompilationVerifierTest extends TestCase {
+
+    @Test
+    public void testJars() throws Exception {
+        ArchiveRecompilationVerifier verifier = new ArchiveRecompilationVerifier(4);
+        String classPath = System.getProperty("java.class.path");
+
+        for (String jar : new String[] { "/jar/assignment-jdk8u292.jar", "/jar/auto-unboxing-in-loop-jdk8u292.jar", "/jar/bool-exp-jdk8u292.jar" }) {
+            try (InputStream is = this.getClass().getResourceAsStream(jar)) {
+                ArchiveRecompilationVerifier.Report report = verifier.verify(new ZipLoader(is), classPath);
+
+                assertTrue(report.getClassCount() > 0);
+                assertTrue(report.toString(), report.isSuccess());
+            }
+        }
+    }
+
+    @Test
+    public void testReferencesAcrossJdkLevels() throws Exception {
+        String baseSource = "package org.jd.core.test.levels; public class Base { public int value() { return 1; } }";
+        String userSource = "package org.jd.core.test.levels; public class User extends Base { public Base copy() { return new User(); } }";
+        InMemoryClassLoader baseClassLoader = new InMemoryClassLoader();
+        InMemoryClassLoader userClassLoader = new InMemoryClassLoader();
+
+        // 'Base' compiled for Java 8, 'User' for Java 11
+        assertTrue(CompilerUtil.compile("1.8", baseClassLoader, new InMemoryJavaSourceFileObject("org.jd.core.test.levels.Base", baseSource)));
+        assertTrue(CompilerUtil.compile("11", userClassLoader,
+            new InMemoryJavaSourceFileObject("org.jd.core.test.levels.Base", baseSource),
+            new InMemoryJavaSourceFileObject("org.jd.core.test.levels.User", userSource)));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("org/jd/core/test/levels/Base.class"));
+            zos.write(baseClassLoader.getByteCode("org.jd.core.test.levels.Base"));
+            zos.putNextEntry(new ZipEntry("org/jd/core/test/levels/User.class"));
+            zos.write(userClassLoader.getByteCode("org.jd.core.test.levels.User"));
+        }
+
+        ArchiveRecompilationVerifier verifier = new ArchiveRecompilationVerifier(2);
+        ArchiveRecompilationVerifier.Report report = verifier.verify(new ZipLoader(new ByteArrayInputStream(baos.toByteArray())), System.getProperty("java.class.path"));
+
+        assertEquals(2, report.getClassCount());
+        assertTrue(report.toString(), report.isSuccess());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.loader.AsyncLoader;
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.util.StringConstants;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class BatchDecompilerTest extends AbstractJdTest {
+
+    @Test
+    public void testJdk170() throws Exception {
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            List<String> internalTypeNames = new ArrayList<>();
+
+            for (String entryName : loader.getMap().keySet()) {
+                if (entryName.endsWith(StringConstants.CLASS_FILE_SUFFIX) && entryName.indexOf('$') == -1) {
+                    internalTypeNames.add(entryName.substring(0, entryName.length() - StringConstants.CLASS_FILE_SUFFIX.length()));
+                }
+            }
+
+            // Unknown type
+            internalTypeNames.add(1, "unknown/Type");
+
+            List<String> names = new ArrayList<>();
+            List<String> sources = new ArrayList<>();
+            BatchDecompiler.Metrics metrics = new BatchDecompiler(3, 2).decompile(loader, internalTypeNames, Collections.emptyMap(), new BatchDecompiler.Output() {
+                @Override
+                public Printer newPrinter(String internalTypeName) {
+                    return new PlainTextPrinter();
+                }
+
+                @Override
+                public void decompiled(String internalTypeName, Printer printer) {
+                    names.add(internalTypeName);
+                    sources.add(printer.toString());
+                }
+
+                @Override
+                public void failed(String internalTypeName, Exception e) {
+                    names.add(internalTypeName);
+                    sources.add(null);
+                }
+            });
+
+            assertEquals(internalTypeNames, names);
+            assertNull(sources.get(1));
+
+            for (int i=0; i<names.size(); i++) {
+                if (i != 1) {
+                    PlainTextPrinter printer = new PlainTextPrinter();
+                    classFileToJavaSourceDecompiler.decompile(loader, printer, names.get(i));
+                    assertEquals(names.get(i), printer.toString(), sources.get(i));
+                }
+            }
+
+            int size = internalTypeNames.size();
+
+            assertEquals(size, metrics.getLoadStage().getCount());
+            assertEquals(size, metrics.getDecompileStage().getCount());
+            assertEquals(size, metrics.getWriteStage().getCount());
+            assertTrue(metrics.getDecompileStage().getMaxQueueDepth() <= 2);
+            assertTrue(metrics.getWriteStage().getMaxQueueDepth() <= 2);
+        }
+    }
+
+    @Test
+    public void testFailingPrefetch() throws Exception {
+        AsyncLoader loader = new AsyncLoader() {
+            @Override
+            public boolean canLoad(String internalName) {
+                return false;
+            }
+
+            @Override
+            public byte[] load(String internalName) {
+                return null;
+            }
+
+            @Override
+            public void prefetch(Collection<String> internalNames) {
+                throw new RejectedExecutionException("executor shut down");
+            }
+        };
+        BatchDecompiler.Output output = new BatchDecompiler.Output() {
+            @Override
+            public Printer newPrinter(String internalTypeName) {
+                return new PlainTextPrinter();
+            }
+
+            @Override
+            public void decompiled(String internalTypeName, Printer printer) {}
+
+            @Override
+            public void failed(String internalTypeName, Exception e) {}
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<BatchDecompiler.Metrics> future = executor.submit(() -> new BatchDecompiler(2, 2).decompile(loader, List.of("a/A", "a/B"), Collections.emptyMap(), output));
+
+            // Rethrown by the calling thread instead of waiting forever
+            future.get(30, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.printer.ClassFilePrinter;
+import org.jd.core.v1.printer.ColumnarClassFilePrinter;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import static jd.core.preferences.Preferences.REALIGN_LINE_NUMBERS;
+
+public class ColumnarClassFilePrinterTest extends AbstractJdTest {
+
+    @Test
+    public void testJdk170Basic() throws Exception {
+        String internalClassName = "org/jd/core/test/Basic";
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            Loader loader = new ZipLoader(is);
+            Map<String, String> configuration = Map.of(REALIGN_LINE_NUMBERS, "true");
+            String expected = new ClassFilePrinter().buildDecompiledOutput(configuration, loader, internalClassName + ".class", classFileToJavaSourceDecompiler);
+            ColumnarClassFilePrinter printer = new ColumnarClassFilePrinter();
+            String source = printer.buildDecompiledOutput(configuration, loader, internalClassName + ".class", classFileToJavaSourceDecompiler);
+
+            assertEquals(expected, source);
+            assertTrue(printer.getDeclarationCount() > 0);
+            assertTrue(printer.getReferenceCount() > 0);
+            // References are shared by hyperlinks
+            assertTrue(printer.getReferenceCount() < printer.getHyperlinkCount());
+
+            for (int i=0; i<printer.getHyperlinkCount(); i++) {
+                int reference = printer.getHyperlinkReference(i);
+                int position = printer.getHyperlinkPosition(i);
+                String internalTypeName = printer.getName(printer.getReferenceInternalTypeNameId(reference));
+                String name = printer.getName(printer.getReferenceNameId(reference));
+
+                assertNotNull(internalTypeName);
+
+                if (name != null && !"<init>".equals(name)) {
+                    assertEquals(name, source.substring(position, position + printer.getHyperlinkLength(i)));
+                }
+            }
+
+            assertNotNull(printer.getResult());
+        }
+    }
+}
@@ -6394,6 +6394,6 @@ public class ControlFlowGraphTest extends TestCase {
     }
 
     protected Method searchMethod(Loader loader, TypeMaker typeMaker, String internalTypeName, String methodName, String methodDescriptor) throws Exception {
-        return MethodUtil.searchMethod(loader, typeMaker, internalTypeName, methodName, methodDescriptor);
+        return MethodUtil.searchMethod(loader, internalTypeName, methodName, methodDescriptor);
     }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.apache.bcel.classfile.Method;
+import org.jd.core.v1.ControlFlowShapeCreator.Shape;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.model.cfg.ControlFlowGraph;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ControlFlowGraphGotoReducer;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ControlFlowGraphLoopReducer;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ControlFlowGraphMaker;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.ControlFlowGraphReducer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Measure the time of the control flow graph steps and of the whole decompilation of the
+ * methods generated by {@link ControlFlowShapeCreator}, for growing sizes.<br>
+ * For each size, the growth exponent 'e' of the decompilation time is printed: t(N2) / t(N1) =
+ * (N2 / N1)^e. An exponent greater than 1 denotes a super-linear step.<br><br>
+ *
+ * System properties:
+ * <ul>
+ * <li>jd.perf.output: output directory of 'cfg-shapes.csv', default 'target/perf'</li>
+ * <li>jd.perf.iterations: count of measured iterations, the median is kept, default 11</li>
+ * <li>jd.perf.warmup: count of unmeasured iterations, default 5</li>
+ * </ul>
+ */
+public class ControlFlowShapeBenchmark {
+    protected static final String CLASS_NAME = "org.jd.core.v1.ControlFlowShapeExample";
+
+    protected static final int[] SIZES = { 8, 16, 32, 64, 128, 256 };
+    protected static final int[] DEPTHS = { 1, 2, 3, 4, 6, 8 };
+
+    protected static final int MAKE = 0;
+    protected static final int GOTO_REDUCE = 1;
+    protected static final int LOOP_REDUCE = 2;
+    protected static final int REDUCE = 3;
+    protected static final int DECOMPILE = 4;
+    protected static final String[] STEPS = { "make", "gotoReduce", "loopReduce", "reduce", "decompile" };
+
+    protected final int iterations;
+    protected final int warmupCount;
+
+    public ControlFlowShapeBenchmark(int iterations, int warmupCount) {
+        this.iterations = iterations;
+        this.warmupCount = warmupCount;
+    }
+
+    public static int[] getSizes(Shape shape) {
+        return (shape == Shape.NESTED_LOOPS || shape == Shape.TRY_CATCH_FINALLY) ? DEPTHS : SIZES;
+    }
+
+    /**
+     * @return the median times in nanoseconds of the steps, indexed by {@link #MAKE}, ... {@link #DECOMPILE}
+     */
+    public long[] measure(Shape shape, int size) throws Exception {
+        ControlFlowShapeCreator creator = new ControlFlowShapeCreator(CLASS_NAME).add(shape, size);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        creator.create(out);
+
+        Method method = creator.getMethod(shape, size);
+        Loader loader = newLoader(creator.getInternalTypeName(), out.toByteArray());
+        ClassFileToJavaSourceDecompiler decompiler = new ClassFileToJavaSourceDecompiler();
+        PlainTextPrinter printer = new PlainTextPrinter();
+        long[][] times = new long[STEPS.length][iterations];
+
+        for (int i=-warmupCount; i<iterations; i++) {
+            long time0 = System.nanoTime();
+            ControlFlowGraph cfg = new ControlFlowGraphMaker().make(method);
+            long time1 = System.nanoTime();
+            ControlFlowGraphGotoReducer.reduce(cfg);
+            long time2 = System.nanoTime();
+            ControlFlowGraphLoopReducer.reduce(cfg);
+            long time3 = System.nanoTime();
+            reduce(cfg);
+            long time4 = System.nanoTime();
+            printer.init();
+            decompiler.decompile(loader, printer, creator.getInternalTypeName(), Collections.emptyMap());
+            long time5 = System.nanoTime();
+
+            if (i >= 0) {
+                times[MAKE][i] = time1 - time0;
+                times[GOTO_REDUCE][i] = time2 - time1;
+                times[LOOP_REDUCE][i] = time3 - time2;
+                times[REDUCE][i] = time4 - time3;
+                times[DECOMPILE][i] = time5 - time4;
+            }
+        }
+
+        long[] medians = new long[STEPS.length];
+
+        for (int s=0; s<STEPS.length; s++) {
+            Arrays.sort(times[s]);
+            medians[s] = times[s][iterations / 2];
+        }
+
+        return medians;
+    }
+
+    protected static boolean reduce(ControlFlowGraph cfg) {
+        BitSet visited = new BitSet();
+        BitSet jsrTargets = new BitSet();
+
+        for (ControlFlowGraphReducer controlFlowGraphReducer : ControlFlowGraphReducer.getPreferredReducers()) {
+            if (controlFlowGraphReducer.reduce(visited, cfg.getStart(), jsrTargets)) {
+                return true;
+            }
+            visited.clear();
+        }
+
+        return false;
+    }
+
+    protected static Loader newLoader(String internalTypeName, byte[] data) {
+        return new ClassPathLoader() {
+            @Override
+            public byte[] load(String internalName) throws IOException {
+                return internalTypeName.equals(internalName) ? data : super.load(internalName);
+            }
+
+            @Override
+            public boolean canLoad(String internalName) {
+                return internalTypeName.equals(internalName) || super.canLoad(internalName);
+            }
+        };
+    }
+
+    protected static double growthExponent(int size1, long time1, int size2, long time2) {
+        return Math.log((double)time2 / time1) / Math.log((double)size2 / size1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path outputDirectory = Paths.get(System.getProperty("jd.perf.output", "target/perf"));
+        int iterations = Integer.parseInt(System.getProperty("jd.perf.iterations", "11"));
+        int warmupCount = Integer.parseInt(System.getProperty("jd.perf.warmup", "5"));
+        ControlFlowShapeBenchmark benchmark = new ControlFlowShapeBenchmark(iterations, warmupCount);
+
+        Files.createDirectories(outputDirectory);
+
+        try (Writer writer = Files.newBufferedWriter(outputDirectory.resolve("cfg-shapes.csv"), StandardCharsets.UTF_8)) {
+            writer.write("shape,size," + String.join(",", STEPS) + ",exponent\n");
+
+            for (Shape shape : Shape.values()) {
+                int previousSize = 0;
+                long previousTime = 0;
+
+                System.out.println(shape + " (us): size, " + String.join(", ", STEPS) + ", exponent");
+
+                for (int size : getSizes(shape)) {
+                    long[] times = benchmark.measure(shape, size);
+                    String exponent = (previousSize == 0) ? "" : String.format(Locale.ROOT, "%.2f", growthExponent(previousSize, previousTime, size, times[DECOMPILE]));
+                    StringBuilder line = new StringBuilder().append(shape).append(',').append(size);
+
+                    for (long time : times) {
+                        line.append(',').append(time);
+                    }
+
+                    writer.write(line.append(',').append(exponent).append('\n').toString());
+
+                    System.out.printf(Locale.ROOT, "  %4d, %8d, %8d, %8d, %8d, %8d, %s%n",
+                        size, times[MAKE] / 1000, times[GOTO_REDUCE] / 1000, times[LOOP_REDUCE] / 1000,
+                        times[REDUCE] / 1000, times[DECOMPILE] / 1000, exponent);
+
+                    previousSize = size;
+                    previousTime = times[DECOMPILE];
+                }
+            }
+        }
+    }
+}
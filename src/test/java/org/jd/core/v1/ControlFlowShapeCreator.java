@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.generic.BranchHandle;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.GOTO;
+import org.apache.bcel.generic.IINC;
+import org.apache.bcel.generic.InstructionConst;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.LOOKUPSWITCH;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.PUSH;
+import org.apache.bcel.generic.TABLESWITCH;
+import org.apache.bcel.generic.Type;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generator of static methods with a parameterized control flow shape, compiled as javac does.
+ * Used to measure how the control flow graph time grows with the size of the methods.
+ */
+public class ControlFlowShapeCreator {
+    public enum Shape {
+        /** switch (i) { case 0: r = 1; break; ... case N-1: r = N; break; default: r = -1; } */
+        TABLE_SWITCH("tableSwitch"),
+        /** N nested 'for' loops from 0 to i */
+        NESTED_LOOPS("nestedLoops"),
+        /** if (i == 0) r = 1; else if (i == 1) r = 2; ... else r = -1; */
+        IF_ELSE_CHAIN("ifElseChain"),
+        /** N nested try { ... } catch (RuntimeException e) { ... } finally { ... } */
+        TRY_CATCH_FINALLY("tryCatchFinally"),
+        /** switch (s) { case "case0": r = 1; break; ... default: r = -1; } */
+        STRING_SWITCH("stringSwitch"),
+        /** return i == 0 ? 1 : i == 1 ? 2 : ... : -1; */
+        TERNARY_CASCADE("ternaryCascade");
+
+        private final String methodName;
+
+        Shape(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName(int size) {
+            return methodName + size;
+        }
+    }
+
+    private final String className;
+    private final ConstantPoolGen cp;
+    private final ClassGen cg;
+    private final InstructionFactory factory;
+
+    public ControlFlowShapeCreator(String className) {
+        this.className = className;
+        this.cg = new ClassGen(className, "java.lang.Object", className.substring(className.lastIndexOf('.') + 1) + ".java", Const.ACC_PUBLIC | Const.ACC_SUPER, new String[] {  });
+        this.cg.setMajor(Const.MAJOR_1_8);
+        this.cg.setMinor(0);
+        this.cp = cg.getConstantPool();
+        this.factory = new InstructionFactory(cg, cp);
+    }
+
+    public String getInternalTypeName() {
+        return className.replace('.', '/');
+    }
+
+    public ControlFlowShapeCreator add(Shape shape, int size) {
+        switch (shape) {
+            case TABLE_SWITCH:
+                createTableSwitch(shape.getMethodName(size), size);
+                break;
+            case NESTED_LOOPS:
+                createNestedLoops(shape.getMethodName(size), size);
+                break;
+            case IF_ELSE_CHAIN:
+                createIfElseChain(shape.getMethodName(size), size);
+                break;
+            case TRY_CATCH_FINALLY:
+                createTryCatchFinally(shape.getMethodName(size), size);
+                break;
+            case STRING_SWITCH:
+                createStringSwitch(shape.getMethodName(size), size);
+                break;
+            case TERNARY_CASCADE:
+                createTernaryCascade(shape.getMethodName(size), size);
+                break;
+        }
+        return this;
+    }
+
+    public Method getMethod(Shape shape, int size) {
+        return cg.containsMethod(shape.getMethodName(size), shape == Shape.STRING_SWITCH ? "(Ljava/lang/String;)I" : "(I)I");
+    }
+
+    public void create(OutputStream out) throws IOException {
+        createConstructor();
+        cg.getJavaClass().dump(out);
+    }
+
+    private void createConstructor() {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC, Type.VOID, Type.NO_ARGS, new String[] {  }, "<init>", className, il, cp);
+
+        il.append(InstructionFactory.createLoad(Type.OBJECT, 0));
+        il.append(factory.createInvoke("java.lang.Object", "<init>", Type.VOID, Type.NO_ARGS, Const.INVOKESPECIAL));
+        il.append(InstructionFactory.createReturn(Type.VOID));
+        addMethod(method, il);
+    }
+
+    private void createTableSwitch(String name, int size) {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "i" }, name, className, il, cp);
+
+        // Local 1: r
+        il.append(InstructionConst.ICONST_0);
+        il.append(InstructionFactory.createStore(Type.INT, 1));
+        il.append(InstructionFactory.createLoad(Type.INT, 0));
+        appendTableSwitch(il, 0, 1, size);
+        il.append(InstructionFactory.createLoad(Type.INT, 1));
+        il.append(InstructionConst.IRETURN);
+        addMethod(method, il);
+    }
+
+    /**
+     * Append 'switch (<stack>) { case k: r = k + 1; break; default: r = -1; }'.
+     */
+    private void appendTableSwitch(InstructionList il, int firstCase, int resultIndex, int size) {
+        InstructionList cases = new InstructionList();
+        InstructionList tail = new InstructionList();
+        InstructionHandle end = tail.append(InstructionConst.NOP);
+        int[] match = new int[size];
+        InstructionHandle[] targets = new InstructionHandle[size];
+
+        for (int k=0; k<size; k++) {
+            match[k] = firstCase + k;
+            targets[k] = cases.append(new PUSH(cp, k + 1));
+            cases.append(InstructionFactory.createStore(Type.INT, resultIndex));
+            cases.append(new GOTO(end));
+        }
+
+        InstructionHandle defaultTarget = cases.append(InstructionConst.ICONST_M1);
+        cases.append(InstructionFactory.createStore(Type.INT, resultIndex));
+
+        il.append(new TABLESWITCH(match, targets, defaultTarget));
+        il.append(cases);
+        il.append(tail);
+    }
+
+    private void createNestedLoops(String name, int depth) {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "n" }, name, className, il, cp);
+
+        // Local 1: r, locals 2 to depth+1: loop counters
+        il.append(InstructionConst.ICONST_0);
+        il.append(InstructionFactory.createStore(Type.INT, 1));
+        appendLoop(il, 0, depth);
+        il.append(InstructionFactory.createLoad(Type.INT, 1));
+        il.append(InstructionConst.IRETURN);
+        addMethod(method, il);
+    }
+
+    private void appendLoop(InstructionList il, int level, int depth) {
+        int counterIndex = 2 + level;
+
+        // for (int c=0; c<n; c++) { ... }
+        il.append(InstructionConst.ICONST_0);
+        il.append(InstructionFactory.createStore(Type.INT, counterIndex));
+        BranchHandle gotoCondition = il.append(new GOTO(null));
+        InstructionHandle bodyStart;
+
+        if (level + 1 < depth) {
+            bodyStart = il.append(InstructionConst.NOP);
+            appendLoop(il, level + 1, depth);
+        } else {
+            // r += c0 ^ ... ^ cN
+            bodyStart = il.append(InstructionFactory.createLoad(Type.INT, 1));
+            il.append(InstructionFactory.createLoad(Type.INT, 2));
+            for (int l=1; l<depth; l++) {
+                il.append(InstructionFactory.createLoad(Type.INT, 2 + l));
+                il.append(InstructionConst.IXOR);
+            }
+            il.append(InstructionConst.IADD);
+            il.append(InstructionFactory.createStore(Type.INT, 1));
+        }
+
+        il.append(new IINC(counterIndex, 1));
+        InstructionHandle condition = il.append(InstructionFactory.createLoad(Type.INT, counterIndex));
+        il.append(InstructionFactory.createLoad(Type.INT, 0));
+        il.append(InstructionFactory.createBranchInstruction(Const.IF_ICMPLT, bodyStart));
+        gotoCondition.setTarget(condition);
+    }
+
+    private void createIfElseChain(String name, int size) {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "i" }, name, className, il, cp);
+        List<BranchHandle> gotoEnds = new ArrayList<>();
+        BranchHandle previousTest = null;
+
+        // Local 1: r
+        for (int k=0; k<size; k++) {
+            InstructionHandle test = il.append(InstructionFactory.createLoad(Type.INT, 0));
+            if (previousTest != null) {
+                previousTest.setTarget(test);
+            }
+            il.append(new PUSH(cp, k));
+            previousTest = il.append(InstructionFactory.createBranchInstruction(Const.IF_ICMPNE, null));
+            il.append(new PUSH(cp, k + 1));
+            il.append(InstructionFactory.createStore(Type.INT, 1));
+            gotoEnds.add(il.append(new GOTO(null)));
+        }
+
+        InstructionHandle elseStart = il.append(InstructionConst.ICONST_M1);
+        il.append(InstructionFactory.createStore(Type.INT, 1));
+        InstructionHandle end = il.append(InstructionFactory.createLoad(Type.INT, 1));
+        il.append(InstructionConst.IRETURN);
+
+        if (previousTest != null) {
+            previousTest.setTarget(elseStart);
+        }
+        for (BranchHandle gotoEnd : gotoEnds) {
+            gotoEnd.setTarget(end);
+        }
+
+        addMethod(method, il);
+    }
+
+    private void createTryCatchFinally(String name, int depth) {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "i" }, name, className, il, cp);
+
+        // Local 1: r, locals 2+2*level and 3+2*level: caught exception and throwable
+        il.append(InstructionConst.ICONST_0);
+        il.append(InstructionFactory.createStore(Type.INT, 1));
+        appendTry(method, il, 0, depth);
+        il.append(InstructionFactory.createLoad(Type.INT, 1));
+        il.append(InstructionConst.IRETURN);
+        addMethod(method, il);
+    }
+
+    private void appendTry(MethodGen method, InstructionList il, int level, int depth) {
+        int exceptionIndex = 2 + 2 * level;
+        int throwableIndex = 3 + 2 * level;
+
+        // try { ... } catch (RuntimeException e) { r = -1; } finally { r++; }
+        InstructionHandle tryStart;
+        InstructionHandle tryEnd;
+
+        if (level + 1 < depth) {
+            tryStart = il.append(InstructionConst.NOP);
+            appendTry(method, il, level + 1, depth);
+            tryEnd = il.append(new IINC(1, level + 1));
+        } else {
+            // r = 100 / i;
+            tryStart = il.append(new PUSH(cp, 100));
+            il.append(InstructionFactory.createLoad(Type.INT, 0));
+            il.append(InstructionConst.IDIV);
+            tryEnd = il.append(InstructionFactory.createStore(Type.INT, 1));
+        }
+
+        il.append(new IINC(1, 1));
+        BranchHandle gotoAfterTry = il.append(new GOTO(null));
+
+        InstructionHandle catchStart = il.append(InstructionFactory.createStore(Type.OBJECT, exceptionIndex));
+        il.append(InstructionConst.ICONST_M1);
+        InstructionHandle catchEnd = il.append(InstructionFactory.createStore(Type.INT, 1));
+        il.append(new IINC(1, 1));
+        BranchHandle gotoAfterCatch = il.append(new GOTO(null));
+
+        InstructionHandle finallyStart = il.append(InstructionFactory.createStore(Type.OBJECT, throwableIndex));
+        il.append(new IINC(1, 1));
+        il.append(InstructionFactory.createLoad(Type.OBJECT, throwableIndex));
+        il.append(InstructionConst.ATHROW);
+
+        InstructionHandle after = il.append(InstructionConst.NOP);
+
+        gotoAfterTry.setTarget(after);
+        gotoAfterCatch.setTarget(after);
+
+        method.addExceptionHandler(tryStart, tryEnd, catchStart, new ObjectType("java.lang.RuntimeException"));
+        method.addExceptionHandler(tryStart, tryEnd, finallyStart, null);
+        method.addExceptionHandler(catchStart, catchEnd, finallyStart, null);
+    }
+
+    private void createStringSwitch(String name, int size) {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.STRING }, new String[] { "s" }, name, className, il, cp);
+        Map<Integer, List<Integer>> groups = new TreeMap<>();
+
+        for (int k=0; k<size; k++) {
+            groups.computeIfAbsent(getCaseLabel(k).hashCode(), h -> new ArrayList<>()).add(k);
+        }
+
+        // Locals 1: s copy, 2: index, 3: r
+        il.append(InstructionFactory.createLoad(Type.OBJECT, 0));
+        il.append(InstructionFactory.createStore(Type.OBJECT, 1));
+        il.append(InstructionConst.ICONST_M1);
+        il.append(InstructionFactory.createStore(Type.INT, 2));
+        il.append(InstructionFactory.createLoad(Type.OBJECT, 1));
+        il.append(factory.createInvoke("java.lang.String", "hashCode", Type.INT, Type.NO_ARGS, Const.INVOKEVIRTUAL));
+
+        // switch (s.hashCode()) { case h: if (s.equals("...")) index = k; break; ... }
+        InstructionList cases = new InstructionList();
+        InstructionList tail = new InstructionList();
+        InstructionHandle secondSwitch = tail.append(InstructionFactory.createLoad(Type.INT, 2));
+        int[] match = new int[groups.size()];
+        InstructionHandle[] targets = new InstructionHandle[groups.size()];
+        int i = 0;
+
+        for (Map.Entry<Integer, List<Integer>> group : groups.entrySet()) {
+            BranchHandle previousTest = null;
+
+            match[i] = group.getKey();
+
+            for (int k : group.getValue()) {
+                InstructionHandle test = cases.append(InstructionFactory.createLoad(Type.OBJECT, 1));
+                if (previousTest == null) {
+                    targets[i] = test;
+                } else {
+                    previousTest.setTarget(test);
+                }
+                cases.append(new PUSH(cp, getCaseLabel(k)));
+                cases.append(factory.createInvoke("java.lang.String", "equals", Type.BOOLEAN, new Type[] { Type.OBJECT }, Const.INVOKEVIRTUAL));
+                previousTest = cases.append(InstructionFactory.createBranchInstruction(Const.IFEQ, null));
+                cases.append(new PUSH(cp, k));
+                cases.append(InstructionFactory.createStore(Type.INT, 2));
+                cases.append(new GOTO(secondSwitch));
+            }
+
+            previousTest.setTarget(cases.append(new GOTO(secondSwitch)));
+            i++;
+        }
+
+        il.append(new LOOKUPSWITCH(match, targets, secondSwitch));
+        il.append(cases);
+        il.append(tail);
+        appendTableSwitch(il, 0, 3, size);
+        il.append(InstructionFactory.createLoad(Type.INT, 3));
+        il.append(InstructionConst.IRETURN);
+        addMethod(method, il);
+    }
+
+    protected static String getCaseLabel(int k) {
+        return "case" + k;
+    }
+
+    private void createTernaryCascade(String name, int size) {
+        InstructionList il = new InstructionList();
+        MethodGen method = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "i" }, name, className, il, cp);
+        List<BranchHandle> gotoEnds = new ArrayList<>();
+        BranchHandle previousTest = null;
+
+        for (int k=0; k<size; k++) {
+            InstructionHandle test = il.append(InstructionFactory.createLoad(Type.INT, 0));
+            if (previousTest != null) {
+                previousTest.setTarget(test);
+            }
+            il.append(new PUSH(cp, k));
+            previousTest = il.append(InstructionFactory.createBranchInstruction(Const.IF_ICMPNE, null));
+            il.append(new PUSH(cp, k + 1));
+            gotoEnds.add(il.append(new GOTO(null)));
+        }
+
+        InstructionHandle last = il.append(InstructionConst.ICONST_M1);
+        InstructionHandle end = il.append(InstructionConst.IRETURN);
+
+        if (previousTest != null) {
+            previousTest.setTarget(last);
+        }
+        for (BranchHandle gotoEnd : gotoEnds) {
+            gotoEnd.setTarget(end);
+        }
+
+        addMethod(method, il);
+    }
+
+    private void addMethod(MethodGen method, InstructionList il) {
+        // No local variable table: names are generated by the decompiler
+        method.removeLocalVariables();
+        method.setMaxStack();
+        method.setMaxLocals();
+        cg.addMethod(method.getMethod());
+        il.dispose();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.ControlFlowShapeCreator.Shape;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.printer.StringBuilderPrinter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+public class ControlFlowShapeCreatorTest extends AbstractJdTest {
+
+    @Test
+    public void testShapes() throws Exception {
+        for (Shape shape : Shape.values()) {
+            ControlFlowShapeCreator creator = new ControlFlowShapeCreator(ControlFlowShapeBenchmark.CLASS_NAME);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            for (int size=1; size<=3; size++) {
+                creator.add(shape, size);
+            }
+
+            creator.create(out);
+
+            Loader loader = ControlFlowShapeBenchmark.newLoader(creator.getInternalTypeName(), out.toByteArray());
+            String source = decompileSuccess(loader, new StringBuilderPrinter(), creator.getInternalTypeName());
+
+            for (int size=1; size<=3; size++) {
+                assertTrue(source.contains(shape.getMethodName(size) + "("));
+            }
+        }
+    }
+
+    @Test
+    public void testBenchmark() throws Exception {
+        ControlFlowShapeBenchmark benchmark = new ControlFlowShapeBenchmark(1, 0);
+
+        for (Shape shape : Shape.values()) {
+            long[] times = benchmark.measure(shape, ControlFlowShapeBenchmark.getSizes(shape)[0]);
+
+            assertEquals(5, times.length);
+            assertTrue(times[4] > 0);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-class measures of a corpus decompilation: CSV and JSON reports, percentiles and comparison
+ * with a baseline report.
+ */
+public class CorpusPerformanceReport {
+    protected static final String CSV_HEADER = "jar,class,timeNanos,allocatedBytes,fallbacks,failure";
+
+    private final List<ClassMeasure> measures = new ArrayList<>();
+
+    public void add(ClassMeasure measure) {
+        measures.add(measure);
+    }
+
+    public List<ClassMeasure> getMeasures() {
+        return measures;
+    }
+
+    public int getFailureCount() {
+        int count = 0;
+        for (ClassMeasure measure : measures) {
+            if (measure.failure != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getFallbackCount() {
+        long count = 0;
+        for (ClassMeasure measure : measures) {
+            count += measure.fallbacks;
+        }
+        return count;
+    }
+
+    /**
+     * @param percent percentile, between 0 and 100
+     * @return the nearest-rank percentile of the decompilation times, 0 if the report is empty
+     */
+    public long getTimePercentile(double percent) {
+        long[] times = new long[measures.size()];
+        for (int i=0; i<times.length; i++) {
+            times[i] = measures.get(i).timeNanos;
+        }
+        return percentile(times, percent);
+    }
+
+    protected static long percentile(long[] values, double percent) {
+        if (values.length == 0) {
+            return 0;
+        }
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int rank = (int)Math.ceil(percent / 100.0 * sorted.length);
+
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+
+    public List<ClassMeasure> getSlowest(int count) {
+        List<ClassMeasure> sorted = new ArrayList<>(measures);
+        sorted.sort(Comparator.comparingLong((ClassMeasure m) -> m.timeNanos).reversed());
+        return sorted.subList(0, Math.min(count, sorted.size()));
+    }
+
+    /**
+     * Compare the times with a baseline report. A class regresses if its time grows by more than
+     * 'thresholdPercent' and by more than 'minDeltaNanos', to ignore the noise of the fast classes.
+     * A class failing now and not in the baseline is always a regression.
+     */
+    public List<Regression> diff(CorpusPerformanceReport baseline, double thresholdPercent, long minDeltaNanos) {
+        Map<String, ClassMeasure> baselineMeasures = new HashMap<>();
+        List<Regression> regressions = new ArrayList<>();
+
+        for (ClassMeasure measure : baseline.measures) {
+            baselineMeasures.put(measure.getKey(), measure);
+        }
+
+        for (ClassMeasure measure : measures) {
+            ClassMeasure previous = baselineMeasures.get(measure.getKey());
+
+            if (previous != null) {
+                long delta = measure.timeNanos - previous.timeNanos;
+
+                if ((measure.failure != null) && (previous.failure == null)) {
+                    regressions.add(new Regression(previous, measure));
+                } else if ((delta > minDeltaNanos) && (delta * 100.0 > thresholdPercent * previous.timeNanos)) {
+                    regressions.add(new Regression(previous, measure));
+                } else if (measure.fallbacks > previous.fallbacks) {
+                    regressions.add(new Regression(previous, measure));
+                }
+            }
+        }
+
+        regressions.sort(Comparator.comparingLong((Regression r) -> r.current.timeNanos - r.baseline.timeNanos).reversed());
+
+        return regressions;
+    }
+
+    // --- CSV --- //
+    public void writeCsv(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+
+            for (ClassMeasure measure : measures) {
+                writer.write(quote(measure.jar));
+                writer.write(',');
+                writer.write(quote(measure.internalTypeName));
+                writer.write(',');
+                writer.write(Long.toString(measure.timeNanos));
+                writer.write(',');
+                writer.write(Long.toString(measure.allocatedBytes));
+                writer.write(',');
+                writer.write(Long.toString(measure.fallbacks));
+                writer.write(',');
+                if (measure.failure != null) {
+                    writer.write(quote(measure.failure));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    public static CorpusPerformanceReport readCsv(Path path) throws IOException {
+        CorpusPerformanceReport report = new CorpusPerformanceReport();
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+
+        for (int i=1; i<lines.size(); i++) {
+            String line = lines.get(i);
+
+            if (!line.isEmpty()) {
+                List<String> fields = split(line);
+                String failure = fields.get(5).isEmpty() ? null : fields.get(5);
+
+                report.add(new ClassMeasure(
+                    fields.get(0), fields.get(1), Long.parseLong(fields.get(2)), Long.parseLong(fields.get(3)),
+                    Long.parseLong(fields.get(4)), failure));
+            }
+        }
+
+        return report;
+    }
+
+    protected static String quote(String s) {
+        if ((s.indexOf(',') == -1) && (s.indexOf('"') == -1) && (s.indexOf('\n') == -1)) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"").replace('\n', ' ') + '"';
+    }
+
+    protected static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i=0, length=line.length(); i<length; i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c != '"') {
+                    sb.append(c);
+                } else if ((i+1 < length) && (line.charAt(i+1) == '"')) {
+                    sb.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+
+        fields.add(sb.toString());
+
+        return fields;
+    }
+
+    // --- JSON --- //
+    public void writeJson(Path path, int topCount) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        long totalTime = 0;
+        long totalAllocatedBytes = 0;
+
+        for (ClassMeasure measure : measures) {
+            totalTime += measure.timeNanos;
+            totalAllocatedBytes += Math.max(0, measure.allocatedBytes);
+        }
+
+        sb.append("{\n");
+        sb.append("  \"classCount\": ").append(measures.size()).append(",\n");
+        sb.append("  \"failureCount\": ").append(getFailureCount()).append(",\n");
+        sb.append("  \"fallbackCount\": ").append(getFallbackCount()).append(",\n");
+        sb.append("  \"totalTimeNanos\": ").append(totalTime).append(",\n");
+        sb.append("  \"totalAllocatedBytes\": ").append(totalAllocatedBytes).append(",\n");
+        sb.append("  \"timePercentilesNanos\": {");
+        sb.append("\"p50\": ").append(getTimePercentile(50)).append(", ");
+        sb.append("\"p90\": ").append(getTimePercentile(90)).append(", ");
+        sb.append("\"p99\": ").append(getTimePercentile(99)).append(", ");
+        sb.append("\"max\": ").append(getTimePercentile(100)).append("},\n");
+        sb.append("  \"slowest\": [");
+
+        List<ClassMeasure> slowest = getSlowest(topCount);
+
+        for (int i=0; i<slowest.size(); i++) {
+            ClassMeasure measure = slowest.get(i);
+
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"jar\": \"").append(escapeJson(measure.jar));
+            sb.append("\", \"class\": \"").append(escapeJson(measure.internalTypeName));
+            sb.append("\", \"timeNanos\": ").append(measure.timeNanos);
+            sb.append(", \"allocatedBytes\": ").append(measure.allocatedBytes);
+            sb.append(", \"fallbacks\": ").append(measure.fallbacks);
+            sb.append(", \"failure\": ");
+            if (measure.failure == null) {
+                sb.append("null}");
+            } else {
+                sb.append('"').append(escapeJson(measure.failure)).append("\"}");
+            }
+        }
+
+        sb.append(slowest.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+
+        Files.writeString(path, sb, StandardCharsets.UTF_8);
+    }
+
+    protected static String escapeJson(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+
+        for (int i=0, length=s.length(); i<length; i++) {
+            char c = s.charAt(i);
+
+            if ((c == '"') || (c == '\\')) {
+                sb.append('\\').append(c);
+            } else if (c < 32) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int)c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    public static class ClassMeasure {
+        protected final String jar;
+        protected final String internalTypeName;
+        protected final long timeNanos;
+        protected final long allocatedBytes;
+        protected final long fallbacks;
+        protected final String failure;
+
+        /**
+         * @param allocatedBytes bytes allocated by the decompilation thread, -1 if unsupported by the JVM
+         * @param fallbacks      count of methods printed as byte code
+         * @param failure        message of the exception thrown, null if none
+         */
+        public ClassMeasure(String jar, String internalTypeName, long timeNanos, long allocatedBytes, long fallbacks, String failure) {
+            this.jar = jar;
+            this.internalTypeName = internalTypeName;
+            this.timeNanos = timeNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.fallbacks = fallbacks;
+            this.failure = failure;
+        }
+
+        public String getKey() { return jar + '!' + internalTypeName; }
+        public String getJar() { return jar; }
+        public String getInternalTypeName() { return internalTypeName; }
+        public long getTimeNanos() { return timeNanos; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public long getFallbacks() { return fallbacks; }
+        public String getFailure() { return failure; }
+    }
+
+    public static class Regression {
+        protected final ClassMeasure baseline;
+        protected final ClassMeasure current;
+
+        public Regression(ClassMeasure baseline, ClassMeasure current) {
+            this.baseline = baseline;
+            this.current = current;
+        }
+
+        public ClassMeasure getBaseline() { return baseline; }
+        public ClassMeasure getCurrent() { return current; }
+
+        @Override
+        public String toString() {
+            return current.getKey() + ": " + (baseline.timeNanos / 1000) + " us -> " + (current.timeNanos / 1000) + " us" +
+                ", fallbacks " + baseline.fallbacks + " -> " + current.fallbacks +
+                (current.failure == null ? "" : ", failure: " + current.failure);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.CorpusPerformanceReport.ClassMeasure;
+import org.jd.core.v1.CorpusPerformanceReport.Regression;
+import org.jd.core.v1.JarFileToJavaSourceTest.CounterPrinter;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.util.StringConstants;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jd.core.ClassUtil;
+
+/**
+ * Offline runner decompiling every class of the jars of 'src/test/resources/jar' and of the test
+ * class path, as {@link JarFileToJavaSourceTest} without the download and the recompilation.<br>
+ * Writes 'perf-report.csv' and 'perf-report.json' and compares with a baseline CSV report.<br><br>
+ *
+ * System properties:
+ * <ul>
+ * <li>jd.perf.output: output directory, default 'target/perf'</li>
+ * <li>jd.perf.baseline: baseline CSV report, none by default</li>
+ * <li>jd.perf.threshold: regression threshold in percent, default 20</li>
+ * <li>jd.perf.minDeltaMillis: minimal time increase of a regression, default 5</li>
+ * <li>jd.perf.top: count of slowest classes in the JSON report, default 20</li>
+ * <li>jd.perf.warmup: count of unmeasured passes, default 1</li>
+ * <li>jd.perf.classpath: include the jars of the class path, default true</li>
+ * </ul>
+ */
+public class CorpusPerformanceRunner {
+    protected static final File RESOURCE_JAR_DIRECTORY = new File("src/test/resources/jar");
+
+    protected final Map<String, Object> configuration = new HashMap<>();
+    protected final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    protected final boolean allocatedBytesSupported;
+
+    public CorpusPerformanceRunner() {
+        configuration.put("realignLineNumbers", Boolean.TRUE);
+        allocatedBytesSupported = (threadMXBean instanceof com.sun.management.ThreadMXBean) &&
+            ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported() &&
+            ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    public static List<File> findJars(boolean includeClassPath) {
+        List<File> jars = new ArrayList<>();
+        File[] resourceJars = RESOURCE_JAR_DIRECTORY.listFiles((dir, name) -> name.endsWith(".jar"));
+
+        if (resourceJars != null) {
+            Arrays.sort(resourceJars);
+            jars.addAll(Arrays.asList(resourceJars));
+        }
+
+        if (includeClassPath) {
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                File file = new File(entry);
+
+                if (entry.endsWith(".jar") && file.isFile() && !jars.contains(file)) {
+                    jars.add(file);
+                }
+            }
+        }
+
+        return jars;
+    }
+
+    public CorpusPerformanceReport run(List<File> jars, int warmupCount) throws IOException {
+        CorpusPerformanceReport report = new CorpusPerformanceReport();
+
+        for (File jar : jars) {
+            ZipLoader loader;
+
+            try (InputStream is = new FileInputStream(jar)) {
+                loader = new ZipLoader(is);
+            }
+
+            for (int i=0; i<warmupCount; i++) {
+                run(jar.getName(), loader, new CorpusPerformanceReport());
+            }
+
+            run(jar.getName(), loader, report);
+        }
+
+        return report;
+    }
+
+    protected void run(String jarName, ZipLoader loader, CorpusPerformanceReport report) {
+        ClassFileToJavaSourceDecompiler decompiler = new ClassFileToJavaSourceDecompiler();
+        CounterPrinter printer = new CounterPrinter();
+
+        for (String path : loader.getMap().keySet()) {
+            if (path.endsWith(StringConstants.CLASS_FILE_SUFFIX) && (path.indexOf('$') == -1) && !path.endsWith("module-info.class")) {
+                String internalTypeName = ClassUtil.getInternalName(path);
+                String failure = null;
+
+                printer.init();
+                printer.errorInMethodCounter = 0;
+
+                long allocatedBytes0 = getAllocatedBytes();
+                long time0 = System.nanoTime();
+
+                try {
+                    decompiler.decompile(loader, printer, internalTypeName, configuration);
+                } catch (Throwable t) {
+                    failure = t.getClass().getName() + (t.getMessage() == null ? "" : ": " + t.getMessage());
+                }
+
+                long time = System.nanoTime() - time0;
+                long allocatedBytes = allocatedBytesSupported ? getAllocatedBytes() - allocatedBytes0 : -1;
+
+                report.add(new ClassMeasure(jarName, internalTypeName, time, allocatedBytes, printer.errorInMethodCounter, failure));
+            }
+        }
+    }
+
+    protected long getAllocatedBytes() {
+        if (allocatedBytesSupported) {
+            return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path outputDirectory = Paths.get(System.getProperty("jd.perf.output", "target/perf"));
+        String baseline = System.getProperty("jd.perf.baseline");
+        double threshold = Double.parseDouble(System.getProperty("jd.perf.threshold", "20"));
+        long minDeltaNanos = Long.parseLong(System.getProperty("jd.perf.minDeltaMillis", "5")) * 1_000_000L;
+        int topCount = Integer.parseInt(System.getProperty("jd.perf.top", "20"));
+        int warmupCount = Integer.parseInt(System.getProperty("jd.perf.warmup", "1"));
+        boolean includeClassPath = Boolean.parseBoolean(System.getProperty("jd.perf.classpath", "true"));
+
+        CorpusPerformanceReport report = new CorpusPerformanceRunner().run(findJars(includeClassPath), warmupCount);
+
+        Files.createDirectories(outputDirectory);
+        report.writeCsv(outputDirectory.resolve("perf-report.csv"));
+        report.writeJson(outputDirectory.resolve("perf-report.json"), topCount);
+
+        System.out.println("Classes: " + report.getMeasures().size() + ", failures: " + report.getFailureCount() + ", fallbacks: " + report.getFallbackCount());
+        System.out.println("Time p50/p90/p99/max: " +
+            (report.getTimePercentile(50) / 1000) + " / " + (report.getTimePercentile(90) / 1000) + " / " +
+            (report.getTimePercentile(99) / 1000) + " / " + (report.getTimePercentile(100) / 1000) + " us");
+        System.out.println("Slowest:");
+        for (ClassMeasure measure : report.getSlowest(topCount)) {
+            System.out.println("  " + (measure.getTimeNanos() / 1000) + " us \t" + measure.getKey());
+        }
+
+        if (baseline != null) {
+            List<Regression> regressions = report.diff(CorpusPerformanceReport.readCsv(Paths.get(baseline)), threshold, minDeltaNanos);
+
+            System.out.println("Regressions: " + regressions.size());
+            for (Regression regression : regressions) {
+                System.out.println("  " + regression);
+            }
+
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+}
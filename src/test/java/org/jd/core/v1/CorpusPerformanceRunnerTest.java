@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.CorpusPerformanceReport.ClassMeasure;
+import org.jd.core.v1.CorpusPerformanceReport.Regression;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CorpusPerformanceRunnerTest extends TestCase {
+
+    @Test
+    public void testResourceJars() throws Exception {
+        List<File> jars = CorpusPerformanceRunner.findJars(false);
+
+        assertFalse(jars.isEmpty());
+
+        CorpusPerformanceReport report = new CorpusPerformanceRunner().run(jars, 0);
+
+        assertFalse(report.getMeasures().isEmpty());
+        assertEquals(0, report.getFailureCount());
+
+        for (ClassMeasure measure : report.getMeasures()) {
+            assertTrue(measure.getTimeNanos() > 0);
+        }
+
+        assertTrue(report.getTimePercentile(50) <= report.getTimePercentile(90));
+        assertTrue(report.getTimePercentile(90) <= report.getTimePercentile(100));
+        assertEquals(report.getTimePercentile(100), report.getSlowest(1).get(0).getTimeNanos());
+
+        // Round trip
+        Path csv = Files.createTempFile("perf-report", ".csv");
+        Path json = Files.createTempFile("perf-report", ".json");
+
+        try {
+            report.writeCsv(csv);
+            report.writeJson(json, 5);
+
+            CorpusPerformanceReport copy = CorpusPerformanceReport.readCsv(csv);
+
+            assertEquals(report.getMeasures().size(), copy.getMeasures().size());
+            assertTrue(report.diff(copy, 0, 0).isEmpty());
+            assertTrue(Files.readString(json).contains("\"slowest\""));
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(json);
+        }
+    }
+
+    @Test
+    public void testDiff() throws Exception {
+        CorpusPerformanceReport baseline = new CorpusPerformanceReport();
+        CorpusPerformanceReport current = new CorpusPerformanceReport();
+
+        baseline.add(new ClassMeasure("a.jar", "a/Fast", 1_000, 10, 0, null));
+        baseline.add(new ClassMeasure("a.jar", "a/Slow", 10_000_000, 10, 0, null));
+        baseline.add(new ClassMeasure("a.jar", "a/Stable", 10_000_000, 10, 0, null));
+        baseline.add(new ClassMeasure("a.jar", "a/Broken", 1_000, 10, 0, null));
+        baseline.add(new ClassMeasure("a.jar", "a/Fallback", 1_000, 10, 0, null));
+
+        // Doubled but under the minimal delta
+        current.add(new ClassMeasure("a.jar", "a/Fast", 2_000, 10, 0, null));
+        current.add(new ClassMeasure("a.jar", "a/Slow", 20_000_000, 10, 0, null));
+        current.add(new ClassMeasure("a.jar", "a/Stable", 11_000_000, 10, 0, null));
+        current.add(new ClassMeasure("a.jar", "a/Broken", 1_000, 10, 0, "java.lang.NullPointerException, \"x\""));
+        current.add(new ClassMeasure("a.jar", "a/Fallback", 1_000, 10, 1, null));
+        current.add(new ClassMeasure("a.jar", "a/New", 90_000_000, 10, 0, null));
+
+        List<Regression> regressions = current.diff(baseline, 20, 1_000_000);
+
+        assertEquals(3, regressions.size());
+        assertEquals("a/Slow", regressions.get(0).getCurrent().getInternalTypeName());
+
+        // Quoted failure
+        Path csv = Files.createTempFile("perf-report", ".csv");
+
+        try {
+            current.writeCsv(csv);
+
+            CorpusPerformanceReport copy = CorpusPerformanceReport.readCsv(csv);
+
+            assertEquals("java.lang.NullPointerException, \"x\"", copy.getMeasures().get(3).getFailure());
+            assertNull(copy.getMeasures().get(0).getFailure());
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.javasyntax.CompilationUnit;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.ClassFileToJavaSyntaxProcessor;
+import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
+import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.JavaSyntaxToJavaFragmentProcessor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Measure the bytes allocated by the fragmenter, and by the whole decompilation, on expression heavy
+ * classes: arithmetic kernels and hashing code.<br><br>
+ *
+ * System properties:
+ * <ul>
+ * <li>jd.perf.iterations: count of measured iterations, the median is kept, default 11</li>
+ * <li>jd.perf.warmup: count of unmeasured iterations, default 5</li>
+ * </ul>
+ */
+public class FragmenterAllocationBenchmark {
+    protected static final String[] EXPRESSION_HEAVY_CLASSES = {
+        "java/lang/Math", "java/lang/Integer", "java/lang/Long", "java/util/HashMap", "java/util/zip/Adler32"
+    };
+
+    protected static final int FRAGMENTER = 0;
+    protected static final int DECOMPILE = 1;
+
+    protected final ClassFileDeserializer deserializer = new ClassFileDeserializer();
+    protected final ClassFileToJavaSyntaxProcessor converter = new ClassFileToJavaSyntaxProcessor();
+    protected final JavaSyntaxToJavaFragmentProcessor fragmenter = new JavaSyntaxToJavaFragmentProcessor();
+    protected final ClassFileToJavaSourceDecompiler decompiler = new ClassFileToJavaSourceDecompiler();
+    protected final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    protected final int iterations;
+    protected final int warmupCount;
+
+    public FragmenterAllocationBenchmark(int iterations, int warmupCount) {
+        this.iterations = iterations;
+        this.warmupCount = warmupCount;
+    }
+
+    public boolean isSupported() {
+        return (threadMXBean instanceof com.sun.management.ThreadMXBean) &&
+            ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported() &&
+            ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return the medians of the bytes allocated by the fragmenter and by the whole decompilation
+     */
+    public long[] measure(Loader loader, String internalTypeName) throws Exception {
+        long[][] bytes = new long[2][iterations];
+        PlainTextPrinter printer = new PlainTextPrinter();
+
+        for (int i=-warmupCount; i<iterations; i++) {
+            DecompileContext decompileContext = new DecompileContext();
+
+            decompileContext.setMainInternalTypeName(internalTypeName);
+            decompileContext.setConfiguration(Collections.emptyMap());
+            decompileContext.setLoader(loader);
+            decompileContext.setPrinter(printer);
+            decompileContext.setClassFile(deserializer.loadClassFile(loader, internalTypeName));
+
+            CompilationUnit compilationUnit = converter.process(decompileContext);
+
+            long bytes0 = getAllocatedBytes();
+            fragmenter.process(compilationUnit, decompileContext);
+            long bytes1 = getAllocatedBytes();
+            printer.init();
+            decompiler.decompile(loader, printer, internalTypeName, Collections.emptyMap());
+            long bytes2 = getAllocatedBytes();
+
+            if (i >= 0) {
+                bytes[FRAGMENTER][i] = bytes1 - bytes0;
+                bytes[DECOMPILE][i] = bytes2 - bytes1;
+            }
+        }
+
+        long[] medians = new long[2];
+
+        for (int s=0; s<2; s++) {
+            Arrays.sort(bytes[s]);
+            medians[s] = bytes[s][iterations / 2];
+        }
+
+        return medians;
+    }
+
+    protected long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.parseInt(System.getProperty("jd.perf.iterations", "11"));
+        int warmupCount = Integer.parseInt(System.getProperty("jd.perf.warmup", "5"));
+        FragmenterAllocationBenchmark benchmark = new FragmenterAllocationBenchmark(iterations, warmupCount);
+        ClassPathLoader loader = new ClassPathLoader();
+
+        if (!benchmark.isSupported()) {
+            System.err.println("Allocated memory measurement is not supported by this JVM");
+            return;
+        }
+
+        System.out.println("class (KiB): fragmenter, decompile");
+
+        for (String internalTypeName : EXPRESSION_HEAVY_CLASSES) {
+            long[] bytes = benchmark.measure(loader, internalTypeName);
+            System.out.printf(Locale.ROOT, "  %-24s %8d, %8d%n", internalTypeName, bytes[FRAGMENTER] / 1024, bytes[DECOMPILE] / 1024);
+        }
+    }
+}
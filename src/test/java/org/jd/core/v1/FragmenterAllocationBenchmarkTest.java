@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class FragmenterAllocationBenchmarkTest extends TestCase {
+
+    @Test
+    public void testBenchmark() throws Exception {
+        FragmenterAllocationBenchmark benchmark = new FragmenterAllocationBenchmark(1, 0);
+
+        if (benchmark.isSupported()) {
+            long[] bytes = benchmark.measure(new ClassPathLoader(), "java/util/zip/Adler32");
+
+            assertTrue(bytes[FragmenterAllocationBenchmark.FRAGMENTER] > 0);
+            assertTrue(bytes[FragmenterAllocationBenchmark.DECOMPILE] > bytes[FragmenterAllocationBenchmark.FRAGMENTER]);
+        }
+    }
+}
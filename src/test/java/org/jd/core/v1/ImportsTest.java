@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.stub.ImportConflicts;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ImportsTest extends AbstractJdTest {
+    protected static final Pattern IMPORT_PATTERN = Pattern.compile("import ([\\w.]+);");
+
+    @Test
+    public void testImportConflicts() throws Exception {
+        String internalClassName = ImportConflicts.class.getName().replace('.', '/');
+        PlainTextPrinter printer = new PlainTextPrinter();
+        DecompileContext decompileContext = classFileToJavaSourceDecompiler.decompile(new ClassPathLoader(), printer, internalClassName, Collections.emptyMap());
+        String source = printer.toString();
+
+        // Types referenced only by annotations are imported, the first referenced 'Date' wins
+        assertEquals(List.of(
+            "java.beans.Transient",
+            "java.lang.annotation.Retention",
+            "java.lang.annotation.RetentionPolicy",
+            "java.util.Date",
+            "java.util.List",
+            "java.util.concurrent.TimeUnit"), getImports(source));
+        assertTrue(source.contains("java.sql.Date toSqlDate()"));
+        assertTrue(source.contains("new java.sql.Date("));
+
+        // Line of the last statement of ImportConflicts
+        assertEquals(34, decompileContext.getMaxLineNumber());
+    }
+
+    @Test
+    public void testImportConflictsInReverseOrder() throws Exception {
+        class ReverseImportConflicts {
+            @SuppressWarnings("unused")
+            java.sql.Date sqlDate;
+
+            @SuppressWarnings("unused")
+            java.util.Date toDate() {
+                return new java.util.Date(sqlDate.getTime());
+            }
+        }
+
+        String internalClassName = ReverseImportConflicts.class.getName().replace('.', '/');
+        String source = decompileSuccess(new ClassPathLoader(), new PlainTextPrinter(), internalClassName);
+
+        assertEquals(List.of("java.sql.Date"), getImports(source));
+        assertTrue(source.contains("java.util.Date toDate()"));
+    }
+
+    /**
+     * @return the sorted qualified names of the imports of 'source'
+     */
+    protected static List<String> getImports(String source) {
+        List<String> imports = new ArrayList<>();
+        Matcher matcher = IMPORT_PATTERN.matcher(source);
+
+        while (matcher.find()) {
+            imports.add(matcher.group(1));
+        }
+
+        Collections.sort(imports);
+
+        return imports;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.InstructionConst;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.PUSH;
+import org.apache.bcel.generic.Type;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.model.message.DecompilationManifest;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+public class IncrementalDecompilerTest extends TestCase {
+
+    @Test
+    public void testIncremental() throws Exception {
+        IncrementalDecompiler decompiler = new IncrementalDecompiler();
+        Map<String, byte[]> archive = new TreeMap<>();
+
+        archive.put("test/A", createClass("test.A", "test.B", 1, false));
+        archive.put("test/B", createClass("test.B", null, 2, false));
+        archive.put("test/C", createClass("test.C", null, 3, false));
+
+        // First run: all types are decompiled
+        RecordingOutput output = new RecordingOutput();
+        DecompilationManifest manifest = decompiler.decompile(newLoader(archive), archive.keySet(), null, Collections.emptyMap(), output);
+
+        assertEquals(List.of("test/A", "test/B", "test/C"), output.decompiled);
+        assertTrue(output.outputs.get("test/A").contains("B reference()"));
+        assertEquals(List.of("test/B"), new ArrayList<>(manifest.getEntry("test/A").getReferencedTypes()));
+
+        // Serialization round trip
+        StringWriter writer = new StringWriter();
+        manifest.write(writer);
+        manifest = DecompilationManifest.read(new StringReader(writer.toString()));
+
+        // Same archive: nothing is decompiled
+        output = new RecordingOutput();
+        manifest = decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Collections.emptyMap(), output);
+
+        assertTrue(output.decompiled.isEmpty());
+        assertEquals(List.of("test/A", "test/B", "test/C"), output.unchanged);
+
+        // Body of B changed: B only
+        archive.put("test/B", createClass("test.B", null, 20, false));
+        output = new RecordingOutput();
+        manifest = decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Collections.emptyMap(), output);
+
+        assertEquals(List.of("test/B"), output.decompiled);
+
+        // Signature of B changed: A and B
+        archive.put("test/B", createClass("test.B", null, 20, true));
+        output = new RecordingOutput();
+        manifest = decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Collections.emptyMap(), output);
+
+        assertEquals(List.of("test/A", "test/B"), output.decompiled);
+        assertEquals(List.of("test/C"), output.unchanged);
+
+        // C removed
+        archive.remove("test/C");
+        output = new RecordingOutput();
+        manifest = decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Collections.emptyMap(), output);
+
+        assertEquals(List.of("test/C"), output.removed);
+        assertNull(manifest.getEntry("test/C"));
+
+        // Configuration changed: all types
+        output = new RecordingOutput();
+        decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Map.of("realignLineNumbers", "true"), output);
+
+        assertEquals(List.of("test/A", "test/B"), output.decompiled);
+    }
+
+    @Test
+    public void testChangedSuperTypeOfReferencedType() throws Exception {
+        IncrementalDecompiler decompiler = new IncrementalDecompiler();
+        Map<String, byte[]> archive = new TreeMap<>();
+
+        archive.put("test/A", createClass("test.A", "test.B", 1, false));
+        archive.put("test/B", createClass("test.B", "test.C", null, 2, false));
+        archive.put("test/C", createClass("test.C", null, 3, false));
+        archive.put("test/D", createClass("test.D", null, 4, false));
+
+        DecompilationManifest manifest = decompiler.decompile(newLoader(archive), archive.keySet(), null, Collections.emptyMap(), new RecordingOutput());
+
+        assertEquals(List.of("test/C"), new ArrayList<>(manifest.getEntry("test/B").getSuperTypes()));
+
+        // Signature of C changed: B inherits the new method, so A referencing B is decompiled too
+        archive.put("test/C", createClass("test.C", null, 3, true));
+        RecordingOutput output = new RecordingOutput();
+        decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Collections.emptyMap(), output);
+
+        assertEquals(List.of("test/A", "test/B", "test/C"), output.decompiled);
+        assertEquals(List.of("test/D"), output.unchanged);
+    }
+
+    @Test
+    public void testChangedPackage() throws Exception {
+        IncrementalDecompiler decompiler = new IncrementalDecompiler();
+        Map<String, byte[]> archive = new TreeMap<>();
+
+        archive.put("test/A", createClass("test.A", "other.Util", 1, false));
+        archive.put("other/Util", createClass("other.Util", null, 2, false));
+
+        RecordingOutput output = new RecordingOutput();
+        DecompilationManifest manifest = decompiler.decompile(newLoader(archive), archive.keySet(), null, Collections.emptyMap(), output);
+
+        assertTrue(output.outputs.get("test/A").contains("import other.Util;"));
+
+        StringWriter writer = new StringWriter();
+        manifest.write(writer);
+        manifest = DecompilationManifest.read(new StringReader(writer.toString()));
+
+        // 'test.Util' added: it shadows 'other.Util' in A, whose class file did not change
+        archive.put("test/Util", createClass("test.Util", null, 3, false));
+        output = new RecordingOutput();
+        decompiler.decompile(newLoader(archive), archive.keySet(), manifest, Collections.emptyMap(), output);
+
+        assertEquals(List.of("test/A", "test/Util"), output.decompiled);
+        assertEquals(List.of("other/Util"), output.unchanged);
+        assertFalse(output.outputs.get("test/A").contains("import other.Util;"));
+    }
+
+    protected static byte[] createClass(String className, String referencedClassName, int value, boolean extraMethod) {
+        return createClass(className, "java.lang.Object", referencedClassName, value, extraMethod);
+    }
+
+    protected static byte[] createClass(String className, String superClassName, String referencedClassName, int value, boolean extraMethod) {
+        ClassGen cg = new ClassGen(className, superClassName, className + ".java", Const.ACC_PUBLIC | Const.ACC_SUPER, new String[] {  });
+        ConstantPoolGen cp = cg.getConstantPool();
+
+        cg.setMajor(Const.MAJOR_1_8);
+        cg.addEmptyConstructor(Const.ACC_PUBLIC);
+
+        InstructionList il = new InstructionList();
+        il.append(new PUSH(cp, value));
+        il.append(InstructionConst.IRETURN);
+        addMethod(cg, new MethodGen(Const.ACC_PUBLIC, Type.INT, Type.NO_ARGS, new String[] {  }, "value", className, il, cp));
+
+        if (referencedClassName != null) {
+            il = new InstructionList();
+            il.append(InstructionConst.ACONST_NULL);
+            il.append(InstructionConst.ARETURN);
+            addMethod(cg, new MethodGen(Const.ACC_PUBLIC, new ObjectType(referencedClassName), Type.NO_ARGS, new String[] {  }, "reference", className, il, cp));
+        }
+
+        if (extraMethod) {
+            il = new InstructionList();
+            il.append(InstructionConst.RETURN);
+            addMethod(cg, new MethodGen(Const.ACC_PUBLIC, Type.VOID, Type.NO_ARGS, new String[] {  }, "extra", className, il, cp));
+        }
+
+        return cg.getJavaClass().getBytes();
+    }
+
+    protected static void addMethod(ClassGen cg, MethodGen method) {
+        method.setMaxStack();
+        method.setMaxLocals();
+        cg.addMethod(method.getMethod());
+    }
+
+    protected static Loader newLoader(Map<String, byte[]> archive) {
+        return new Loader() {
+            @Override
+            public boolean canLoad(String internalName) {
+                return archive.containsKey(internalName);
+            }
+
+            @Override
+            public byte[] load(String internalName) {
+                return archive.get(internalName);
+            }
+        };
+    }
+
+    protected static class RecordingOutput implements IncrementalDecompiler.Output {
+        protected final Map<String, String> outputs = new HashMap<>();
+        protected final List<String> decompiled = new ArrayList<>();
+        protected final List<String> unchanged = new ArrayList<>();
+        protected final List<String> removed = new ArrayList<>();
+
+        @Override
+        public Printer newPrinter(String internalTypeName) {
+            return new PlainTextPrinter();
+        }
+
+        @Override
+        public void decompiled(String internalTypeName, Printer printer) {
+            decompiled.add(internalTypeName);
+            outputs.put(internalTypeName, printer.toString());
+        }
+
+        @Override
+        public void unchanged(String internalTypeName) {
+            unchanged.add(internalTypeName);
+        }
+
+        @Override
+        public void removed(String internalTypeName) {
+            removed.add(internalTypeName);
+        }
+
+        @Override
+        public void failed(String internalTypeName, Exception e) {
+            fail(internalTypeName + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.fragment.FlexibleFragment;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.ClassFileToJavaSyntaxProcessor;
+import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
+import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.JavaSyntaxToJavaFragmentProcessor;
+import org.jd.core.v1.service.layouter.LayoutFragmentProcessor;
+import org.jd.core.v1.service.layouter.util.AutoGrowthList;
+import org.jd.core.v1.service.layouter.util.LayoutArena;
+import org.jd.core.v1.util.DefaultList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Measure the bytes allocated by the layouter, with line number realignment, when the working lists
+ * of "Section.layout" are shared through a {@link LayoutArena} and when they are allocated for each
+ * call, on the classes of {@link FragmenterAllocationBenchmark}.<br><br>
+ *
+ * System properties:
+ * <ul>
+ * <li>jd.perf.iterations: count of measured iterations, the median is kept, default 11</li>
+ * <li>jd.perf.warmup: count of unmeasured iterations, default 5</li>
+ * </ul>
+ */
+public class LayouterAllocationBenchmark {
+    protected static final int ARENA = 0;
+    protected static final int PER_CALL = 1;
+
+    protected final ClassFileDeserializer deserializer = new ClassFileDeserializer();
+    protected final ClassFileToJavaSyntaxProcessor converter = new ClassFileToJavaSyntaxProcessor();
+    protected final JavaSyntaxToJavaFragmentProcessor fragmenter = new JavaSyntaxToJavaFragmentProcessor();
+    protected final LayoutFragmentProcessor[] layouters = { new LayoutFragmentProcessor(), new PerCallLayoutFragmentProcessor() };
+    protected final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    protected final int iterations;
+    protected final int warmupCount;
+
+    public LayouterAllocationBenchmark(int iterations, int warmupCount) {
+        this.iterations = iterations;
+        this.warmupCount = warmupCount;
+    }
+
+    public boolean isSupported() {
+        return (threadMXBean instanceof com.sun.management.ThreadMXBean) &&
+            ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported() &&
+            ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return the medians of the bytes allocated by the layouter, with an arena and with working lists
+     *         allocated for each call
+     */
+    public long[] measure(Loader loader, String internalTypeName) throws Exception {
+        long[][] bytes = new long[2][iterations];
+
+        for (int i=-warmupCount; i<iterations; i++) {
+            for (int mode=ARENA; mode<=PER_CALL; mode++) {
+                DecompileContext decompileContext = new DecompileContext();
+
+                decompileContext.setMainInternalTypeName(internalTypeName);
+                decompileContext.setConfiguration(Collections.singletonMap("realignLineNumbers", "true"));
+                decompileContext.setLoader(loader);
+                decompileContext.setPrinter(new PlainTextPrinter());
+                decompileContext.setClassFile(deserializer.loadClassFile(loader, internalTypeName));
+
+                fragmenter.process(converter.process(decompileContext), decompileContext);
+
+                long bytes0 = getAllocatedBytes();
+
+                layouters[mode].process(decompileContext);
+
+                long bytes1 = getAllocatedBytes();
+
+                if (i >= 0) {
+                    bytes[mode][i] = bytes1 - bytes0;
+                }
+            }
+        }
+
+        long[] medians = new long[2];
+
+        for (int mode=ARENA; mode<=PER_CALL; mode++) {
+            Arrays.sort(bytes[mode]);
+            medians[mode] = bytes[mode][iterations / 2];
+        }
+
+        return medians;
+    }
+
+    protected long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Layouter allocating the working lists of "Section.layout" for each call, as before the arena.
+     */
+    protected static class PerCallLayoutFragmentProcessor extends LayoutFragmentProcessor {
+        @Override
+        protected LayoutArena newLayoutArena() {
+            return new LayoutArena() {
+                @Override
+                public AutoGrowthList getFilteredFlexibleFragments() {
+                    return new AutoGrowthList();
+                }
+
+                @Override
+                public DefaultList<FlexibleFragment> getConstrainedFlexibleFragments() {
+                    return new DefaultList<>();
+                }
+            };
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.parseInt(System.getProperty("jd.perf.iterations", "11"));
+        int warmupCount = Integer.parseInt(System.getProperty("jd.perf.warmup", "5"));
+        LayouterAllocationBenchmark benchmark = new LayouterAllocationBenchmark(iterations, warmupCount);
+        ClassPathLoader loader = new ClassPathLoader();
+
+        if (!benchmark.isSupported()) {
+            System.err.println("Allocated memory measurement is not supported by this JVM");
+            return;
+        }
+
+        System.out.println("class (KiB): arena, per call");
+
+        for (String internalTypeName : FragmenterAllocationBenchmark.EXPRESSION_HEAVY_CLASSES) {
+            long[] bytes = benchmark.measure(loader, internalTypeName);
+            System.out.printf(Locale.ROOT, "  %-24s %8d, %8d%n", internalTypeName, bytes[ARENA] / 1024, bytes[PER_CALL] / 1024);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class LayouterAllocationBenchmarkTest extends TestCase {
+
+    @Test
+    public void testBenchmark() throws Exception {
+        LayouterAllocationBenchmark benchmark = new LayouterAllocationBenchmark(1, 0);
+
+        if (benchmark.isSupported()) {
+            long[] bytes = benchmark.measure(new ClassPathLoader(), "java/util/zip/Adler32");
+
+            assertTrue(bytes[LayouterAllocationBenchmark.ARENA] > 0);
+            assertTrue(bytes[LayouterAllocationBenchmark.PER_CALL] > 0);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Map;
+
+public class LeanDecompileContextTest extends AbstractJdTest {
+
+    @Test
+    public void testJdk170Basic() throws Exception {
+        String internalClassName = "org/jd/core/test/Basic";
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            PlainTextPrinter printer = new PlainTextPrinter();
+            PlainTextPrinter leanPrinter = new PlainTextPrinter();
+
+            DecompileContext context = classFileToJavaSourceDecompiler.decompile(loader, printer, internalClassName, Map.of("realignLineNumbers", "true"));
+            DecompileContext leanContext = classFileToJavaSourceDecompiler.decompile(loader, leanPrinter, internalClassName, Map.of("realignLineNumbers", "true", ClassFileToJavaSourceDecompiler.LEAN_CONTEXT, "true"));
+
+            assertEquals(printer.toString(), leanPrinter.toString());
+
+            assertNotNull(context.getClassFile());
+            assertNotNull(context.getTokens());
+            assertNotNull(context.getTypeMaker());
+
+            // Only the results are kept
+            assertNull(leanContext.getClassFile());
+            assertNull(leanContext.getCompilationUnit());
+            assertNull(leanContext.getBody());
+            assertNull(leanContext.getTokens());
+            assertNull(leanContext.getTypeMaker());
+            assertEquals(context.getMajorVersion(), leanContext.getMajorVersion());
+            assertEquals(context.getMaxLineNumber(), leanContext.getMaxLineNumber());
+
+            // A type maker set by the caller is kept
+            TypeMaker typeMaker = new TypeMaker(loader);
+            DecompileContext warmContext = new DecompileContext();
+
+            warmContext.setMainInternalTypeName(internalClassName);
+            warmContext.setConfiguration(Map.of(ClassFileToJavaSourceDecompiler.LEAN_CONTEXT, "true"));
+            warmContext.setLoader(loader);
+            warmContext.setPrinter(new PlainTextPrinter());
+            warmContext.setTypeMaker(typeMaker);
+            classFileToJavaSourceDecompiler.decompile(warmContext);
+
+            assertSame(typeMaker, warmContext.getTypeMaker());
+        }
+    }
+}
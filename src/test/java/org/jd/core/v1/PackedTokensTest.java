@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.model.token.EndBlockToken;
+import org.jd.core.v1.model.token.NewLineToken;
+import org.jd.core.v1.model.token.PackedTokens;
+import org.jd.core.v1.model.token.ReferenceToken;
+import org.jd.core.v1.model.token.StartBlockToken;
+import org.jd.core.v1.model.token.TextToken;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.util.StringConstants;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Map;
+
+public class PackedTokensTest extends AbstractJdTest {
+
+    @Test
+    public void testEncoding() {
+        PackedTokens packedTokens = new PackedTokens(1);
+
+        for (int i=0; i<20; i++) {
+            packedTokens.add(TextToken.SPACE);
+        }
+
+        packedTokens.add(new ReferenceToken(Printer.TYPE, "java/lang/String", "String", null, "org/jd/Test"));
+        packedTokens.add(StartBlockToken.START_RESOURCES_BLOCK);
+        packedTokens.add(EndBlockToken.END_BLOCK);
+        packedTokens.add(NewLineToken.NEWLINE_2);
+
+        assertEquals(24, packedTokens.size());
+        assertEquals(PackedTokens.TEXT, packedTokens.getOpcode(19));
+        assertEquals(PackedTokens.REFERENCE, packedTokens.getOpcode(20));
+        assertEquals(Printer.TYPE, packedTokens.getOperand(20, 1));
+        assertEquals("java/lang/String", packedTokens.getString(20, 2));
+        assertNull(packedTokens.getString(20, 4));
+        assertEquals("org/jd/Test", packedTokens.getString(20, 5));
+        assertEquals(1, packedTokens.getOperand(21, 2));
+        assertEquals(0, packedTokens.getOperand(22, 2));
+        assertEquals(2, packedTokens.getOperand(23, 1));
+    }
+
+    @Test
+    public void testJdk170Basic() throws Exception {
+        String internalClassName = "org/jd/core/test/Basic";
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            PlainTextPrinter printer = new PlainTextPrinter();
+            PlainTextPrinter packedPrinter = new PlainTextPrinter();
+
+            classFileToJavaSourceDecompiler.decompile(loader, printer, internalClassName, Map.of("realignLineNumbers", "true"));
+            DecompileContext packedContext = classFileToJavaSourceDecompiler.decompile(loader, packedPrinter, internalClassName, Map.of("realignLineNumbers", "true", ClassFileToJavaSourceDecompiler.PACKED_TOKENS, "true"));
+
+            assertEquals(printer.toString(), packedPrinter.toString());
+            assertNull(packedContext.getTokens());
+            assertTrue(packedContext.getPackedTokens().size() > 0);
+        }
+    }
+
+    @Test
+    public void testJdk170() throws Exception {
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            int count = 0;
+
+            for (String entryName : loader.getMap().keySet()) {
+                if (entryName.endsWith(StringConstants.CLASS_FILE_SUFFIX) && entryName.indexOf('$') == -1) {
+                    String internalClassName = entryName.substring(0, entryName.length() - StringConstants.CLASS_FILE_SUFFIX.length());
+
+                    for (String realignLineNumbers : new String[] { "false", "true" }) {
+                        PlainTextPrinter printer = new PlainTextPrinter();
+                        PlainTextPrinter packedPrinter = new PlainTextPrinter();
+
+                        classFileToJavaSourceDecompiler.decompile(loader, printer, internalClassName, Map.of("realignLineNumbers", realignLineNumbers));
+                        classFileToJavaSourceDecompiler.decompile(loader, packedPrinter, internalClassName, Map.of("realignLineNumbers", realignLineNumbers, ClassFileToJavaSourceDecompiler.PACKED_TOKENS, "true"));
+
+                        assertEquals(internalClassName, printer.toString(), packedPrinter.toString());
+                    }
+
+                    count++;
+                }
+            }
+
+            assertTrue(count > 0);
+        }
+    }
+
+    @Test
+    public void testAllocationBenchmark() throws Exception {
+        TokenStreamAllocationBenchmark benchmark = new TokenStreamAllocationBenchmark(1, 0);
+
+        if (benchmark.isSupported()) {
+            long[] bytes = benchmark.measure(new ClassPathLoader(), "java/util/zip/Adler32");
+
+            assertTrue(bytes[TokenStreamAllocationBenchmark.LIST] > 0);
+            assertTrue(bytes[TokenStreamAllocationBenchmark.PACKED] > 0);
+        }
+    }
+}
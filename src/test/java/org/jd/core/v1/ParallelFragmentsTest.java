@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.jd.core.v1.util.StringConstants;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelFragmentsTest extends AbstractJdTest {
+
+    @Test
+    public void testJdk170() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            int count = 0;
+
+            for (String entryName : loader.getMap().keySet()) {
+                if (entryName.endsWith(StringConstants.CLASS_FILE_SUFFIX) && entryName.indexOf('$') == -1) {
+                    String internalClassName = entryName.substring(0, entryName.length() - StringConstants.CLASS_FILE_SUFFIX.length());
+
+                    for (String realignLineNumbers : new String[] { "false", "true" }) {
+                        PlainTextPrinter printer = new PlainTextPrinter();
+                        PlainTextPrinter parallelPrinter = new PlainTextPrinter();
+
+                        classFileToJavaSourceDecompiler.decompile(loader, printer, internalClassName, Map.of("realignLineNumbers", realignLineNumbers));
+                        classFileToJavaSourceDecompiler.decompile(loader, parallelPrinter, internalClassName, Map.of("realignLineNumbers", realignLineNumbers, ClassFileToJavaSourceDecompiler.PARALLEL_FRAGMENTS, executor));
+
+                        assertEquals(internalClassName, printer.toString(), parallelPrinter.toString());
+                    }
+
+                    count++;
+                }
+            }
+
+            assertTrue(count > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
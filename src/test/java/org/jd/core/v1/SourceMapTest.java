@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.printer.ClassFilePrinter;
+import org.jd.core.v1.printer.SourceMap;
+import org.jd.core.v1.printer.SourceMap.MethodSourceMap;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import static jd.core.preferences.Preferences.REALIGN_LINE_NUMBERS;
+
+public class SourceMapTest extends AbstractJdTest {
+
+    @Test
+    public void testJdk170Basic() throws Exception {
+        String internalClassName = "org/jd/core/test/Basic";
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            Loader loader = new ZipLoader(is);
+            Map<String, String> configuration = Map.of(REALIGN_LINE_NUMBERS, "true");
+            ClassFilePrinter printer = new ClassFilePrinter();
+            String source = printer.buildDecompiledOutput(configuration, loader, internalClassName + ".class", classFileToJavaSourceDecompiler);
+            SourceMap sourceMap = printer.getSourceMap();
+            String[] lines = source.split("\n");
+            int mappedOffsetCount = 0;
+
+            assertFalse(sourceMap.getMethods().isEmpty());
+
+            for (MethodSourceMap method : sourceMap.getMethods()) {
+                for (int offset=0; offset<method.getCodeLength(); offset++) {
+                    int line = method.getLine(offset);
+
+                    if (line != SourceMap.UNKNOWN_LINE) {
+                        int column = method.getColumn(offset);
+
+                        assertTrue(line <= lines.length);
+                        assertTrue(column >= 0 && column <= lines[line - 1].length());
+                        // Positions are realigned on the original line numbers, after the line number prefix
+                        assertTrue(lines[line - 1].startsWith("/*"));
+                        assertTrue(column > lines[line - 1].indexOf("*/"));
+                        mappedOffsetCount++;
+                    }
+                }
+            }
+
+            assertTrue(mappedOffsetCount > 0);
+
+            // Binary round trip
+            SourceMap copy = SourceMap.fromByteArray(sourceMap.toByteArray());
+
+            assertEquals(sourceMap.getMethods().size(), copy.getMethods().size());
+
+            for (MethodSourceMap method : sourceMap.getMethods()) {
+                MethodSourceMap copiedMethod = copy.getMethod(method.getInternalTypeName(), method.getName(), method.getDescriptor());
+
+                assertNotNull(copiedMethod);
+                assertEquals(method.getEntryCount(), copiedMethod.getEntryCount());
+
+                for (int offset=-1; offset<=method.getCodeLength(); offset++) {
+                    assertEquals(method.getLine(offset), copiedMethod.getLine(offset));
+                    assertEquals(method.getColumn(offset), copiedMethod.getColumn(offset));
+                }
+            }
+
+            // Same map without the class file at the end of the decompilation
+            ClassFilePrinter leanPrinter = new ClassFilePrinter();
+
+            leanPrinter.setRealignmentLineNumber(true);
+            leanPrinter.setUnicodeEscape(false);
+            leanPrinter.setShowLineNumbers(true);
+            classFileToJavaSourceDecompiler.decompile(loader, leanPrinter, internalClassName, Map.of("realignLineNumbers", true, ClassFileToJavaSourceDecompiler.LEAN_CONTEXT, "true"));
+
+            assertTrue(Arrays.equals(sourceMap.toByteArray(), leanPrinter.getSourceMap().toByteArray()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1;
+
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.printer.ColumnarClassFilePrinter;
+import org.jd.core.v1.printer.SymbolIndexPrinter;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+public class SymbolIndexPrinterTest extends AbstractJdTest {
+
+    @Test
+    public void testJdk170Basic() throws Exception {
+        String internalClassName = "org/jd/core/test/Basic";
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            ColumnarClassFilePrinter printer = new ColumnarClassFilePrinter();
+            SymbolIndexPrinter indexPrinter = new SymbolIndexPrinter();
+            Map<String, Object> configuration = Map.of("realignLineNumbers", "true", ClassFileToJavaSourceDecompiler.INDEX_ONLY, "true");
+
+            classFileToJavaSourceDecompiler.decompile(loader, printer, internalClassName, Collections.singletonMap("realignLineNumbers", "true"));
+            classFileToJavaSourceDecompiler.decompile(loader, indexPrinter, internalClassName, configuration);
+
+            // Same symbols as the full decompilation
+            assertEquals(printer.getDeclarationCount(), indexPrinter.getDeclarationCount());
+            assertEquals(printer.getHyperlinkCount(), indexPrinter.getReferenceCount());
+            assertEquals(printer.getStringCount(), indexPrinter.getStringCount());
+
+            boolean found = false;
+
+            for (int i=0; i<indexPrinter.getDeclarationCount(); i++) {
+                if (indexPrinter.getDeclarationType(i) == Printer.TYPE) {
+                    assertEquals(internalClassName, indexPrinter.getName(indexPrinter.getDeclarationInternalTypeNameId(i)));
+                    found = true;
+                    break;
+                }
+            }
+
+            assertTrue(found);
+        }
+    }
+}
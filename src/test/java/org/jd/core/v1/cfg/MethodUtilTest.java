@@ -0,0 +1,72 @@
+package org.jd.core.v1.cfg;
+
+import org.apache.bcel.classfile.Method;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.service.deserializer.classfile.LazyCodeMethod;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MethodUtilTest {
+
+    @Test
+    public void testSearchMethod() throws Exception {
+        ClassPathLoader loader = new ClassPathLoader();
+        String internalTypeName = Overloads.class.getName().replace('.', '/');
+
+        Method first = MethodUtil.searchMethod(loader, internalTypeName, "m", null);
+        Method method = MethodUtil.searchMethod(loader, internalTypeName, "m", "(Ljava/lang/String;)I");
+
+        assertEquals("(I)I", first.getSignature());
+        assertEquals("(Ljava/lang/String;)I", method.getSignature());
+        assertNotNull(MethodUtil.searchMethod(loader, internalTypeName, "<init>", "()V"));
+        assertNull(MethodUtil.searchMethod(loader, internalTypeName, "m", "()V"));
+        assertNull(MethodUtil.searchMethod(loader, "unknown/Type", "m", null));
+
+        // Not cached
+        assertNotSame(method, MethodUtil.searchMethod(loader, internalTypeName, "m", "(Ljava/lang/String;)I"));
+    }
+
+    @Test
+    public void testMethodIndex() throws Exception {
+        ClassPathLoader loader = new ClassPathLoader();
+        MethodIndex index = new MethodIndex(loader);
+        String internalTypeName = Overloads.class.getName().replace('.', '/');
+
+        Method first = index.searchMethod(internalTypeName, "m", null);
+        Method method = index.searchMethod(internalTypeName, "m", "(Ljava/lang/String;)I");
+
+        assertEquals("(I)I", first.getSignature());
+        assertNull(index.searchMethod(internalTypeName, "m", "()V"));
+        assertNull(index.searchMethod("unknown/Type", "m", null));
+        assertEquals(1, index.size());
+
+        // Cached index, body decoded on demand
+        assertSame(method, index.searchMethod(internalTypeName, "m", "(Ljava/lang/String;)I"));
+        assertFalse(((LazyCodeMethod)method).isCodeDecoded());
+        assertNotNull(method.getCode());
+        assertTrue(((LazyCodeMethod)method).isCodeDecoded());
+        assertFalse(((LazyCodeMethod)first).isCodeDecoded());
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertNotSame(method, index.searchMethod(internalTypeName, "m", "(Ljava/lang/String;)I"));
+    }
+
+    static class Overloads {
+        int m(int i) {
+            return i;
+        }
+
+        int m(String s) {
+            return s.length();
+        }
+    }
+}
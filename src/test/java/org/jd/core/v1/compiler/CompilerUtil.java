@@ -12,10 +12,14 @@ import org.eclipse.jdt.internal.compiler.tool.EclipseCompiler;
 import java.io.File;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import javax.tools.Diagnostic;
@@ -24,6 +28,9 @@ import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 
+import static org.apache.bcel.Const.MAJOR_1_1;
+import static org.apache.bcel.Const.MAJOR_1_5;
+
 public class CompilerUtil {
     protected static final File DESTINATION_DIRECTORY = new File("target/test-recompiled");
     protected static final String DESTINATION_DIRECTORY_PATH = DESTINATION_DIRECTORY.getAbsolutePath();
@@ -84,6 +91,65 @@ public class CompilerUtil {
         return compilationSuccess;
     }
 
+    /**
+     * Compile all the sources in one invocation. Types referenced between the sources are resolved
+     * on the sources, other types on 'classPath'.
+     *
+     * @return the errors, indexed by the class name of their source; errors without source are indexed by ""
+     */
+    public static Map<String, List<String>> compileAll(String preferredJavaVersion, String classPath, InMemoryClassLoader classLoader, List<InMemoryJavaSourceFileObject> compilationUnits) throws Exception {
+        Map<String, List<String>> errors = new LinkedHashMap<>();
+        String javaVersion = getJavaVersion(preferredJavaVersion);
+
+        if (compilationUnits.isEmpty()) {
+            return errors;
+        }
+
+        JavaCompiler compiler = new EclipseCompiler();
+        StringWriter writer = new StringWriter();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = Arrays.asList("-g", "-source", javaVersion, "-target", javaVersion, "-cp", classPath);
+        Map<String, InMemoryJavaSourceFileObject> sourcesByUri = new HashMap<>();
+
+        for (InMemoryJavaSourceFileObject compilationUnit : compilationUnits) {
+            sourcesByUri.put(compilationUnit.toUri().toString(), compilationUnit);
+        }
+
+        try (StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, Locale.US, StandardCharsets.UTF_8)) {
+            try (InMemoryJavaFileManager fileManager = new InMemoryJavaFileManager(standardFileManager, compilationUnits, classLoader)) {
+                boolean compilationSuccess = compiler.getTask(writer, fileManager, diagnostics, options, null, compilationUnits).call();
+
+                for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                    if (d.getKind() == Diagnostic.Kind.ERROR) {
+                        InMemoryJavaSourceFileObject source = (d.getSource() == null) ? null : sourcesByUri.get(d.getSource().toUri().toString());
+                        String key = (source == null) ? "" : source.getAbsClassName();
+                        String message = (d.getLineNumber() > 0) ?
+                            String.format("line %-4d- %s", d.getLineNumber(), d.getMessage(null)) :
+                            d.getMessage(null);
+
+                        errors.computeIfAbsent(key, k -> new ArrayList<>()).add(message);
+                    }
+                }
+
+                if (!compilationSuccess && errors.isEmpty()) {
+                    errors.put("", new ArrayList<>(List.of(writer.toString())));
+                }
+            }
+        }
+
+        return errors;
+    }
+
+    public static String getJavaVersion(int majorVersion) {
+        if (majorVersion >= MAJOR_1_5) {
+            return Integer.toString(majorVersion - (MAJOR_1_5 - 5));
+        }
+        if (majorVersion >= MAJOR_1_1) {
+            return "1." + (majorVersion - (MAJOR_1_1 - 1));
+        }
+        return "1.8";
+    }
+
     private static String getJavaVersion(String preferredJavaVersion) {
         int numericSystemJavaVersion = parseJavaVersion(System.getProperty("java.version"));
 
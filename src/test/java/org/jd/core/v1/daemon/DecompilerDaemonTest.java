@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.daemon;
+
+import org.jd.core.v1.ClassFileToJavaSourceDecompiler;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+public class DecompilerDaemonTest extends TestCase {
+
+    @Test
+    public void testRequests() throws Exception {
+        File archive = File.createTempFile("jd-core-daemon", ".zip");
+        DecompilerDaemon daemon = new DecompilerDaemon();
+
+        try {
+            try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+                Files.copy(is, archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            PlainTextPrinter printer = new PlainTextPrinter();
+
+            try (ArchiveLoader loader = new ArchiveLoader(archive)) {
+                new ClassFileToJavaSourceDecompiler().decompile(loader, printer, "org/jd/core/test/Basic");
+            }
+
+            String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"decompile\",\"params\":{\"archive\":" + Json.toString(archive.getPath()) + ",\"type\":\"org.jd.core.test.Basic\"}}";
+
+            // Cold, then cached
+            for (int i=0; i<2; i++) {
+                Map<?, ?> response = (Map<?, ?>)Json.parse(daemon.handle(request));
+
+                assertEquals(1L, response.get("id"));
+                assertEquals(printer.toString(), ((Map<?, ?>)response.get("result")).get("source"));
+            }
+
+            Map<?, ?> metrics = (Map<?, ?>)((Map<?, ?>)Json.parse(daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"metrics\"}"))).get("result");
+
+            assertEquals(1L, metrics.get("decompilations"));
+            assertEquals(1L, metrics.get("sourceCacheHits"));
+            assertEquals(1L, metrics.get("openArchives"));
+
+            assertEquals("ok", ((Map<?, ?>)((Map<?, ?>)Json.parse(daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"health\"}"))).get("result")).get("status"));
+            assertErrorCode(DecompilerDaemon.METHOD_NOT_FOUND, daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"unknown\"}"));
+            assertErrorCode(DecompilerDaemon.INVALID_PARAMS, daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"decompile\",\"params\":{}}"));
+            assertErrorCode(DecompilerDaemon.PARSE_ERROR, daemon.handle("{\"jsonrpc\""));
+            assertNull(daemon.handle("{\"jsonrpc\":\"2.0\",\"method\":\"health\"}"));
+
+            // Stream mode: responses of the pending requests are written before the end
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            String requests = request + '\n' + request.replace("\"id\":1", "\"id\":6") + "\n{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"shutdown\"}\n";
+
+            daemon.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), out);
+
+            assertEquals(3, out.toString(StandardCharsets.UTF_8).split("\n").length);
+            assertTrue(daemon.isShutdown());
+        } finally {
+            daemon.shutdown();
+            archive.delete();
+        }
+    }
+
+    @Test
+    public void testShutdownWithOpenInput() throws Exception {
+        DecompilerDaemon daemon = new DecompilerDaemon();
+        PipedOutputStream client = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(client);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> future = executor.submit(() -> {
+                daemon.serve(in, out);
+                return null;
+            });
+
+            client.write("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"shutdown\"}\n".getBytes(StandardCharsets.UTF_8));
+            client.flush();
+
+            // Returns although the input is never closed
+            future.get(30, TimeUnit.SECONDS);
+
+            assertTrue(daemon.isShutdown());
+            assertEquals("ok", ((Map<?, ?>)Json.parse(out.toString(StandardCharsets.UTF_8).trim())).get("result"));
+        } finally {
+            executor.shutdownNow();
+            client.close();
+        }
+    }
+
+    @Test
+    public void testEvictedArchive() throws Exception {
+        File archive = File.createTempFile("jd-core-daemon", ".zip");
+        File otherArchive = File.createTempFile("jd-core-daemon", ".zip");
+        AtomicBoolean evicted = new AtomicBoolean();
+        DecompilerDaemon daemon = new DecompilerDaemon(1, 16) {
+            @Override
+            protected Archive getArchive(File file) throws IOException {
+                Archive result = super.getArchive(file);
+
+                if (evicted.compareAndSet(false, true)) {
+                    // Another request opens an archive, closing 'result' before its use
+                    super.getArchive(otherArchive.getCanonicalFile());
+                }
+
+                return result;
+            }
+        };
+
+        try {
+            try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+                Files.copy(is, archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.copy(archive.toPath(), otherArchive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            PlainTextPrinter printer = new PlainTextPrinter();
+
+            try (ArchiveLoader loader = new ArchiveLoader(archive)) {
+                new ClassFileToJavaSourceDecompiler().decompile(loader, printer, "org/jd/core/test/Basic");
+            }
+
+            String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"decompile\",\"params\":{\"archive\":" + Json.toString(archive.getPath()) + ",\"type\":\"org/jd/core/test/Basic\"}}";
+            Map<?, ?> response = (Map<?, ?>)Json.parse(daemon.handle(request));
+
+            // Retried on the reopened archive instead of failing
+            assertEquals(printer.toString(), ((Map<?, ?>)response.get("result")).get("source"));
+            assertTrue(evicted.get());
+
+            Map<?, ?> metrics = (Map<?, ?>)((Map<?, ?>)Json.parse(daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"metrics\"}"))).get("result");
+
+            assertEquals(3L, metrics.get("archiveOpenings"));
+            assertEquals(0L, metrics.get("errors"));
+        } finally {
+            daemon.shutdown();
+            archive.delete();
+            otherArchive.delete();
+        }
+    }
+
+    @Test
+    public void testDirectoryArchiveBounds() throws Exception {
+        File directory = Files.createTempDirectory("jd-core-daemon").toFile();
+        File archive = new File(directory, "archive");
+        File secret = new File(directory, "Secret.class");
+        File basic = new File(archive, "test/Basic.class");
+
+        try {
+            basic.getParentFile().mkdirs();
+            Files.write(basic.toPath(), new byte[] { 1 });
+            Files.write(secret.toPath(), new byte[] { 2 });
+
+            try (ArchiveLoader loader = new ArchiveLoader(archive)) {
+                assertTrue(loader.canLoad("test/Basic"));
+                assertEquals(1, loader.load("test/Basic").length);
+
+                // Names escaping the directory are not found
+                for (String internalName : new String[] { "../Secret", "test/../../Secret", secret.getAbsolutePath().replace(".class", "") }) {
+                    assertFalse(internalName, loader.canLoad(internalName));
+                    assertNull(internalName, loader.load(internalName));
+                }
+            }
+        } finally {
+            basic.delete();
+            basic.getParentFile().delete();
+            archive.delete();
+            secret.delete();
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testNestingDepth() throws Exception {
+        DecompilerDaemon daemon = new DecompilerDaemon();
+
+        try {
+            String params = "[".repeat(Json.MAX_DEPTH - 1) + "]".repeat(Json.MAX_DEPTH - 1);
+
+            assertErrorCode(DecompilerDaemon.INVALID_PARAMS, daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"decompile\",\"params\":" + params + "}"));
+
+            // Rejected as malformed instead of overflowing the stack
+            assertErrorCode(DecompilerDaemon.PARSE_ERROR, daemon.handle("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"decompile\",\"params\":[" + params + "]}"));
+            assertErrorCode(DecompilerDaemon.PARSE_ERROR, daemon.handle("[".repeat(100_000)));
+        } finally {
+            daemon.shutdown();
+        }
+    }
+
+    protected static void assertErrorCode(int code, String response) {
+        assertEquals((long)code, ((Map<?, ?>)((Map<?, ?>)Json.parse(response)).get("error")).get("code"));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.loader;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class PrefetchingLoaderTest extends TestCase {
+
+    @Test
+    public void testLoads() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountingLoader countingLoader = new CountingLoader(latch);
+        ExecutorService executor = Executors.newCachedThreadPool();
+
+        try {
+            PrefetchingLoader loader = new PrefetchingLoader(countingLoader, executor);
+
+            // Loads started by the hint, running in parallel
+            loader.prefetch(List.of("a/A", "a/B", "a/Missing"));
+            assertEquals(0, countingLoader.total());
+            latch.countDown();
+
+            Map<String, byte[]> map = loader.loadAll(List.of("a/A", "a/B", "a/Missing"));
+
+            assertEquals(List.of("a/A", "a/B"), List.copyOf(map.keySet()));
+            assertTrue(loader.canLoad("a/A"));
+            assertFalse(loader.canLoad("a/Missing"));
+            assertEquals("a/B", new String(loader.loadAllAsync(List.of("a/B")).get().get("a/B")));
+
+            // One load per name, missing types included
+            assertEquals(3, countingLoader.total());
+            assertEquals(1, countingLoader.count("a/Missing"));
+
+            // Failed loads are retried
+            try {
+                loader.load("a/Failure");
+                fail();
+            } catch (IOException e) {
+                assertEquals("a/Failure", e.getMessage());
+            }
+            try {
+                loader.load("a/Failure");
+                fail();
+            } catch (IOException e) {
+                assertEquals(2, countingLoader.count("a/Failure"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectedLoad() throws Exception {
+        CountingLoader countingLoader = new CountingLoader(new CountDownLatch(0));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PrefetchingLoader loader = new PrefetchingLoader(countingLoader, executor);
+
+        executor.shutdown();
+
+        // Failed without blocking, and not cached
+        try {
+            loader.load("a/A");
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertFalse(loader.canLoad("a/A"));
+        assertTrue(loader.futures.isEmpty());
+
+        // Error thrown by the loader
+        loader = new PrefetchingLoader(new CountingLoader(new CountDownLatch(0)) {
+            @Override
+            public byte[] load(String internalName) {
+                throw new StackOverflowError();
+            }
+        }, Runnable::run);
+
+        try {
+            loader.load("a/A");
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+        assertTrue(loader.futures.isEmpty());
+    }
+
+    protected static class CountingLoader implements Loader {
+        protected final CountDownLatch latch;
+        protected final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        public CountingLoader(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public boolean canLoad(String internalName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] load(String internalName) throws IOException {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+
+            counts.computeIfAbsent(internalName, k -> new AtomicInteger()).incrementAndGet();
+
+            if (internalName.endsWith("Failure")) {
+                throw new IOException(internalName);
+            }
+            return internalName.endsWith("Missing") ? null : internalName.getBytes();
+        }
+
+        public int count(String internalName) {
+            AtomicInteger count = counts.get(internalName);
+            return (count == null) ? 0 : count.get();
+        }
+
+        public int total() {
+            return counts.values().stream().mapToInt(AtomicInteger::get).sum();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.jd.core.v1.model.message;
+
+import org.jd.core.v1.ClassFileToJavaSourceDecompiler;
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ZipLoader;
+import org.jd.core.v1.printer.PlainTextPrinter;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringPoolTest {
+
+    @Test
+    public void testIntern() {
+        StringPool pool = new StringPool();
+        String s1 = new String("java/lang/String");
+        String s2 = new String("java/lang/String");
+
+        assertSame(s1, pool.intern(s1));
+        assertSame(s1, pool.intern(s2));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testDecompileContext() {
+        DecompileContext decompileContext = new DecompileContext();
+        String s1 = new String("(Ljava/lang/Object;)Z");
+        String s2 = new String("(Ljava/lang/Object;)Z");
+
+        // No pool: no interning
+        assertSame(s2, decompileContext.intern(s2));
+
+        decompileContext.setStringPool(new StringPool());
+
+        assertSame(s1, decompileContext.intern(s1));
+        assertSame(s1, decompileContext.intern(s2));
+    }
+
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        StringPool pool = new StringPool();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+
+            for (int t=0; t<4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> result = new ArrayList<>();
+                    for (int i=0; i<1000; i++) {
+                        result.add(pool.intern(new String("name" + i)));
+                    }
+                    return result;
+                }));
+            }
+
+            List<String> first = futures.get(0).get();
+
+            for (Future<List<String>> future : futures) {
+                List<String> result = future.get();
+
+                for (int i=0; i<1000; i++) {
+                    assertSame(first.get(i), result.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTokensShareThePooledNames() throws Exception {
+        try (InputStream is = this.getClass().getResourceAsStream("/zip/data-java-jdk-1.7.0.zip")) {
+            ZipLoader loader = new ZipLoader(is);
+            StringPool pool = new StringPool();
+            ClassFileToJavaSourceDecompiler decompiler = new ClassFileToJavaSourceDecompiler();
+
+            // Interned by the fragmenter: two decompilations print the same instances
+            List<String> names1 = printNames(decompiler, loader, pool);
+            List<String> names2 = printNames(decompiler, loader, pool);
+
+            assertFalse(names1.isEmpty());
+            assertEquals(names1, names2);
+
+            for (int i=0; i<names1.size(); i++) {
+                assertSame(names1.get(i), names2.get(i));
+            }
+        }
+    }
+
+    protected static List<String> printNames(ClassFileToJavaSourceDecompiler decompiler, Loader loader, StringPool pool) throws Exception {
+        List<String> names = new ArrayList<>();
+        PlainTextPrinter printer = new PlainTextPrinter() {
+            @Override
+            public void printDeclaration(int type, String internalTypeName, String name, String descriptor) {
+                names.add(internalTypeName);
+                names.add(name);
+                names.add(descriptor);
+                super.printDeclaration(type, internalTypeName, name, descriptor);
+            }
+
+            @Override
+            public void printReference(int type, String internalTypeName, String name, String descriptor, String ownerInternalName) {
+                names.add(internalTypeName);
+                names.add(name);
+                names.add(descriptor);
+                names.add(ownerInternalName);
+                super.printReference(type, internalTypeName, name, descriptor, ownerInternalName);
+            }
+        };
+
+        decompiler.decompile(loader, printer, "org/jd/core/test/Basic", Map.of(ClassFileToJavaSourceDecompiler.STRING_POOL, pool));
+        return names;
+    }
+}
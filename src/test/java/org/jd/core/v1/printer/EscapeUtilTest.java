@@ -0,0 +1,48 @@
+package org.jd.core.v1.printer;
+
+import org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.util.StringUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class EscapeUtilTest {
+
+    @Test
+    public void testEscape() {
+        assertEquals("abc", escape("abc"));
+        assertEquals("a\tb", escape("a\tb"));
+        assertEquals("a\\001b\\037", escape("a\u0001b\u001F"));
+        assertEquals("\u007F\\u00E9t\\u00E9", escape("\u007Fété"));
+        assertEquals("\\u4E2D\\uFFFF!", escape("中￿!"));
+        assertEquals("", escape(""));
+    }
+
+    @Test
+    public void testEscapeUnicode() {
+        assertEquals("abc\u0001", escapeUnicode("abc\u0001"));
+        assertEquals("\\u007F\\u00E9t\\u00E9", escapeUnicode("\u007Fété"));
+        assertEquals("x\\u4E2Dy", escapeUnicode("x中y"));
+    }
+
+    @Test
+    public void testEscapeString() {
+        String s = "no escape";
+
+        assertSame(s, StringUtil.escapeString(s));
+        assertEquals("a\\\\b\\\"c\\n\\t\\r\\b\\f\\001", StringUtil.escapeString("a\\b\"c\n\t\r\b\f\u0001"));
+        assertEquals("line1\\nline2", StringUtil.escapeString("line1\nline2"));
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        EscapeUtil.escape(sb, s);
+        return sb.toString();
+    }
+
+    private static String escapeUnicode(String s) {
+        StringBuilder sb = new StringBuilder();
+        EscapeUtil.escapeUnicode(sb, s);
+        return sb.toString();
+    }
+}
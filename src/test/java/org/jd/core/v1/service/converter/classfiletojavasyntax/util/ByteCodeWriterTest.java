@@ -15,9 +15,8 @@ public class ByteCodeWriterTest extends AbstractJdTest {
     public void testWrite() throws Exception {
         final ByteCodeWriter byteCodeWriter = new ByteCodeWriter();
         final ClassPathLoader classPathLoader = new ClassPathLoader();
-        final TypeMaker typeMaker = new TypeMaker(classPathLoader);
         final String internalTypeName = "jd/core/process/analyzer/classfile/reconstructor/PreIncReconstructor";
-        final Method method = MethodUtil.searchMethod(classPathLoader, typeMaker, internalTypeName, "Reconstruct", "(Ljava/util/List;)V");
+        final Method method = MethodUtil.searchMethod(classPathLoader, internalTypeName, "Reconstruct", "(Ljava/util/List;)V");
         final String byteCode = byteCodeWriter.write("//", method);
         assertEqualsIgnoreEOL(IOUtils.toString(getClass().getResource("/txt/PreIncReconstructor.txt"), StandardCharsets.UTF_8), byteCode);
     }
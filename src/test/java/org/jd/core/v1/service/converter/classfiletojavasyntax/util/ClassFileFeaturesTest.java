@@ -0,0 +1,80 @@
+package org.jd.core.v1.service.converter.classfiletojavasyntax.util;
+
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.classfile.ClassFile;
+import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.annotation.RetentionPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileFeaturesTest {
+    protected ClassFileDeserializer deserializer = new ClassFileDeserializer();
+    protected ClassPathLoader loader = new ClassPathLoader();
+
+    @Test
+    public void testPlainClass() throws Exception {
+        ClassFile classFile = deserializer.loadClassFile(loader, Plain.class.getName().replace('.', '/'));
+
+        assertEquals(ClassFileFeatures.NONE, ClassFileFeatures.scan(classFile));
+    }
+
+    @Test
+    public void testFeatures() throws Exception {
+        ClassFile classFile = deserializer.loadClassFile(loader, Features.class.getName().replace('.', '/'));
+        int features = ClassFileFeatures.scan(classFile);
+
+        assertTrue((features & ClassFileFeatures.AUTOBOXING) != 0);
+        assertTrue((features & ClassFileFeatures.SWITCH_MAP) != 0);
+        assertTrue((features & ClassFileFeatures.TRY_WITH_RESOURCES) != 0);
+        assertFalse((features & ClassFileFeatures.BRIDGE_METHOD) != 0);
+    }
+
+    @Test
+    public void testInvokeDynamic() throws Exception {
+        ClassFile classFile = deserializer.loadClassFile(loader, Lambda.class.getName().replace('.', '/'));
+
+        // The name of the functional method is not a boxing method
+        assertEquals(ClassFileFeatures.NONE, ClassFileFeatures.scan(classFile));
+    }
+
+    static class Plain {
+        int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    static class Features {
+        Integer box(int i) {
+            return i;
+        }
+
+        int switchEnum(RetentionPolicy policy) {
+            switch (policy) {
+                case SOURCE: return 1;
+                case CLASS: return 2;
+                default: return 3;
+            }
+        }
+
+        int tryWithResources() throws Exception {
+            try (StringReader reader = new StringReader("a")) {
+                return reader.read();
+            }
+        }
+    }
+
+    interface Valued {
+        int getValue();
+    }
+
+    static class Lambda {
+        Valued valued(int i) {
+            return () -> i + 1;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.jd.core.v1.service.converter.classfiletojavasyntax.util;
+
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.classfile.ClassFile;
+import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReferencedTypeNamesTest {
+    protected ClassFileDeserializer deserializer = new ClassFileDeserializer();
+    protected ClassPathLoader loader = new ClassPathLoader();
+
+    @Test
+    public void testScan() throws Exception {
+        ClassFile classFile = deserializer.loadClassFile(loader, Outer.class.getName().replace('.', '/'));
+        Set<String> internalTypeNames = ReferencedTypeNames.scan(classFile);
+
+        // Field, generic signature, method descriptor, class constant
+        assertTrue(internalTypeNames.contains("java/util/List"));
+        assertTrue(internalTypeNames.contains("java/lang/Integer"));
+        assertTrue(internalTypeNames.contains("java/util/Map"));
+        assertTrue(internalTypeNames.contains("java/io/StringReader"));
+        // Declared types
+        assertFalse(internalTypeNames.contains(classFile.getInternalTypeName()));
+        assertFalse(internalTypeNames.contains(classFile.getInternalTypeName() + "$Inner"));
+    }
+
+    static class Outer {
+        List<Integer> list;
+
+        Map<String, String> map() {
+            return null;
+        }
+
+        class Inner {
+            Object reader() {
+                return new StringReader("a");
+            }
+        }
+    }
+}
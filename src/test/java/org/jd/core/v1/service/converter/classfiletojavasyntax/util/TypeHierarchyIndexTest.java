@@ -0,0 +1,111 @@
+package org.jd.core.v1.service.converter.classfiletojavasyntax.util;
+
+import org.jd.core.v1.api.loader.Loader;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.javasyntax.type.ObjectType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypeHierarchyIndexTest {
+
+    @Test
+    public void testRawTypeAssignable() throws Exception {
+        TypeMaker typeMaker = new TypeMaker(new ClassPathLoader());
+        TypeHierarchyIndex index = TypeHierarchyIndex.getInstance(typeMaker);
+
+        ObjectType arrayList = typeMaker.makeFromInternalTypeName("java/util/ArrayList");
+        ObjectType list = typeMaker.makeFromInternalTypeName("java/util/List");
+        ObjectType collection = typeMaker.makeFromInternalTypeName("java/util/Collection");
+        ObjectType randomAccess = typeMaker.makeFromInternalTypeName("java/util/RandomAccess");
+        ObjectType linkedList = typeMaker.makeFromInternalTypeName("java/util/LinkedList");
+        ObjectType number = typeMaker.makeFromInternalTypeName("java/lang/Number");
+
+        assertTrue(index.isRawTypeAssignable(typeMaker, list, arrayList));
+        assertTrue(index.isRawTypeAssignable(typeMaker, collection, arrayList));
+        assertTrue(index.isRawTypeAssignable(typeMaker, randomAccess, arrayList));
+        assertTrue(index.isRawTypeAssignable(typeMaker, ObjectType.TYPE_OBJECT, arrayList));
+        assertFalse(index.isRawTypeAssignable(typeMaker, arrayList, list));
+        assertFalse(index.isRawTypeAssignable(typeMaker, randomAccess, linkedList));
+        assertFalse(index.isRawTypeAssignable(typeMaker, number, ObjectType.TYPE_STRING));
+        assertTrue(index.isRawTypeAssignable(typeMaker, number, ObjectType.TYPE_INTEGER));
+
+        // Same answers as the type maker
+        for (ObjectType parent : Arrays.asList(arrayList, list, collection, randomAccess, linkedList, number)) {
+            for (ObjectType child : Arrays.asList(arrayList, list, collection, randomAccess, linkedList, number)) {
+                assertEquals(parent + " <- " + child, typeMaker.isRawTypeAssignable(parent, child), index.isRawTypeAssignable(typeMaker, parent, child));
+                assertEquals(parent + " <- " + child, typeMaker.isAssignable(Collections.emptyMap(), parent, child), index.isAssignable(typeMaker, Collections.emptyMap(), parent, child));
+            }
+        }
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        TypeMaker typeMaker = new TypeMaker(new ClassPathLoader());
+        TypeHierarchyIndex index = TypeHierarchyIndex.getInstance(typeMaker);
+
+        assertSame(index, TypeHierarchyIndex.getInstance(typeMaker));
+
+        index.index(typeMaker, Arrays.asList("java/util/ArrayList", "java/util/HashMap"));
+        int size = index.size();
+
+        assertTrue(size > 2);
+
+        index.index(typeMaker, Collections.singletonList("java/util/ArrayList"));
+        assertEquals(size, index.size());
+    }
+
+    @Test
+    public void testLoadWithoutLock() throws Exception {
+        class Base implements Runnable {
+            @Override
+            public void run() {}
+        }
+        class Derived extends Base {}
+
+        ClassPathLoader classPathLoader = new ClassPathLoader();
+        TypeHierarchyIndex[] index = new TypeHierarchyIndex[1];
+        AtomicInteger loadCount = new AtomicInteger();
+        AtomicInteger lockedLoadCount = new AtomicInteger();
+        Loader loader = new Loader() {
+            @Override
+            public boolean canLoad(String internalName) {
+                return classPathLoader.canLoad(internalName);
+            }
+
+            @Override
+            public byte[] load(String internalName) throws IOException {
+                loadCount.incrementAndGet();
+
+                if (Thread.holdsLock(index[0])) {
+                    lockedLoadCount.incrementAndGet();
+                }
+
+                return classPathLoader.load(internalName);
+            }
+        };
+        TypeMaker typeMaker = new TypeMaker(loader);
+
+        index[0] = TypeHierarchyIndex.getInstance(typeMaker);
+
+        ObjectType runnable = typeMaker.makeFromInternalTypeName("java/lang/Runnable");
+        ObjectType base = typeMaker.makeFromInternalTypeName(Base.class.getName().replace('.', '/'));
+        ObjectType derived = typeMaker.makeFromInternalTypeName(Derived.class.getName().replace('.', '/'));
+
+        assertTrue(index[0].isRawTypeAssignable(typeMaker, runnable, derived));
+        assertTrue(index[0].isRawTypeAssignable(typeMaker, base, derived));
+        assertFalse(index[0].isRawTypeAssignable(typeMaker, derived, base));
+
+        // The class files are read without holding the lock of the shared index
+        assertTrue(loadCount.get() > 0);
+        assertEquals(0, lockedLoadCount.get());
+    }
+}
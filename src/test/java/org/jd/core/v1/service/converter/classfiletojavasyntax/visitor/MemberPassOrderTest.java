@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.converter.classfiletojavasyntax.visitor;
+
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.javasyntax.CompilationUnit;
+import org.jd.core.v1.model.javasyntax.declaration.FieldDeclarator;
+import org.jd.core.v1.model.message.DecompileContext;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileBodyDeclaration;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileConstructorDeclaration;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileConstructorOrMethodDeclaration;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.model.javasyntax.declaration.ClassFileTypeDeclaration;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.processor.ConvertClassFileProcessor;
+import org.jd.core.v1.service.converter.classfiletojavasyntax.util.TypeMaker;
+import org.jd.core.v1.service.deserializer.classfile.ClassFileDeserializer;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * The member list passes of {@link UpdateJavaSyntaxTreeStep2Visitor} read the lists updated by the
+ * previous passes: they cannot be fused into a single walk without changing the result.
+ */
+public class MemberPassOrderTest extends TestCase {
+    protected final ClassFileDeserializer deserializer = new ClassFileDeserializer();
+    protected final ConvertClassFileProcessor converter = new ConvertClassFileProcessor();
+
+    @Test
+    public void testInitInstanceFieldBeforeRemoveDefaultConstructor() throws Exception {
+        // Step2 order: the initializer is moved to the field, then the empty constructor is removed
+        ClassFileBodyDeclaration bodyDeclaration = convert(FieldInitializer.class);
+
+        new InitInstanceFieldVisitor().visit(bodyDeclaration);
+        new RemoveDefaultConstructorVisitor().visit(bodyDeclaration);
+
+        assertNotNull(getFieldDeclarator(bodyDeclaration).getVariableInitializer());
+        assertEquals(0, countConstructors(bodyDeclaration));
+
+        // Reversed order: 'super();' is removed first, the assignment is no longer found after it
+        bodyDeclaration = convert(FieldInitializer.class);
+
+        new RemoveDefaultConstructorVisitor().visit(bodyDeclaration);
+        new InitInstanceFieldVisitor().visit(bodyDeclaration);
+
+        assertNull(getFieldDeclarator(bodyDeclaration).getVariableInitializer());
+        assertEquals(1, countConstructors(bodyDeclaration));
+    }
+
+    /**
+     * @return the body declaration of 'type', with its statements created
+     */
+    protected ClassFileBodyDeclaration convert(Class<?> type) throws Exception {
+        ClassPathLoader loader = new ClassPathLoader();
+        TypeMaker typeMaker = new TypeMaker(loader);
+        String internalTypeName = type.getName().replace('.', '/');
+        DecompileContext decompileContext = new DecompileContext();
+
+        decompileContext.setMainInternalTypeName(internalTypeName);
+        decompileContext.setLoader(loader);
+        decompileContext.setTypeMaker(typeMaker);
+
+        CompilationUnit compilationUnit = converter.process(deserializer.loadClassFile(loader, internalTypeName), typeMaker, decompileContext);
+
+        new UpdateJavaSyntaxTreeStep0Visitor(typeMaker).visit(compilationUnit);
+        new UpdateJavaSyntaxTreeStep1Visitor(typeMaker).visit(compilationUnit);
+
+        return (ClassFileBodyDeclaration)((ClassFileTypeDeclaration)compilationUnit.typeDeclarations()).getBodyDeclaration();
+    }
+
+    protected static FieldDeclarator getFieldDeclarator(ClassFileBodyDeclaration bodyDeclaration) {
+        return (FieldDeclarator)bodyDeclaration.getFieldDeclarations().get(0).getFieldDeclarators();
+    }
+
+    protected static int countConstructors(ClassFileBodyDeclaration bodyDeclaration) {
+        int count = 0;
+
+        for (ClassFileConstructorOrMethodDeclaration declaration : bodyDeclaration.getMethodDeclarations()) {
+            if (declaration instanceof ClassFileConstructorDeclaration) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    static class FieldInitializer {
+        int value = 1;
+    }
+}
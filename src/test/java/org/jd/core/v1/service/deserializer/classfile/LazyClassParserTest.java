@@ -0,0 +1,53 @@
+package org.jd.core.v1.service.deserializer.classfile;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyClassParserTest {
+
+    @Test
+    public void testParse() throws Exception {
+        String internalTypeName = LazyClassParserTest.class.getName().replace('.', '/');
+        byte[] data = new ClassPathLoader().load(internalTypeName);
+        JavaClass expected = new ClassParser(new ByteArrayInputStream(data), internalTypeName).parse();
+        JavaClass javaClass = LazyClassParser.parse(data, internalTypeName);
+
+        assertEquals(expected.getClassName(), javaClass.getClassName());
+        assertEquals(expected.getSuperclassName(), javaClass.getSuperclassName());
+        assertEquals(expected.getFields().length, javaClass.getFields().length);
+        assertEquals(expected.getMethods().length, javaClass.getMethods().length);
+        assertEquals(expected.getAttributes().length, javaClass.getAttributes().length);
+
+        for (int i=0; i<expected.getMethods().length; i++) {
+            Method expectedMethod = expected.getMethods()[i];
+            Method method = javaClass.getMethods()[i];
+
+            assertEquals(expectedMethod.getName(), method.getName());
+            assertEquals(expectedMethod.getSignature(), method.getSignature());
+            assertTrue(method instanceof LazyCodeMethod);
+
+            LazyCodeMethod lazyCodeMethod = (LazyCodeMethod)method;
+
+            assertFalse(lazyCodeMethod.isCodeDecoded());
+            assertEquals(expectedMethod.getAttributes().length - 1, method.getAttributes().length);
+
+            // Decoded on demand
+            assertNotNull(method.getLineNumberTable());
+            assertTrue(lazyCodeMethod.isCodeDecoded());
+            assertArrayEquals(expectedMethod.getCode().getCode(), method.getCode().getCode());
+            assertEquals(Arrays.toString(expectedMethod.getAttributes()), Arrays.toString(method.getAttributes()));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.fragmenter.javasyntaxtojavafragment.visitor;
+
+import org.jd.core.v1.api.printer.Printer;
+import org.jd.core.v1.loader.ClassPathLoader;
+import org.jd.core.v1.model.javasyntax.type.ObjectType;
+import org.jd.core.v1.model.token.ReferenceToken;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import junit.framework.TestCase;
+
+public class TypeVisitorTest extends TestCase {
+    protected static final int LOOKUP_COUNT = 10_000;
+
+    @Test
+    public void testSharedReferenceTokens() throws Exception {
+        TypeVisitor visitor = newTypeVisitor();
+        ReferenceToken token = visitor.newReferenceToken(Printer.METHOD, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", ObjectType.TYPE_STRING);
+
+        assertSame(token, visitor.newReferenceToken(Printer.METHOD, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", ObjectType.TYPE_STRING));
+        assertNotSame(token, visitor.newReferenceToken(Printer.METHOD, "java/lang/String", "valueOf", "(J)Ljava/lang/String;", ObjectType.TYPE_STRING));
+        assertNotSame(token, visitor.newReferenceToken(Printer.METHOD, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", null));
+        assertEquals("java/lang/String", token.getOwnerInternalName());
+    }
+
+    @Test
+    public void testLookupWithoutAllocation() throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if ((threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean) && sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+            TypeVisitor visitor = newTypeVisitor();
+            long threadId = Thread.currentThread().getId();
+
+            visitor.newReferenceToken(Printer.METHOD, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", ObjectType.TYPE_STRING);
+
+            long bytes = sunThreadMXBean.getThreadAllocatedBytes(threadId);
+
+            for (int i=0; i<LOOKUP_COUNT; i++) {
+                visitor.newReferenceToken(Printer.METHOD, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", ObjectType.TYPE_STRING);
+            }
+
+            bytes = sunThreadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+
+            // A key per lookup would allocate more than 24 bytes per lookup
+            assertTrue("allocated " + bytes + " bytes", bytes < LOOKUP_COUNT);
+        }
+    }
+
+    protected static TypeVisitor newTypeVisitor() {
+        ClassPathLoader loader = new ClassPathLoader();
+        return new TypeVisitor(loader, "org/jd/core/test/Test", 52, new SearchImportsVisitor(loader, "org/jd/core/test/Test"));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2008, 2019 Emmanuel Dupuy.
+ * This project is distributed under the GPLv3 license.
+ * This is a Copyleft license that gives the user the right to use,
+ * copy and modify the code freely for non-commercial purposes.
+ */
+
+package org.jd.core.v1.service.layouter;
+
+import org.jd.core.v1.model.fragment.EndFlexibleBlockFragment;
+import org.jd.core.v1.model.fragment.EndMovableBlockFragment;
+import org.jd.core.v1.model.fragment.FixedFragment;
+import org.jd.core.v1.model.fragment.FlexibleFragment;
+import org.jd.core.v1.model.fragment.Fragment;
+import org.jd.core.v1.model.fragment.FragmentVisitor;
+import org.jd.core.v1.model.fragment.SpacerBetweenMovableBlocksFragment;
+import org.jd.core.v1.model.fragment.StartFlexibleBlockFragment;
+import org.jd.core.v1.model.fragment.StartMovableBlockFragment;
+import org.jd.core.v1.service.layouter.model.Section;
+import org.jd.core.v1.service.layouter.util.LayoutArena;
+import org.jd.core.v1.service.layouter.visitor.BuildSectionsVisitor;
+import org.jd.core.v1.service.layouter.visitor.UpdateSpacerBetweenMovableBlocksVisitor;
+import org.jd.core.v1.service.layouter.visitor.UpdateSpacerBetweenMovableBlocksVisitor.State;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class ReleaseConstraintsTest extends TestCase {
+    protected static final int SEED_COUNT = 2000;
+
+    /**
+     * Compare the incremental update of the spacers with a visit of all sections at each iteration, on
+     * random class bodies whose line numbers are partially out of order.
+     */
+    @Test
+    public void testIncrementalSpacerUpdate() {
+        int moveCount = 0;
+
+        for (long seed=0; seed<SEED_COUNT; seed++) {
+            String expected = layout(seed, new FullVisitLayoutFragmentProcessor());
+            String result = layout(seed, new LayoutFragmentProcessor());
+
+            assertEquals("seed " + seed, expected, result);
+
+            if (result.contains("moved")) {
+                moveCount++;
+            }
+        }
+
+        // Fragments were moved
+        assertTrue(moveCount > SEED_COUNT / 10);
+    }
+
+    /**
+     * @return the fragment indexes and the line counts after the layout, followed by "moved" if the
+     *         order of the fragments has changed
+     */
+    protected static String layout(long seed, LayoutFragmentProcessor processor) {
+        List<Fragment> fragments = new RandomBodyBuilder(seed).build();
+        BuildSectionsVisitor buildSectionsVisitor = new BuildSectionsVisitor();
+
+        for (Fragment fragment : fragments) {
+            fragment.accept(buildSectionsVisitor);
+        }
+
+        List<Section> sections = buildSectionsVisitor.getSections();
+        LayoutArena arena = new LayoutArena();
+
+        processor.releaseConstraints(sections, arena);
+
+        for (Section section : sections) {
+            section.layout(true, arena);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int position = 0;
+        boolean moved = false;
+
+        for (Section section : sections) {
+            List<Fragment> sectionFragments = new ArrayList<>(section.getFlexibleFragments());
+
+            if (section.getFixedFragment() != null) {
+                sectionFragments.add(section.getFixedFragment());
+            }
+
+            for (Fragment fragment : sectionFragments) {
+                int index = fragments.indexOf(fragment);
+
+                moved |= (index != position++);
+                sb.append(index);
+
+                if (fragment instanceof FlexibleFragment flexibleFragment) {
+                    sb.append(':').append(flexibleFragment.getLineCount()).append('/').append(flexibleFragment.getInitialLineCount());
+                }
+
+                sb.append(' ');
+            }
+        }
+
+        return moved ? sb.append("moved").toString() : sb.toString();
+    }
+
+    /**
+     * Previous implementation: the spacers of all sections are updated at each iteration.
+     */
+    protected static class FullVisitLayoutFragmentProcessor extends LayoutFragmentProcessor {
+        @Override
+        protected void updateSpacers(List<Section> sections, Map<FlexibleFragment, Section> spacerSections, UpdateSpacerBetweenMovableBlocksVisitor visitor, State[] states, BitSet sectionsToVisit) {
+            visitor.reset();
+
+            for (Section section : sections) {
+                for (FlexibleFragment fragment : section.getFlexibleFragments()) {
+                    fragment.accept(visitor);
+                }
+                if (section.getFixedFragment() != null) {
+                    section.getFixedFragment().accept(visitor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the fragments of a class body: fields, methods and inner classes, separated by spacers.
+     */
+    protected static class RandomBodyBuilder {
+        protected final Random random;
+        protected final List<Fragment> fragments = new ArrayList<>();
+        protected int lineNumber;
+
+        public RandomBodyBuilder(long seed) {
+            this.random = new Random(seed);
+            this.lineNumber = 1 + random.nextInt(5);
+        }
+
+        public List<Fragment> build() {
+            addBody(0);
+            return fragments;
+        }
+
+        protected void addBody(int depth) {
+            int memberCount = 1 + random.nextInt(6);
+
+            fragments.add(new StartMovableBlockFragment(1));
+            fragments.add(new TestStartFlexibleBlockFragment());
+
+            for (int i=0; i<memberCount; i++) {
+                if (i > 0) {
+                    fragments.add(new SpacerBetweenMovableBlocksFragment(0, 1 + random.nextInt(2), Integer.MAX_VALUE, 7, "Spacer between members"));
+                }
+
+                int kind = random.nextInt(10);
+
+                if (depth < 2 && kind == 0) {
+                    addBody(depth + 1);
+                } else {
+                    addMember(kind < 4 ? 2 : 3);
+                }
+            }
+
+            fragments.add(new TestEndFlexibleBlockFragment());
+            fragments.add(new EndMovableBlockFragment());
+        }
+
+        protected void addMember(int type) {
+            int statementCount = random.nextInt(4);
+
+            fragments.add(new StartMovableBlockFragment(type));
+
+            for (int j=0; j<statementCount; j++) {
+                fragments.add(new TestFlexibleFragment(0, random.nextInt(2), 1 + random.nextInt(3), random.nextInt(10)));
+
+                if (random.nextInt(6) == 0) {
+                    // Out of order line number
+                    lineNumber = Math.max(1, lineNumber - random.nextInt(30));
+                } else {
+                    lineNumber += random.nextInt(8);
+                }
+
+                fragments.add(new TestFixedFragment(lineNumber));
+            }
+
+            fragments.add(new EndMovableBlockFragment());
+        }
+    }
+
+    protected static class TestFlexibleFragment extends FlexibleFragment {
+        public TestFlexibleFragment(int minimalLineCount, int lineCount, int maximalLineCount, int weight) {
+            super(minimalLineCount, lineCount, maximalLineCount, weight, "Statement");
+        }
+
+        @Override
+        public void accept(FragmentVisitor visitor) {
+            visitor.visit(this);
+        }
+    }
+
+    protected static class TestStartFlexibleBlockFragment extends StartFlexibleBlockFragment {
+        public TestStartFlexibleBlockFragment() {
+            super(0, 1, 1, 2, "Start body");
+        }
+    }
+
+    protected static class TestEndFlexibleBlockFragment extends EndFlexibleBlockFragment {
+        public TestEndFlexibleBlockFragment() {
+            super(0, 1, 1, 2, "End body");
+        }
+    }
+
+    protected static class TestFixedFragment extends FixedFragment {
+        public TestFixedFragment(int lineNumber) {
+            super(lineNumber, lineNumber);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.jd.core.v1.service.layouter.util;
+
+import org.jd.core.v1.model.fragment.FlexibleFragment;
+import org.jd.core.v1.model.fragment.SpacerBetweenMovableBlocksFragment;
+import org.jd.core.v1.util.DefaultList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AutoGrowthListTest {
+
+    @Test
+    public void testReuse() {
+        AutoGrowthList list = new AutoGrowthList();
+        FlexibleFragment fragment1 = new SpacerBetweenMovableBlocksFragment(0, 1, 2, 5, "1");
+        FlexibleFragment fragment2 = new SpacerBetweenMovableBlocksFragment(0, 1, 2, 30, "2");
+
+        list.get(fragment2.getWeight()).add(fragment2);
+        list.get(fragment1.getWeight()).add(fragment1);
+
+        List<DefaultList<FlexibleFragment>> buckets = new ArrayList<>();
+
+        for (DefaultList<FlexibleFragment> bucket : list) {
+            buckets.add(bucket);
+        }
+
+        assertEquals(2, buckets.size());
+        assertSame(fragment1, buckets.get(0).get(0));
+        assertSame(fragment2, buckets.get(1).get(0));
+
+        DefaultList<FlexibleFragment> bucket = list.get(5);
+
+        list.clear();
+
+        // Empty buckets are kept, but skipped
+        assertSame(bucket, list.get(5));
+        assertTrue(bucket.isEmpty());
+        assertTrue(!list.iterator().hasNext());
+
+        list.get(30).add(fragment1);
+        buckets.clear();
+
+        for (DefaultList<FlexibleFragment> b : list) {
+            buckets.add(b);
+        }
+
+        assertEquals(1, buckets.size());
+        assertSame(fragment1, buckets.get(0).get(0));
+    }
+}
@@ -0,0 +1,36 @@
+package org.jd.core.v1.stub;
+
+import java.beans.Transient;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@SuppressWarnings("all")
+public class ImportConflicts {
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Handler {
+        Class<?> value();
+    }
+
+    // Referenced first: imported
+    private Date date;
+    private List<String> names;
+
+    // Referenced only by annotations
+    @Transient
+    @Handler(TimeUnit.class)
+    public long getTime() {
+        return date.getTime();
+    }
+
+    // Same simple name, referenced later: qualified
+    public java.sql.Date toSqlDate() {
+        return new java.sql.Date(date.getTime());
+    }
+
+    public int size() {
+        return names.size() + 1;
+    }
+}